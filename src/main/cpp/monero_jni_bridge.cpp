@@ -333,76 +333,42 @@ extern "C"
 
 // ------------------------------ STATIC UTILS --------------------------------
 
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_getIntegratedAddressJni(JNIEnv *env, jclass clazz, jint jnetwork_type, jstring jstandard_address, jstring jpayment_id) {
-
-  // convert jstrings to strings
-  string standard_address = jstring2string(env, jstandard_address);
-  string payment_id = jstring2string(env, jpayment_id);
-
-  // get integrated address
-  try {
-    monero_integrated_address integrated_address = monero_utils::get_integrated_address(static_cast<monero_network_type>(jnetwork_type), standard_address, payment_id);
-    return env->NewStringUTF(integrated_address.serialize().c_str());
-  } catch (...) {
-    rethrow_cpp_exception_as_java_exception(env);
-    return 0;
-  }
-}
-
-JNIEXPORT jbyteArray JNICALL Java_monero_common_MoneroUtils_jsonToBinaryJni(JNIEnv *env, jclass clazz, jstring json) {
-
-  // convert json jstring to string
-  string json_str = jstring2string(env, json);
-
-  // convert json to monero's portable storage binary format
-  string bin_str;
-  monero_utils::json_to_binary(json_str, bin_str);
-
-  // convert binary string to jbyteArray
-  jbyteArray result = env->NewByteArray(bin_str.length());
-  if (result == NULL) {
-     return NULL; // out of memory error thrown
-  }
-
-  // fill a temp structure to use to populate the java byte array
-  jbyte fill[bin_str.length()];
-  for (int i = 0; i < bin_str.length(); i++) {
-     fill[i] = bin_str[i];
-  }
-  env->SetByteArrayRegion(result, 0, bin_str.length(), fill);
-  return result;
-}
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryToJsonJni(JNIEnv *env, jclass clazz, jbyteArray bin) {
+JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksToJsonJni(JNIEnv *env, jclass clazz, jbyteArray blocks_bin) {
 
   // convert the jbyteArray to a string
-  int binLength = env->GetArrayLength(bin);
+  int binLength = env->GetArrayLength(blocks_bin);
   jboolean is_copy;
-  jbyte* jbytes = env->GetByteArrayElements(bin, &is_copy);
+  jbyte* jbytes = env->GetByteArrayElements(blocks_bin, &is_copy);
   string bin_str = string((char*) jbytes, binLength);
 
   // convert monero's portable storage binary format to json
   string json_str;
-  monero_utils::binary_to_json(bin_str, json_str);
+  monero_utils::binary_blocks_to_json(bin_str, json_str);
 
   // convert string to jstring
   return env->NewStringUTF(json_str.c_str());
 }
 
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksToJsonJni(JNIEnv *env, jclass clazz, jbyteArray blocks_bin) {
+JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksBufferToJsonJni(JNIEnv *env, jclass clazz, jobject blocks_buf, jint offset, jint length) {
 
-  // convert the jbyteArray to a string
-  int binLength = env->GetArrayLength(blocks_bin);
-  jboolean is_copy;
-  jbyte* jbytes = env->GetByteArrayElements(blocks_bin, &is_copy);
-  string bin_str = string((char*) jbytes, binLength);
+  // read the binary blocks directly from the direct buffer's memory
+  char* data = (char*) env->GetDirectBufferAddress(blocks_buf);
+  if (data == NULL) {
+    jclass jc = env->FindClass("java/lang/IllegalArgumentException");
+    if (jc) env->ThrowNew(jc, "Buffer is not a direct buffer");
+    return NULL;
+  }
+  string bin_str = string(data + offset, length);
 
   // convert monero's portable storage binary format to json
-  string json_str;
-  monero_utils::binary_blocks_to_json(bin_str, json_str);
-
-  // convert string to jstring
-  return env->NewStringUTF(json_str.c_str());
+  try {
+    string json_str;
+    monero_utils::binary_blocks_to_json(bin_str, json_str);
+    return env->NewStringUTF(json_str.c_str());
+  } catch (...) {
+    rethrow_cpp_exception_as_java_exception(env);
+    return NULL;
+  }
 }
 
 JNIEXPORT void JNICALL Java_monero_common_MoneroUtils_setLogLevelJni(JNIEnv* env, jclass clazz, jint level) {
@@ -45,14 +45,10 @@ extern "C" {
 
 // ------------------------------ STATIC UTILS --------------------------------
 
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_getIntegratedAddressJni(JNIEnv *, jclass, jint, jstring, jstring);
-
-JNIEXPORT jbyteArray JNICALL Java_monero_common_MoneroUtils_jsonToBinaryJni(JNIEnv *, jclass, jstring);
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryToJsonJni(JNIEnv *, jclass, jbyteArray);
-
 JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksToJsonJni(JNIEnv *, jclass, jbyteArray);
 
+JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksBufferToJsonJni(JNIEnv *, jclass, jobject, jint, jint);
+
 JNIEXPORT void JNICALL Java_monero_common_MoneroUtils_setLogLevelJni(JNIEnv *, jclass, jint);
 
 JNIEXPORT void JNICALL Java_monero_common_MoneroUtils_configureLoggingJni(JNIEnv *, jclass, jstring jpath, jboolean);
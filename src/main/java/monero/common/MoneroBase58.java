@@ -0,0 +1,165 @@
+package monero.common;
+
+import java.util.Arrays;
+
+/**
+ * Monero's variant of Base58, which encodes data in blocks of 8 bytes to 11 characters,
+ * so the encoded length is fixed by the data length.<br><br>
+ *
+ * Blocks are encoded and decoded with long arithmetic and a lookup table, without allocating per block.
+ */
+public class MoneroBase58 {
+
+  private static final String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+  private static final int BASE = 58;
+  private static final int FULL_BLOCK_SIZE = 8;
+  private static final int FULL_ENCODED_BLOCK_SIZE = 11;
+  private static final int[] ENCODED_BLOCK_SIZES = new int[] { 0, 2, 3, 5, 6, 7, 9, 10, 11 }; // indexed by block size
+  private static final int[] DECODED_BLOCK_SIZES = new int[] { 0, -1, 1, 2, -1, 3, 4, 5, -1, 6, 7, 8 }; // indexed by encoded block size
+  private static final byte[] DIGITS = new byte[128];
+  static {
+    Arrays.fill(DIGITS, (byte) -1);
+    for (int i = 0; i < ALPHABET.length(); i++) DIGITS[ALPHABET.charAt(i)] = (byte) i;
+  }
+
+  /**
+   * Indicates if the given string has only Base58 characters.
+   *
+   * @param str is the string to check
+   * @return true if the string has only Base58 characters, false otherwise
+   */
+  public static boolean isBase58(CharSequence str) {
+    if (str == null) return false;
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c >= DIGITS.length || DIGITS[c] < 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Get the length of the data encoded by a string of the given length.
+   *
+   * @param encodedLength is the length of the encoded string
+   * @return the length of the decoded data, or -1 if no data encodes to the given length
+   */
+  public static int getDecodedLength(int encodedLength) {
+    if (encodedLength < 0) return -1;
+    int lastBlockSize = DECODED_BLOCK_SIZES[encodedLength % FULL_ENCODED_BLOCK_SIZE];
+    if (lastBlockSize < 0) return -1;
+    return encodedLength / FULL_ENCODED_BLOCK_SIZE * FULL_BLOCK_SIZE + lastBlockSize;
+  }
+
+  /**
+   * Get the length of the string which encodes data of the given length.
+   *
+   * @param length is the length of the data
+   * @return the length of the encoded string
+   */
+  public static int getEncodedLength(int length) {
+    return length / FULL_BLOCK_SIZE * FULL_ENCODED_BLOCK_SIZE + ENCODED_BLOCK_SIZES[length % FULL_BLOCK_SIZE];
+  }
+
+  /**
+   * Encode data to a Base58 string.
+   *
+   * @param data is the data to encode
+   * @return the encoded string
+   */
+  public static String encode(byte[] data) {
+    return encode(data, 0, data.length);
+  }
+
+  /**
+   * Encode a range of data to a Base58 string.
+   *
+   * @param data contains the data to encode
+   * @param offset is the position of the data to encode
+   * @param length is the length of the data to encode
+   * @return the encoded string
+   */
+  public static String encode(byte[] data, int offset, int length) {
+    char[] chars = new char[getEncodedLength(length)];
+    int numFullBlocks = length / FULL_BLOCK_SIZE;
+    for (int i = 0; i < numFullBlocks; i++) {
+      encodeBlock(data, offset + i * FULL_BLOCK_SIZE, FULL_BLOCK_SIZE, chars, i * FULL_ENCODED_BLOCK_SIZE);
+    }
+    int lastBlockSize = length % FULL_BLOCK_SIZE;
+    if (lastBlockSize > 0) encodeBlock(data, offset + numFullBlocks * FULL_BLOCK_SIZE, lastBlockSize, chars, numFullBlocks * FULL_ENCODED_BLOCK_SIZE);
+    return new String(chars);
+  }
+
+  /**
+   * Decode a Base58 string.
+   *
+   * @param str is the string to decode
+   * @return the decoded data
+   * @throws MoneroError if the string is not valid Base58
+   */
+  public static byte[] decode(CharSequence str) {
+    int length = getDecodedLength(str.length());
+    if (length < 0) throw new MoneroError("Invalid Base58 length: " + str.length());
+    byte[] data = new byte[length];
+    if (decode(str, data, 0) < 0) throw new MoneroError("Invalid Base58: " + str);
+    return data;
+  }
+
+  /**
+   * Decode a Base58 string into the given buffer without allocating.
+   *
+   * @param str is the string to decode
+   * @param buf receives the decoded data
+   * @param offset is the position in the buffer to write the decoded data
+   * @return the length of the decoded data, or -1 if the string is not valid Base58 or does not fit in the buffer
+   */
+  public static int decode(CharSequence str, byte[] buf, int offset) {
+    int length = getDecodedLength(str.length());
+    if (length < 0 || length > buf.length - offset) return -1;
+    int numFullBlocks = str.length() / FULL_ENCODED_BLOCK_SIZE;
+    for (int i = 0; i < numFullBlocks; i++) {
+      if (!decodeBlock(str, i * FULL_ENCODED_BLOCK_SIZE, FULL_ENCODED_BLOCK_SIZE, buf, offset + i * FULL_BLOCK_SIZE)) return -1;
+    }
+    int lastBlockSize = str.length() % FULL_ENCODED_BLOCK_SIZE;
+    if (lastBlockSize > 0 && !decodeBlock(str, numFullBlocks * FULL_ENCODED_BLOCK_SIZE, lastBlockSize, buf, offset + numFullBlocks * FULL_BLOCK_SIZE)) return -1;
+    return length;
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  /**
+   * Encode one block of big-endian bytes, padding with the zero digit.
+   */
+  private static void encodeBlock(byte[] data, int offset, int size, char[] chars, int start) {
+    long num = 0;
+    for (int i = 0; i < size; i++) num = (num << 8) | (data[offset + i] & 0xff);
+    for (int i = start + ENCODED_BLOCK_SIZES[size] - 1; i >= start; i--) {
+      chars[i] = ALPHABET.charAt((int) Long.remainderUnsigned(num, BASE));
+      num = Long.divideUnsigned(num, BASE);
+    }
+  }
+
+  /**
+   * Decode one block to big-endian bytes, returning false if it has an invalid character or overflows.
+   */
+  private static boolean decodeBlock(CharSequence str, int start, int encodedSize, byte[] buf, int offset) {
+    int size = DECODED_BLOCK_SIZES[encodedSize];
+    long num = 0;
+    int end = start + encodedSize;
+    for (int i = start; i < end; i++) {
+      char c = str.charAt(i);
+      int digit = c < DIGITS.length ? DIGITS[c] : -1;
+      if (digit < 0) return false;
+      if (i < end - 1 || encodedSize < FULL_ENCODED_BLOCK_SIZE) num = num * BASE + digit; // at most 58^10 which cannot overflow
+      else {
+        if (Long.compareUnsigned(num, Long.divideUnsigned(-1l - digit, BASE)) > 0) return false; // exceeds 64 bits
+        num = num * BASE + digit;
+      }
+    }
+    if (size < FULL_BLOCK_SIZE && (num >>> (8 * size)) != 0) return false; // exceeds block size
+    for (int i = size - 1; i >= 0; i--) {
+      buf[offset + i] = (byte) num;
+      num >>>= 8;
+    }
+    return true;
+  }
+}
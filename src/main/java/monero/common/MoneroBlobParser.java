@@ -0,0 +1,349 @@
+package monero.common;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import monero.daemon.model.MoneroBlock;
+import monero.daemon.model.MoneroKeyImage;
+import monero.daemon.model.MoneroOutput;
+import monero.daemon.model.MoneroTx;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+
+/**
+ * Parses Monero block and transaction blobs without the daemon or native library.<br><br>
+ *
+ * Blocks are parsed to their header, miner transaction and transaction hashes. Transactions are
+ * parsed to their prefix (inputs with key images and ring members, outputs with keys and view tags,
+ * and extra) and the base of their RingCT signatures (type, fee, encrypted amounts and output
+ * commitments), which is everything in a pruned blob. Prunable signature data is skipped.<br><br>
+ *
+ * Fields are assigned as when decoded from the daemon's json, e.g. ring member offsets are relative
+ * and the miner transaction has no inputs.
+ */
+public class MoneroBlobParser {
+
+  private static final int HASH_LENGTH = 32;
+  private static final byte[] NULL_HASH = new byte[HASH_LENGTH];
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+  // input and output types
+  private static final int TXIN_GEN = 0xff;
+  private static final int TXIN_TO_KEY = 0x02;
+  private static final int TXOUT_TO_KEY = 0x02;
+  private static final int TXOUT_TO_TAGGED_KEY = 0x03;
+
+  // ringct types
+  private static final int RCT_TYPE_NULL = 0;
+  private static final int RCT_TYPE_SIMPLE = 2;
+  private static final int RCT_TYPE_BULLETPROOF2 = 4;
+  private static final int RCT_TYPE_CLSAG = 5;
+  private static final int RCT_TYPE_BULLETPROOF_PLUS = 6;
+
+  /**
+   * Parse a block from its hex.
+   *
+   * @param hex is the block's hex
+   * @return the parsed block
+   */
+  public static MoneroBlock parseBlock(String hex) {
+    return parseBlock(hexToBytes(hex)).setHex(hex);
+  }
+
+  /**
+   * Parse a block from its blob.<br><br>
+   *
+   * The block's height is read from its miner transaction. Its hash is not computed.
+   *
+   * @param blob is the block's blob
+   * @return the parsed block
+   */
+  public static MoneroBlock parseBlock(byte[] blob) {
+    Reader reader = new Reader(blob);
+    MoneroBlock block = new MoneroBlock();
+    block.setMajorVersion((int) reader.readVarint());
+    block.setMinorVersion((int) reader.readVarint());
+    block.setTimestamp(reader.readVarint());
+    block.setPrevHash(reader.readHex(HASH_LENGTH));
+    block.setNonce(reader.readUint32());
+
+    // parse miner tx, which is not pruned
+    MoneroTx minerTx = new MoneroTx().setIsConfirmed(true).setInTxPool(false).setIsMinerTx(true);
+    int minerTxStart = reader.pos;
+    readTx(reader, minerTx);
+    int minerTxEnd = reader.pos;
+    if (minerTx.getHash() == null) minerTx.setHash(bytesToHex(getTxHash(blob, minerTxStart, reader.prefixEnd, reader.baseEnd, minerTxEnd, minerTx.getVersion(), null)));
+    block.setMinerTx(minerTx);
+    block.setMinerTxHash(minerTx.getHash());
+    block.setHeight(reader.genHeight);
+
+    // parse tx hashes
+    long numTxs = reader.readCount(HASH_LENGTH);
+    List<String> txHashes = new ArrayList<String>((int) numTxs);
+    for (long i = 0; i < numTxs; i++) txHashes.add(reader.readHex(HASH_LENGTH));
+    block.setTxHashes(txHashes);
+    block.setNumTxs(txHashes.size());
+    return block;
+  }
+
+  /**
+   * Parse a transaction from its full or pruned hex.
+   *
+   * @param hex is the transaction's full or pruned hex
+   * @return the parsed transaction
+   */
+  public static MoneroTx parseTx(String hex) {
+    return parseTx(hex, new MoneroTx());
+  }
+
+  /**
+   * Parse a transaction's full or pruned hex into the given transaction.
+   *
+   * @param hex is the transaction's full or pruned hex
+   * @param tx is the transaction to assign the parsed fields to
+   * @return the given transaction
+   */
+  public static MoneroTx parseTx(String hex, MoneroTx tx) {
+    return parseTx(hexToBytes(hex), tx);
+  }
+
+  /**
+   * Parse a transaction from its full or pruned blob.
+   *
+   * @param blob is the transaction's full or pruned blob
+   * @return the parsed transaction
+   */
+  public static MoneroTx parseTx(byte[] blob) {
+    return parseTx(blob, new MoneroTx());
+  }
+
+  /**
+   * Parse a transaction's blob into the given transaction.<br><br>
+   *
+   * The transaction's hash is computed if unknown and the blob is full, or if the blob is
+   * pruned and the transaction's prunable hash is known. The hash of a pruned version 1
+   * transaction cannot be computed since its signatures are hashed with its prefix.
+   *
+   * @param blob is the transaction's full or pruned blob
+   * @param tx is the transaction to assign the parsed fields to
+   * @return the given transaction
+   */
+  public static MoneroTx parseTx(byte[] blob, MoneroTx tx) {
+    Reader reader = new Reader(blob);
+    readTx(reader, tx);
+    if (tx.getHash() == null) {
+      boolean isPruned = reader.baseEnd == blob.length && (tx.getVersion() == 1 ? reader.numKeyInputs > 0 : reader.rctType != RCT_TYPE_NULL); // signatures are missing
+      byte[] prunableHash = isPruned && tx.getVersion() != 1 && tx.getPrunableHash() != null ? hexToBytes(tx.getPrunableHash()) : null;
+      if (!isPruned || prunableHash != null) tx.setHash(bytesToHex(getTxHash(blob, 0, reader.prefixEnd, reader.baseEnd, blob.length, tx.getVersion(), prunableHash)));
+    }
+    return tx;
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private static void readTx(Reader reader, MoneroTx tx) {
+
+    // read prefix
+    int version = (int) reader.readVarint();
+    tx.setVersion(version);
+    tx.setUnlockTime(reader.readVarintBigInteger());
+    long numInputs = reader.readCount(1);
+    List<MoneroOutput> inputs = new ArrayList<MoneroOutput>((int) numInputs);
+    boolean isGen = false;
+    reader.numKeyInputs = 0;
+    for (long i = 0; i < numInputs; i++) {
+      int type = reader.readByte();
+      if (type == TXIN_GEN) {
+        reader.genHeight = reader.readVarint();
+        isGen = true;
+      } else if (type == TXIN_TO_KEY) {
+        MoneroOutput input = new MoneroOutput().setTx(tx);
+        input.setAmount(reader.readVarintBigInteger());
+        long numOffsets = reader.readCount(1);
+        List<Long> ringOutputIndices = new ArrayList<Long>((int) numOffsets);
+        for (long j = 0; j < numOffsets; j++) ringOutputIndices.add(reader.readVarint());
+        input.setRingOutputIndices(ringOutputIndices);
+        input.setKeyImage(new MoneroKeyImage(reader.readHex(HASH_LENGTH)));
+        inputs.add(input);
+        reader.numKeyInputs++;
+      } else {
+        throw new MoneroError("Unsupported transaction input type: " + type);
+      }
+    }
+    if (!isGen || numInputs != 1) tx.setInputs(inputs); // miner input is ignored as when decoded from json
+    long numOutputs = reader.readCount(1 + HASH_LENGTH);
+    List<MoneroOutput> outputs = new ArrayList<MoneroOutput>((int) numOutputs);
+    for (long i = 0; i < numOutputs; i++) {
+      MoneroOutput output = new MoneroOutput().setTx(tx);
+      output.setAmount(reader.readVarintBigInteger());
+      int type = reader.readByte();
+      if (type != TXOUT_TO_KEY && type != TXOUT_TO_TAGGED_KEY) throw new MoneroError("Unsupported transaction output type: " + type);
+      output.setStealthPublicKey(reader.readHex(HASH_LENGTH));
+      if (type == TXOUT_TO_TAGGED_KEY) output.setViewTag(reader.readHex(1));
+      outputs.add(output);
+    }
+    tx.setOutputs(outputs);
+    int extraLength = (int) reader.readCount(1);
+    tx.setExtra(Arrays.copyOfRange(reader.blob, reader.pos, reader.pos + extraLength));
+    reader.pos += extraLength;
+    reader.prefixEnd = reader.pos;
+
+    // read ringct base, after which v1 signatures or ringct prunable data are skipped
+    reader.rctType = RCT_TYPE_NULL;
+    if (version >= 2) {
+      reader.rctType = reader.readByte();
+      if (reader.rctType > RCT_TYPE_BULLETPROOF_PLUS) throw new MoneroError("Unsupported ringct type: " + reader.rctType);
+      Map<String, Object> rctSignatures = new LinkedHashMap<String, Object>();
+      rctSignatures.put("type", BigInteger.valueOf(reader.rctType));
+      if (reader.rctType != RCT_TYPE_NULL) {
+        BigInteger fee = reader.readVarintBigInteger();
+        rctSignatures.put("txnFee", fee);
+        if (reader.rctType == RCT_TYPE_SIMPLE) {
+          List<String> pseudoOuts = new ArrayList<String>(inputs.size());
+          for (int i = 0; i < inputs.size(); i++) pseudoOuts.add(reader.readHex(HASH_LENGTH));
+          rctSignatures.put("pseudoOuts", pseudoOuts);
+        }
+        boolean isCompactAmount = reader.rctType == RCT_TYPE_BULLETPROOF2 || reader.rctType == RCT_TYPE_CLSAG || reader.rctType == RCT_TYPE_BULLETPROOF_PLUS;
+        List<Map<String, String>> ecdhInfo = new ArrayList<Map<String, String>>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) {
+          Map<String, String> ecdh = new LinkedHashMap<String, String>();
+          if (!isCompactAmount) ecdh.put("mask", reader.readHex(HASH_LENGTH));
+          ecdh.put("amount", reader.readHex(isCompactAmount ? 8 : HASH_LENGTH));
+          ecdhInfo.add(ecdh);
+        }
+        rctSignatures.put("ecdhInfo", ecdhInfo);
+        List<String> outPk = new ArrayList<String>(outputs.size());
+        for (int i = 0; i < outputs.size(); i++) outPk.add(reader.readHex(HASH_LENGTH));
+        rctSignatures.put("outPk", outPk);
+        tx.setFee(fee);
+      }
+      tx.setRctSignatures(rctSignatures);
+    }
+    reader.baseEnd = reader.pos;
+  }
+
+  /**
+   * Compute a transaction's hash, which is the hash of the blob for version 1, otherwise the hash
+   * of the hashes of its prefix, ringct base and ringct prunable data.
+   */
+  private static byte[] getTxHash(byte[] blob, int start, int prefixEnd, int baseEnd, int end, int version, byte[] prunableHash) {
+    Keccak.Digest256 digest = new Keccak.Digest256();
+    if (version == 1) {
+      digest.update(blob, start, end - start);
+      return digest.digest();
+    }
+    byte[] hashes = new byte[3 * HASH_LENGTH];
+    digest.update(blob, start, prefixEnd - start);
+    System.arraycopy(digest.digest(), 0, hashes, 0, HASH_LENGTH);
+    digest.update(blob, prefixEnd, baseEnd - prefixEnd);
+    System.arraycopy(digest.digest(), 0, hashes, HASH_LENGTH, HASH_LENGTH);
+    if (prunableHash == null) {
+      if (baseEnd - prefixEnd == 1) prunableHash = NULL_HASH; // ringct type null has no prunable data
+      else {
+        digest.update(blob, baseEnd, end - baseEnd);
+        prunableHash = digest.digest();
+      }
+    }
+    System.arraycopy(prunableHash, 0, hashes, 2 * HASH_LENGTH, HASH_LENGTH);
+    digest.update(hashes);
+    return digest.digest();
+  }
+
+  private static byte[] hexToBytes(String hex) {
+    try {
+      return Hex.decodeHex(hex);
+    } catch (DecoderException e) {
+      throw new MoneroError("Invalid hex: " + e.getMessage());
+    }
+  }
+
+  private static String bytesToHex(byte[] bytes) {
+    return bytesToHex(bytes, 0, bytes.length);
+  }
+
+  private static String bytesToHex(byte[] bytes, int offset, int length) {
+    char[] chars = new char[2 * length];
+    for (int i = 0; i < length; i++) {
+      int b = bytes[offset + i] & 0xff;
+      chars[2 * i] = HEX_CHARS[b >>> 4];
+      chars[2 * i + 1] = HEX_CHARS[b & 0x0f];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Reads a blob with bounds checks, tracking where the parts of the last transaction end.
+   */
+  private static class Reader {
+
+    private final byte[] blob;
+    private int pos;
+    private int prefixEnd;
+    private int baseEnd;
+    private int rctType;
+    private int numKeyInputs;
+    private Long genHeight;
+
+    Reader(byte[] blob) {
+      this.blob = blob;
+    }
+
+    int readByte() {
+      checkRemaining(1);
+      return blob[pos++] & 0xff;
+    }
+
+    long readUint32() {
+      checkRemaining(4);
+      long val = (blob[pos] & 0xffl) | (blob[pos + 1] & 0xffl) << 8 | (blob[pos + 2] & 0xffl) << 16 | (blob[pos + 3] & 0xffl) << 24;
+      pos += 4;
+      return val;
+    }
+
+    /**
+     * Read an unsigned varint of up to 64 bits.
+     */
+    long readVarint() {
+      long val = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = readByte();
+        if (shift == 63 && b > 1) throw new MoneroError("Varint exceeds 64 bits at position " + (pos - 1));
+        val |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          if (b == 0 && shift > 0) throw new MoneroError("Varint is not canonical at position " + (pos - 1));
+          return val;
+        }
+      }
+      throw new MoneroError("Varint exceeds 64 bits at position " + pos);
+    }
+
+    BigInteger readVarintBigInteger() {
+      long val = readVarint();
+      return val >= 0 ? BigInteger.valueOf(val) : new BigInteger(Long.toUnsignedString(val));
+    }
+
+    /**
+     * Read a count of elements, each of which take at least the given number of bytes.
+     */
+    long readCount(int minElementSize) {
+      long count = readVarint();
+      if (count < 0 || count > (blob.length - pos) / minElementSize) throw new MoneroError("Invalid element count " + Long.toUnsignedString(count) + " at position " + pos);
+      return count;
+    }
+
+    String readHex(int length) {
+      checkRemaining(length);
+      String hex = bytesToHex(blob, pos, length);
+      pos += length;
+      return hex;
+    }
+
+    private void checkRemaining(int length) {
+      if (blob.length - pos < length) throw new MoneroError("Blob ended unexpectedly at position " + pos);
+    }
+  }
+}
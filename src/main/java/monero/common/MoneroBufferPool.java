@@ -0,0 +1,76 @@
+package monero.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct buffers which binary responses are read into, so multi-megabyte responses
+ * are passed to native code without copies on the java heap and the buffers are recycled
+ * across requests.
+ */
+class MoneroBufferPool {
+
+  private static final int MAX_POOLED_BUFFERS = 8;
+  private static final int MAX_POOLED_CAPACITY = 32 * 1024 * 1024; // larger buffers are left to the garbage collector
+  private static final long MAX_POOLED_BYTES = 64 * 1024 * 1024; // total capacity retained by the pool
+  private static final int MIN_CAPACITY = 64 * 1024;
+  private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<ByteBuffer>(MAX_POOLED_BUFFERS);
+  private static final AtomicLong POOLED_BYTES = new AtomicLong();
+
+  /**
+   * Read a stream to its end into a pooled direct buffer.
+   *
+   * @param in is the stream to read
+   * @param expectedLength is the expected number of bytes, or negative if unknown
+   * @return a direct buffer positioned at the start of the bytes read and limited to their end, which should be released
+   */
+  static ByteBuffer read(InputStream in, long expectedLength) throws IOException {
+    ByteBuffer buf = acquire(expectedLength < 0 ? MIN_CAPACITY : (int) Math.min(MAX_POOLED_CAPACITY, expectedLength + 1)); // extra byte detects end of stream without growing, larger responses grow as read
+    try {
+      ReadableByteChannel channel = Channels.newChannel(in);
+      while (channel.read(buf) >= 0) {
+        if (!buf.hasRemaining()) buf = grow(buf);
+      }
+      buf.flip();
+      return buf;
+    } catch (IOException | RuntimeException e) {
+      release(buf);
+      throw e;
+    }
+  }
+
+  /**
+   * Return a buffer to the pool for reuse. The buffer must not be used after it is released.
+   *
+   * @param buf is the buffer to release
+   */
+  static void release(ByteBuffer buf) {
+    if (buf == null || !buf.isDirect() || buf.capacity() > MAX_POOLED_CAPACITY) return;
+    buf.clear();
+    if (POOLED_BYTES.addAndGet(buf.capacity()) > MAX_POOLED_BYTES || !BUFFERS.offer(buf)) POOLED_BYTES.addAndGet(-buf.capacity()); // dropped if the pool is full
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private static ByteBuffer acquire(int minCapacity) {
+    ByteBuffer buf = BUFFERS.poll();
+    if (buf != null) POOLED_BYTES.addAndGet(-buf.capacity());
+    if (buf != null && buf.capacity() >= minCapacity) return buf;
+    return ByteBuffer.allocateDirect(Math.max(minCapacity, buf == null ? MIN_CAPACITY : buf.capacity())); // undersized buffer is replaced
+  }
+
+  private static ByteBuffer grow(ByteBuffer buf) {
+    if (buf.capacity() == Integer.MAX_VALUE) throw new MoneroError("Binary response exceeds maximum buffer size");
+    ByteBuffer grown = acquire((int) Math.min(Integer.MAX_VALUE, 2l * buf.capacity()));
+    buf.flip();
+    grown.put(buf);
+    release(buf);
+    return grown;
+  }
+}
@@ -1,19 +1,35 @@
 package monero.common;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * <p>Manages a collection of prioritized connections to daemon or wallet RPC endpoints.</p>
@@ -57,6 +73,16 @@ import java.util.concurrent.Executors;
  * // get connections in order of current connection, online status from last check, priority, and name<br>
  * List&lt;MoneroRpcConnection&gt; connections = connectionManager.getConnections();<br><br>
  * 
+ * // send requests through the current connection, hedging idempotent reads to the next best connection<br>
+ * connectionManager.setHedgeRequests(true);<br>
+ * Map&lt;String, Object&gt; info = connectionManager.sendJsonRequest("get_info", null);<br><br>
+ * 
+ * // prefer daemons within 2 blocks of the highest known height (default), checked with get_info<br>
+ * connectionManager.setMaxHeightLag(2l);<br><br>
+ * 
+ * // spread idempotent requests over the connected connections of the best priority<br>
+ * connectionManager.setLoadBalanceType(MoneroConnectionManager.LoadBalanceType.EWMA);<br><br>
+ * 
  * // clear connection manager<br>
  * connectionManager.clear();
  * </code>
@@ -67,7 +93,19 @@ public class MoneroConnectionManager {
   private static final long DEFAULT_TIMEOUT = 5000l;
   private static final long DEFAULT_POLL_PERIOD = 20000l;
   private static final boolean DEFAULT_AUTO_SWITCH = true;
-  private static final int MIN_BETTER_RESPONSES = 3;
+  private static final int MIN_SCORE_SAMPLES = 3; // switch only once the score is known
+  private static final double DEFAULT_SWITCH_THRESHOLD = 0.2;
+  private static final double MIN_SUCCESS_RATIO = 0.01;
+  private static final long DEFAULT_MAX_HEIGHT_LAG = 2;
+  private static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+  private static final long MIN_HEDGE_DELAY_MS = 10;
+  private static final int NUM_LATENCY_SAMPLES = 100;
+  private static final int MIN_LATENCY_SAMPLES = 10; // hedge only once latency is known
+  private static final double EWMA_WEIGHT = 0.2; // weight of each new sample in moving averages
+  private static final Set<String> DEFAULT_IDEMPOTENT_REQUESTS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList("get_info", "get_block_header_by_height", "get_block_header_by_hash", "get_block_headers_range", "get_block", "on_get_block_hash", "get_transactions", "is_key_image_spent", "get_output_distribution", "get_blocks_by_height.bin")));
+  private static final int DEFAULT_BREAKER_FAILURE_THRESHOLD = 5;
+  private static final int DEFAULT_MAX_CONCURRENT_CHECKS = 10;
+  private static final long DEFAULT_BREAKER_OPEN_DURATION_MS = 30000;
   private static ConnectionPriorityComparator priorityComparator = new ConnectionPriorityComparator();
 
   // instance variables
@@ -78,7 +116,23 @@ public class MoneroConnectionManager {
   private boolean autoSwitch = DEFAULT_AUTO_SWITCH;
   private long timeoutMs = DEFAULT_TIMEOUT;
   private TaskLooper poller;
-  private Map<MoneroRpcConnection, List<Long>> responseTimes = new HashMap<MoneroRpcConnection, List<Long>>();
+  private Map<MoneroRpcConnection, ScoreTracker> connectionScores = new ConcurrentHashMap<MoneroRpcConnection, ScoreTracker>();
+  private double switchThreshold = DEFAULT_SWITCH_THRESHOLD;
+  private Long maxHeightLag = DEFAULT_MAX_HEIGHT_LAG;
+  private boolean hedgeRequests;
+  private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+  private Set<String> idempotentRequests = DEFAULT_IDEMPOTENT_REQUESTS;
+  private MoneroRetryPolicy retryPolicy;
+  private int breakerFailureThreshold = DEFAULT_BREAKER_FAILURE_THRESHOLD;
+  private long breakerOpenDurationMs = DEFAULT_BREAKER_OPEN_DURATION_MS;
+  private Map<MoneroRpcConnection, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<MoneroRpcConnection, CircuitBreaker>();
+  private int maxConcurrentChecks = DEFAULT_MAX_CONCURRENT_CHECKS;
+  private Semaphore checkPermits = new Semaphore(DEFAULT_MAX_CONCURRENT_CHECKS);
+  private Executor checkExecutor; // provided executor to check connections, not shut down by this manager
+  private ThreadPoolExecutor checkPool; // created on first check unless executor provided
+  private Map<MoneroRpcConnection, LatencyTracker> requestLatencies = new ConcurrentHashMap<MoneroRpcConnection, LatencyTracker>();
+  private LoadBalanceType loadBalanceType = LoadBalanceType.NONE;
+  private AtomicInteger nextBalancedIdx = new AtomicInteger();
 
   /**
    * Specify behavior when polling.
@@ -91,6 +145,20 @@ public class MoneroConnectionManager {
     ALL
   }
   
+  /**
+   * Specify how idempotent requests sent through the manager are distributed among connections.
+   * 
+   * One of NONE (send to the current connection; default), ROUND_ROBIN (rotate through connections),
+   * LEAST_IN_FLIGHT (send to the connection with the fewest requests in flight), or EWMA (send to
+   * the better of two random connections by moving average latency weighted by requests in flight).
+   */
+  public enum LoadBalanceType {
+    NONE,
+    ROUND_ROBIN,
+    LEAST_IN_FLIGHT,
+    EWMA
+  }
+  
   /**
    * Add a listener to receive notifications when the connection changes.
    * 
@@ -175,7 +243,9 @@ public class MoneroConnectionManager {
       MoneroRpcConnection connection = getConnectionByUri(uri);
       if (connection == null) throw new MoneroError("No connection exists with URI: " + uri);
       connections.remove(connection);
-      responseTimes.remove(connection);
+      connectionScores.remove(connection);
+      requestLatencies.remove(connection);
+      circuitBreakers.remove(connection);
       if (connection == currentConnection) {
         currentConnection = null;
         onConnectionChanged(currentConnection);
@@ -359,8 +429,9 @@ public class MoneroConnectionManager {
     boolean connectionChanged = false;
     MoneroRpcConnection connection = getConnection();
     if (connection != null) {
-      if (connection.checkConnection(timeoutMs)) connectionChanged = true;
-      if (processResponses(Arrays.asList(connection)) != null) return this; // done if connection set from responses
+      if (connection.checkConnection(timeoutMs, getProbe(connection))) connectionChanged = true;
+      onConnectionChecked(connection);
+      if (processScores() != null) return this; // done if connection set from scores
     }
     if (autoSwitch && !isConnected()) {
       MoneroRpcConnection bestConnection = getBestAvailableConnection(connection);
@@ -397,19 +468,17 @@ public class MoneroConnectionManager {
       
         // check connections in parallel
         int numTasks = 0;
-        ExecutorService pool = Executors.newFixedThreadPool(prioritizedConnections.size());
-        CompletionService<MoneroRpcConnection> completionService = new ExecutorCompletionService<MoneroRpcConnection>(pool);
+        CompletionService<MoneroRpcConnection> completionService = new ExecutorCompletionService<MoneroRpcConnection>(getCheckConnectionExecutor());
         for (MoneroRpcConnection connection : prioritizedConnections) {
           if (Arrays.asList(excludedConnections).contains(connection)) continue;
           numTasks++;
           completionService.submit(() -> {
-            connection.checkConnection(timeoutMs);
+            checkConnection(connection);
             return connection;
           });
         }
         
         // use first available connection
-        pool.shutdown();
         for (int i = 0; i < numTasks; i++) {
           MoneroRpcConnection connection = completionService.take().get();
           if (connection.isConnected()) return connection;
@@ -461,6 +530,358 @@ public class MoneroConnectionManager {
     return timeoutMs;
   }
   
+  /**
+   * Enable or disable hedging of idempotent read requests sent through this manager.<br><br>
+   * 
+   * When enabled, a hedged request which the current connection has not answered within
+   * its observed latency percentile (see setHedgePercentile()) is sent again to the next
+   * best connection, and the first successful response is used.
+   * 
+   * @param hedgeRequests specifies if idempotent read requests are hedged (default false)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setHedgeRequests(boolean hedgeRequests) {
+    this.hedgeRequests = hedgeRequests;
+    return this;
+  }
+  
+  /**
+   * Get if hedging of idempotent read requests is enabled.
+   * 
+   * @return true if idempotent read requests are hedged, false otherwise
+   */
+  public boolean getHedgeRequests() {
+    return hedgeRequests;
+  }
+  
+  /**
+   * Set the percentile of the current connection's observed latency to wait before hedging a request.
+   * 
+   * @param hedgePercentile is the latency percentile between 0 and 1 (default 0.95)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setHedgePercentile(double hedgePercentile) {
+    if (hedgePercentile <= 0 || hedgePercentile > 1) throw new MoneroError("Hedge percentile must be > 0 and <= 1");
+    this.hedgePercentile = hedgePercentile;
+    return this;
+  }
+  
+  public double getHedgePercentile() {
+    return hedgePercentile;
+  }
+  
+  /**
+   * Set the json-rpc methods and paths which are idempotent reads and may be hedged, retried, or load balanced.
+   * 
+   * @param idempotentRequests are the idempotent methods and paths (default get_info, get_block_header_by_height, get_block_header_by_hash, get_block_headers_range, get_block, on_get_block_hash, get_transactions, is_key_image_spent, get_output_distribution, get_blocks_by_height.bin)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setIdempotentRequests(Collection<String> idempotentRequests) {
+    this.idempotentRequests = Collections.unmodifiableSet(new HashSet<String>(idempotentRequests));
+    return this;
+  }
+  
+  public Set<String> getIdempotentRequests() {
+    return idempotentRequests;
+  }
+  
+  /**
+   * Set how much better another connection of the same priority must score to automatically
+   * switch to it, which prevents switching back and forth between similar connections.
+   * 
+   * @param switchThreshold is the fraction by which another connection's score must be lower than the current connection's (default 0.2)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setSwitchThreshold(double switchThreshold) {
+    if (switchThreshold < 0 || switchThreshold >= 1) throw new MoneroError("Switch threshold must be >= 0 and < 1");
+    this.switchThreshold = switchThreshold;
+    return this;
+  }
+  
+  public double getSwitchThreshold() {
+    return switchThreshold;
+  }
+  
+  /**
+   * Set the number of blocks a connection's height may lag the highest height of the connected
+   * and synchronized connections before the connection is considered stale.<br><br>
+   * 
+   * Stale connections, and connections which are not synchronized with the network, are only
+   * selected as the current connection, or to load balance requests, if no connected connection
+   * is fresh. While a max height lag is set, connections with the default probe are checked with
+   * MoneroConnectionProbe.CHAIN_STATE, which reports the daemon's height and sync state. Heights are
+   * unknown for connections with other probes which do not report chain state (e.g. GET_HEIGHT) and
+   * for wallet RPC connections, which are considered fresh.
+   * 
+   * @param maxHeightLag is the maximum number of blocks a fresh connection may lag, or null to ignore heights (default 2)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setMaxHeightLag(Long maxHeightLag) {
+    if (maxHeightLag != null && maxHeightLag < 0) throw new MoneroError("Max height lag must be >= 0");
+    this.maxHeightLag = maxHeightLag;
+    return this;
+  }
+  
+  public Long getMaxHeightLag() {
+    return maxHeightLag;
+  }
+  
+  /**
+   * Get the highest height of the connected connections which are not known to be unsynchronized
+   * as of their last check.
+   * 
+   * @return the highest height of the connected and synchronized connections, or null if unknown
+   */
+  public Long getMaxHeight() {
+    Long maxHeight = null;
+    for (MoneroRpcConnection connection : getConnections()) {
+      Long height = connection.getHeight();
+      if (height != null && Boolean.TRUE.equals(connection.isConnected()) && !Boolean.FALSE.equals(connection.isSynchronized()) && (maxHeight == null || height > maxHeight)) maxHeight = height;
+    }
+    return maxHeight;
+  }
+  
+  /**
+   * Indicates if a connection is stale because it lags the highest height of the connected and synchronized
+   * connections by more than the max height lag or is not synchronized with the network, as of their last check.
+   * 
+   * @param connection is the connection to check
+   * @return true if the connection is known to be stale, false otherwise
+   */
+  public boolean isStale(MoneroRpcConnection connection) {
+    return isStale(connection, getMaxHeight());
+  }
+  
+  /**
+   * Get the scores of the managed connections, which are updated by connection checks and
+   * requests sent through this manager and are used to select the best connection within
+   * each priority.
+   * 
+   * @return the scores of the managed connections in the order of getConnections()
+   */
+  public List<MoneroConnectionScore> getConnectionScores() {
+    List<MoneroConnectionScore> scores = new ArrayList<MoneroConnectionScore>();
+    for (MoneroRpcConnection connection : getConnections()) scores.add(getScoreTracker(connection).toScore(connection));
+    return scores;
+  }
+  
+  /**
+   * Set how idempotent requests sent through this manager are distributed among connections.<br><br>
+   * 
+   * When load balancing, each idempotent request is sent to one of the connections of the best
+   * priority which were connected as of their last check and whose circuit breaker is closed,
+   * so connections should be polled (e.g. with PollType.ALL) to keep their status current.
+   * Other requests, and idempotent requests when no such connection exists, are sent to the
+   * current connection.
+   * 
+   * @param loadBalanceType specifies how idempotent requests are distributed (default NONE)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setLoadBalanceType(LoadBalanceType loadBalanceType) {
+    this.loadBalanceType = loadBalanceType == null ? LoadBalanceType.NONE : loadBalanceType;
+    return this;
+  }
+  
+  public LoadBalanceType getLoadBalanceType() {
+    return loadBalanceType;
+  }
+  
+  /**
+   * Set the policy to retry idempotent requests which fail to reach a connection.<br><br>
+   * 
+   * Each retry is sent to the load balanced connection if applicable, otherwise to the current
+   * connection, or to the next connection in order of priority if its circuit breaker is open.
+   * 
+   * @param retryPolicy is the policy to retry idempotent requests, or null to not retry (default)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setRetryPolicy(MoneroRetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy == null ? null : new MoneroRetryPolicy(retryPolicy);
+    return this;
+  }
+  
+  public MoneroRetryPolicy getRetryPolicy() {
+    return retryPolicy == null ? null : new MoneroRetryPolicy(retryPolicy);
+  }
+  
+  /**
+   * Configure the circuit breaker of each connection, which opens after consecutive failures
+   * to reach the connection by requests or polls. Requests sent through this manager fail over
+   * to the next connection in order of priority while the current connection's breaker is open.
+   * After the open duration, one trial request is allowed through to close the breaker on success.
+   * 
+   * @param failureThreshold is the number of consecutive failures which opens the breaker (default 5)
+   * @param openDurationMs is the time the breaker stays open before a trial request (default 30000)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setCircuitBreaker(int failureThreshold, long openDurationMs) {
+    if (failureThreshold <= 0) throw new MoneroError("Failure threshold must be > 0");
+    if (openDurationMs < 0) throw new MoneroError("Open duration must be >= 0");
+    this.breakerFailureThreshold = failureThreshold;
+    this.breakerOpenDurationMs = openDurationMs;
+    return this;
+  }
+  
+  /**
+   * Indicates if a connection's circuit breaker is open, so requests are not sent to it.
+   * 
+   * @param connection is the connection to check
+   * @return true if the connection's circuit breaker is open, false otherwise
+   */
+  public boolean isCircuitOpen(MoneroRpcConnection connection) {
+    CircuitBreaker breaker = circuitBreakers.get(connection);
+    return breaker != null && breaker.isOpen();
+  }
+  
+  /**
+   * Send a request to the RPC API through the current connection.
+   * 
+   * @param method is the method to request
+   * @param params are the request's input parameters
+   * @return the RPC API response as a map
+   */
+  public Map<String, Object> sendJsonRequest(String method, Object params) {
+    return sendJsonRequest(method, params, null);
+  }
+  
+  /**
+   * Send a request to the RPC API through the current connection.
+   * 
+   * @param method is the method to request
+   * @param params are the request's input parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return the RPC API response as a map
+   */
+  public Map<String, Object> sendJsonRequest(String method, Object params, Long timeoutMs) {
+    return sendRequest(method, connection -> connection.sendJsonRequestAsync(method, params, timeoutMs), connection -> connection.sendJsonRequest(method, params, timeoutMs));
+  }
+  
+  /**
+   * Send a request to the RPC API through the current connection and read its result directly from the response stream.
+   * 
+   * Streamed requests are not hedged.
+   * 
+   * @param <T> the type read from the result
+   * @param method is the method to request
+   * @param params are the request's input parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @param resultReader reads the "result" field of the response
+   * @return the value read from the result or null if the response has no result
+   */
+  public <T> T sendJsonRequest(String method, Object params, Long timeoutMs, MoneroRpcResultReader<T> resultReader) {
+    return sendRequest(method, null, connection -> connection.sendJsonRequest(method, params, timeoutMs, resultReader));
+  }
+  
+  /**
+   * Send a RPC request to the given path through the current connection.
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @return the request's deserialized response
+   */
+  public Map<String, Object> sendPathRequest(String path, Map<String, Object> params) {
+    return sendPathRequest(path, params, null);
+  }
+  
+  /**
+   * Send a RPC request to the given path through the current connection.
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return the request's deserialized response
+   */
+  public Map<String, Object> sendPathRequest(String path, Map<String, Object> params, Long timeoutMs) {
+    return sendRequest(path, connection -> connection.sendPathRequestAsync(path, params, timeoutMs), connection -> connection.sendPathRequest(path, params, timeoutMs));
+  }
+  
+  /**
+   * Send a binary RPC request through the current connection.
+   * 
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @return byte[] is the binary response
+   */
+  public byte[] sendBinaryRequest(String path, Map<String, Object> params) {
+    return sendBinaryRequest(path, params, null);
+  }
+  
+  /**
+   * Send a binary RPC request through the current connection.
+   * 
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return byte[] is the binary response
+   */
+  public byte[] sendBinaryRequest(String path, Map<String, Object> params, Long timeoutMs) {
+    return sendRequest(path, connection -> connection.sendBinaryRequestAsync(path, params, timeoutMs), connection -> connection.sendBinaryRequest(path, params, timeoutMs));
+  }
+  
+  /**
+   * Send a binary RPC request through the current connection and read the response from a direct buffer.<br><br>
+   * 
+   * The response is streamed into a direct buffer which is recycled across requests after the reader
+   * returns. Hedged requests are read from a heap buffer. The reader is applied after the request
+   * completes, so its errors are not retried or counted against the connection.
+   * 
+   * @param <T> is the type read from the response
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @param reader reads the binary response, which is invalid after the reader returns
+   * @return the result of the reader
+   */
+  public <T> T sendBinaryRequest(String path, Map<String, Object> params, Long timeoutMs, Function<ByteBuffer, T> reader) {
+    ByteBuffer respBin = sendRequest(path, connection -> connection.sendBinaryRequestAsync(path, params, timeoutMs).thenApply(ByteBuffer::wrap), connection -> connection.sendBinaryRequestToBuffer(path, params, timeoutMs));
+    try {
+      return reader.apply(respBin);
+    } finally {
+      MoneroBufferPool.release(respBin); // ignores heap buffers
+    }
+  }
+  
+  /**
+   * Set the maximum number of connections to check at the same time.
+   * 
+   * @param maxConcurrentChecks is the maximum number of connections to check at the same time (default 10)
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setMaxConcurrentChecks(int maxConcurrentChecks) {
+    if (maxConcurrentChecks <= 0) throw new MoneroError("Max concurrent checks must be > 0");
+    synchronized (connections) {
+      this.maxConcurrentChecks = maxConcurrentChecks;
+      this.checkPermits = new Semaphore(maxConcurrentChecks);
+      return this;
+    }
+  }
+  
+  public int getMaxConcurrentChecks() {
+    return maxConcurrentChecks;
+  }
+  
+  /**
+   * Set the executor to check connections on, e.g. TaskLooper.getVirtualThreadExecutor().<br><br>
+   * 
+   * By default, connections are checked on a pool of daemon threads owned by this manager,
+   * sized to the number of connections up to the maximum concurrent checks, and shut down
+   * by clear() and reset(). A provided executor is not shut down by this manager.
+   * 
+   * @param checkExecutor is the executor to check connections on, or null to use the manager's pool
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setCheckExecutor(Executor checkExecutor) {
+    synchronized (connections) {
+      this.checkExecutor = checkExecutor;
+      shutdownCheckPool();
+      return this;
+    }
+  }
+  
+  public Executor getCheckExecutor() {
+    return checkExecutor;
+  }
+  
   /**
    * Collect connectable peers of the managed connections.
    *
@@ -487,6 +908,12 @@ public class MoneroConnectionManager {
    */
   public MoneroConnectionManager clear() {
     connections.clear();
+    connectionScores.clear();
+    requestLatencies.clear();
+    circuitBreakers.clear();
+    synchronized (connections) {
+      shutdownCheckPool();
+    }
     if (currentConnection != null) {
       currentConnection = null;
       onConnectionChanged(null);
@@ -505,6 +932,17 @@ public class MoneroConnectionManager {
     clear();
     timeoutMs = DEFAULT_TIMEOUT;
     autoSwitch = DEFAULT_AUTO_SWITCH;
+    switchThreshold = DEFAULT_SWITCH_THRESHOLD;
+    maxHeightLag = DEFAULT_MAX_HEIGHT_LAG;
+    hedgeRequests = false;
+    hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    idempotentRequests = DEFAULT_IDEMPOTENT_REQUESTS;
+    retryPolicy = null;
+    loadBalanceType = LoadBalanceType.NONE;
+    breakerFailureThreshold = DEFAULT_BREAKER_FAILURE_THRESHOLD;
+    breakerOpenDurationMs = DEFAULT_BREAKER_OPEN_DURATION_MS;
+    setMaxConcurrentChecks(DEFAULT_MAX_CONCURRENT_CHECKS);
+    setCheckExecutor(null);
     return this;
   }
   
@@ -600,20 +1038,18 @@ public class MoneroConnectionManager {
 
         // start checking connections in parallel
         int numTasks = 0;
-        ExecutorService pool = Executors.newFixedThreadPool(connections.size());
-        CompletionService<MoneroRpcConnection> completionService = new ExecutorCompletionService<MoneroRpcConnection>(pool);
+        CompletionService<MoneroRpcConnection> completionService = new ExecutorCompletionService<MoneroRpcConnection>(getCheckConnectionExecutor());
         for (MoneroRpcConnection connection : connections) {
           if (excludedConnections != null && excludedConnections.contains(connection)) continue;
           numTasks++;
           completionService.submit(() -> {
-            boolean change = connection.checkConnection(timeoutMs);
+            boolean change = checkConnection(connection);
             if (change && connection == getConnection()) onConnectionChanged(connection);
             return connection;
           });
         }
 
         // wait for responses
-        pool.shutdown();
         boolean hasConnection = false;
         for (int i = 0; i < numTasks; i++) {
           MoneroRpcConnection connection = completionService.take().get();
@@ -623,8 +1059,8 @@ public class MoneroConnectionManager {
           }
         }
 
-        // process responses
-        processResponses(connections);
+        // process scores
+        processScores();
         return hasConnection;
       } catch (Exception e) {
         throw new MoneroError(e);
@@ -632,77 +1068,513 @@ public class MoneroConnectionManager {
     }
   }
 
-  private MoneroRpcConnection processResponses(Collection<MoneroRpcConnection> responses) {
-
-    // add new connections
-    for (MoneroRpcConnection connection : responses) {
-      if (!responseTimes.containsKey(connection)) responseTimes.put(connection, new ArrayList<Long>());
+  /**
+   * Check a connection on the check executor, waiting for a permit to bound concurrent checks.
+   */
+  private boolean checkConnection(MoneroRpcConnection connection) throws InterruptedException {
+    Semaphore checkPermits = this.checkPermits;
+    checkPermits.acquire();
+    try {
+      boolean change = connection.checkConnection(timeoutMs, getProbe(connection));
+      onConnectionChecked(connection);
+      return change;
+    } finally {
+      checkPermits.release();
     }
-
-    // insert response times or null
-    for (Entry<MoneroRpcConnection, List<Long>> responseTime : responseTimes.entrySet()) {
-      responseTime.getValue().add(0, responses.contains(responseTime.getKey()) ? responseTime.getKey().getResponseTime() : null);
-
-      // remove old response times
-      if (responseTime.getValue().size() > MIN_BETTER_RESPONSES) responseTime.getValue().remove(responseTime.getValue().size() - 1);
+  }
+  
+  /**
+   * Get the executor to check connections on, resizing the manager's pool to the number of connections.
+   */
+  private Executor getCheckConnectionExecutor() {
+    synchronized (connections) {
+      if (checkExecutor != null) return checkExecutor;
+      int poolSize = Math.max(1, Math.min(maxConcurrentChecks, connections.size()));
+      if (checkPool == null) {
+        AtomicInteger threadNum = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+          Thread thread = new Thread(runnable, "MoneroConnectionManager-" + threadNum.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+        checkPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        checkPool.allowCoreThreadTimeOut(true);
+      } else if (checkPool.getCorePoolSize() != poolSize) {
+        if (poolSize > checkPool.getMaximumPoolSize()) {
+          checkPool.setMaximumPoolSize(poolSize);
+          checkPool.setCorePoolSize(poolSize);
+        } else {
+          checkPool.setCorePoolSize(poolSize);
+          checkPool.setMaximumPoolSize(poolSize);
+        }
+      }
+      return checkPool;
+    }
+  }
+  
+  private void shutdownCheckPool() {
+    if (checkPool != null) checkPool.shutdown();
+    checkPool = null;
+  }
+  
+  private MoneroRpcConnection processScores() {
+    
+    // notify listeners of scores
+    List<MoneroConnectionScore> scores = getConnectionScores();
+    synchronized (listeners) {
+      for (MoneroConnectionManagerListener listener : listeners) listener.onConnectionScoresUpdated(scores);
     }
 
-    // update best connection based on responses and priority
+    // update best connection based on scores and priority
     return updateBestConnectionInPriority();
   }
 
   private MoneroRpcConnection updateBestConnectionInPriority() {
     if (!autoSwitch) return null;
-    for (List<MoneroRpcConnection> prioritizedConnections : getConnectionsInAscendingPriority()) {
-      MoneroRpcConnection bestConnectionFromResponses = getBestConnectionFromPrioritizedResponses(prioritizedConnections);
-      if (bestConnectionFromResponses != null) {
-        setConnection(bestConnectionFromResponses);
-        return bestConnectionFromResponses;
+    Long maxHeight = getMaxHeight();
+    for (boolean freshOnly : new boolean[] { true, false }) { // prefer fresh connections
+      for (List<MoneroRpcConnection> prioritizedConnections : getConnectionsInAscendingPriority()) {
+        MoneroRpcConnection bestConnectionFromScores = getBestConnectionFromPrioritizedScores(prioritizedConnections, freshOnly, maxHeight);
+        if (bestConnectionFromScores != null) {
+          setConnection(bestConnectionFromScores);
+          return bestConnectionFromScores;
+        }
       }
     }
     return null;
   }
 
   /**
-   * Get the best connection from the given responses.
+   * Get the best connection from the given connections of the same priority by score.
    * 
-   * @param responses are connection responses to update from
-   * @return MoneroRpcConnection is the best response among the given responses or null if none are best
+   * @param connections are connections of the same priority to select from
+   * @param freshOnly specifies if only fresh connections are selected
+   * @param maxHeight is the highest height of the connected connections
+   * @return MoneroRpcConnection is the best connection among the given connections or null if none are connected (and fresh)
    */
-  private MoneroRpcConnection getBestConnectionFromPrioritizedResponses(Collection<MoneroRpcConnection> responses) {
+  private MoneroRpcConnection getBestConnectionFromPrioritizedScores(Collection<MoneroRpcConnection> connections, boolean freshOnly, Long maxHeight) {
 
-    // get best response
-    MoneroRpcConnection bestResponse = null;
-    for (MoneroRpcConnection connection : responses) {
-      if (Boolean.TRUE.equals(connection.isConnected()) && (bestResponse == null || connection.getResponseTime() < bestResponse.getResponseTime())) bestResponse = connection;
+    // get best scored connection
+    MoneroRpcConnection bestScored = null;
+    double bestScore = Double.POSITIVE_INFINITY;
+    for (MoneroRpcConnection connection : connections) {
+      if (!Boolean.TRUE.equals(connection.isConnected()) || (freshOnly && isStale(connection, maxHeight))) continue;
+      double score = getScoreTracker(connection).getScore();
+      if (bestScored == null || score < bestScore) {
+        bestScored = connection;
+        bestScore = score;
+      }
     }
     
-    // no update if no responses
-    if (bestResponse == null) return null;
+    // no update if none connected
+    if (bestScored == null) return null;
     
-    // use best response if disconnected
+    // use best scored if disconnected or stale
     MoneroRpcConnection bestConnection = getConnection();
-    if (bestConnection == null || !Boolean.TRUE.equals(bestConnection.isConnected())) return bestResponse;
+    if (bestConnection == null || !Boolean.TRUE.equals(bestConnection.isConnected()) || (freshOnly && isStale(bestConnection, maxHeight))) return bestScored;
     
-    // use best response if different priority (assumes being called in descending priority)
-    if (priorityComparator.compare(bestResponse.getPriority(), bestConnection.getPriority()) != 0) return bestResponse;
+    // use best scored if different priority (assumes being called in descending priority)
+    if (priorityComparator.compare(bestScored.getPriority(), bestConnection.getPriority()) != 0) return bestScored;
 
-    // keep best connection if not enough data
-    if (!responseTimes.containsKey(bestConnection)) return bestConnection;
-    
-    // check if a connection is consistently better
-    for (MoneroRpcConnection connection : responses) {
-      if (connection == bestConnection) continue;
-      if (!responseTimes.containsKey(connection) || responseTimes.get(connection).size() < MIN_BETTER_RESPONSES) continue;
-      boolean better = true;
-      for (int i = 0; i < MIN_BETTER_RESPONSES; i++) {
-        if (responseTimes.get(connection).get(i) == null || responseTimes.get(bestConnection).get(i) == null || responseTimes.get(connection).get(i) > responseTimes.get(bestConnection).get(i)) {
-          better = false;
-          break;
+    // switch only if best scored is known and better than the current connection by the switch threshold
+    if (bestScored == bestConnection || getScoreTracker(bestScored).getNumSamples() < MIN_SCORE_SAMPLES) return bestConnection;
+    return bestScore < getScoreTracker(bestConnection).getScore() * (1 - switchThreshold) ? bestScored : bestConnection;
+  }
+  
+  /**
+   * Send a request through the current connection, hedging and retrying it if applicable.
+   * 
+   * @param name is the json-rpc method or path of the request
+   * @param asyncRequest sends the request asynchronously to a connection, or null if the request cannot be hedged
+   * @param request sends the request to a connection
+   * @return the response
+   */
+  private <T> T sendRequest(String name, Function<MoneroRpcConnection, CompletableFuture<T>> asyncRequest, Function<MoneroRpcConnection, T> request) {
+    boolean isIdempotent = idempotentRequests.contains(name);
+    MoneroRetryPolicy retryPolicy = this.retryPolicy;
+    int numRetries = 0;
+    while (true) {
+      MoneroRpcConnection connection = getRequestConnection(isIdempotent);
+      try {
+        
+        // hedge request if applicable
+        Long hedgeDelayMs = asyncRequest != null && hedgeRequests && isIdempotent ? getHedgeDelay(connection) : null;
+        if (hedgeDelayMs != null) return sendHedgedRequest(connection, hedgeDelayMs, asyncRequest);
+        
+        // otherwise send request to connection
+        LatencyTracker latencyTracker = getLatencyTracker(connection);
+        long startTime = System.currentTimeMillis();
+        T result;
+        latencyTracker.onRequestStarted();
+        try {
+          result = request.apply(connection);
+        } catch (MoneroError e) {
+          onRequestCompleted(connection, startTime, e);
+          throw e;
+        } finally {
+          latencyTracker.onRequestEnded();
+        }
+        onRequestCompleted(connection, startTime, null);
+        return result;
+      } catch (MoneroError e) {
+        
+        // retry idempotent requests which fail to reach the connection
+        if (!isIdempotent || retryPolicy == null || numRetries >= retryPolicy.getMaxRetries() || !isConnectionFailure(e)) throw e;
+        try {
+          TimeUnit.MILLISECONDS.sleep(retryPolicy.getDelayMs(numRetries++));
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw e;
         }
       }
-      if (better) bestConnection = connection;
+    }
+  }
+  
+  /**
+   * Get the connection to send a request to, which is the load balanced connection if applicable,
+   * otherwise the current connection unless its circuit breaker is open, in which case it's the
+   * first connection in order of priority whose breaker is closed and which is not known to be
+   * disconnected.
+   */
+  private MoneroRpcConnection getRequestConnection(boolean isIdempotent) {
+    if (isIdempotent && loadBalanceType != LoadBalanceType.NONE) {
+      MoneroRpcConnection balancedConnection = getBalancedConnection();
+      if (balancedConnection != null) return balancedConnection;
+    }
+    MoneroRpcConnection connection = getConnection();
+    if (connection == null) throw new MoneroError("No connection is set in connection manager");
+    if (getCircuitBreaker(connection).allowRequest()) return connection;
+    for (List<MoneroRpcConnection> prioritizedConnections : getConnectionsInAscendingPriority()) {
+      for (MoneroRpcConnection fallbackConnection : prioritizedConnections) {
+        if (fallbackConnection == connection || Boolean.FALSE.equals(fallbackConnection.isConnected())) continue;
+        if (getCircuitBreaker(fallbackConnection).allowRequest()) return fallbackConnection;
+      }
+    }
+    throw new MoneroError("Circuit breaker is open for " + connection.getUri() + " and no other connection is available");
+  }
+  
+  /**
+   * Select a connection of the best priority which is connected, fresh, and whose circuit breaker
+   * is closed according to the load balance type, or null if none so the current connection is used.
+   */
+  private MoneroRpcConnection getBalancedConnection() {
+    Long maxHeight = getMaxHeight();
+    for (List<MoneroRpcConnection> prioritizedConnections : getConnectionsInAscendingPriority()) {
+      List<MoneroRpcConnection> candidates = new ArrayList<MoneroRpcConnection>();
+      for (MoneroRpcConnection connection : prioritizedConnections) {
+        if (Boolean.TRUE.equals(connection.isConnected()) && !isCircuitOpen(connection) && !isStale(connection, maxHeight)) candidates.add(connection);
+      }
+      if (candidates.isEmpty()) continue;
+      if (candidates.size() == 1) return candidates.get(0);
+      switch (loadBalanceType) {
+        case ROUND_ROBIN:
+          return candidates.get(Math.floorMod(nextBalancedIdx.getAndIncrement(), candidates.size()));
+        case LEAST_IN_FLIGHT:
+          int startIdx = Math.floorMod(nextBalancedIdx.getAndIncrement(), candidates.size()); // rotate ties
+          MoneroRpcConnection leastConnection = null;
+          int leastInFlight = Integer.MAX_VALUE;
+          for (int i = 0; i < candidates.size(); i++) {
+            MoneroRpcConnection connection = candidates.get((startIdx + i) % candidates.size());
+            int inFlight = getLatencyTracker(connection).getNumInFlight();
+            if (inFlight < leastInFlight) {
+              leastConnection = connection;
+              leastInFlight = inFlight;
+            }
+          }
+          return leastConnection;
+        case EWMA:
+          int idx1 = ThreadLocalRandom.current().nextInt(candidates.size());
+          int idx2 = ThreadLocalRandom.current().nextInt(candidates.size() - 1);
+          if (idx2 >= idx1) idx2++;
+          MoneroRpcConnection connection1 = candidates.get(idx1);
+          MoneroRpcConnection connection2 = candidates.get(idx2);
+          return getLatencyTracker(connection1).getLoad() <= getLatencyTracker(connection2).getLoad() ? connection1 : connection2;
+        default:
+          throw new MoneroError("Unsupported load balance type: " + loadBalanceType);
+      }
+    }
+    return null;
+  }
+  
+  private void onRequestCompleted(MoneroRpcConnection connection, long startTime, Throwable e) {
+    long latencyMs = System.currentTimeMillis() - startTime;
+    if (e == null) {
+      getLatencyTracker(connection).add(latencyMs);
+      getCircuitBreaker(connection).onSuccess();
+      getScoreTracker(connection).onSuccess(latencyMs);
+    } else if (isConnectionFailure(toMoneroError(e))) {
+      getCircuitBreaker(connection).onFailure();
+      getScoreTracker(connection).onFailure();
+    } else {
+      getCircuitBreaker(connection).onSuccess(); // connection responded with an error
+      getScoreTracker(connection).onSuccess(latencyMs);
+    }
+  }
+  
+  /**
+   * Indicates if an error is a failure to reach the connection (e.g. i/o error, timeout, or
+   * http server error) as opposed to an error response from the RPC API.
+   */
+  private static boolean isConnectionFailure(MoneroError e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof JsonProcessingException) return false; // malformed response is not retried
+      if (cause instanceof IOException || cause instanceof TimeoutException) return true;
+      if (cause.getCause() == cause) break;
+    }
+    return e.getCode() != null && e.getCode() >= 500; // http server error
+  }
+  
+  private void onConnectionChecked(MoneroRpcConnection connection) {
+    if (Boolean.TRUE.equals(connection.isOnline())) {
+      getCircuitBreaker(connection).onSuccess();
+      Long responseTime = connection.getResponseTime();
+      if (responseTime != null) getScoreTracker(connection).onSuccess(responseTime);
+    } else if (Boolean.FALSE.equals(connection.isOnline())) {
+      getCircuitBreaker(connection).onFailure();
+      getScoreTracker(connection).onFailure();
+    }
+  }
+  
+  private boolean isStale(MoneroRpcConnection connection, Long maxHeight) {
+    if (maxHeightLag == null) return false;
+    if (Boolean.FALSE.equals(connection.isSynchronized())) return true;
+    Long height = connection.getHeight();
+    return height != null && maxHeight != null && maxHeight - height > maxHeightLag;
+  }
+  
+  /**
+   * Get the probe to check a connection with, which reports chain state in place of the default
+   * probe while stale connections are demoted.
+   */
+  private MoneroConnectionProbe getProbe(MoneroRpcConnection connection) {
+    MoneroConnectionProbe probe = connection.getProbe();
+    return maxHeightLag != null && probe == MoneroConnectionProbe.GET_VERSION ? MoneroConnectionProbe.CHAIN_STATE : probe;
+  }
+  
+  private ScoreTracker getScoreTracker(MoneroRpcConnection connection) {
+    return connectionScores.computeIfAbsent(connection, key -> new ScoreTracker());
+  }
+  
+  private CircuitBreaker getCircuitBreaker(MoneroRpcConnection connection) {
+    return circuitBreakers.computeIfAbsent(connection, key -> new CircuitBreaker());
+  }
+  
+  private <T> T sendHedgedRequest(MoneroRpcConnection connection, long hedgeDelayMs, Function<MoneroRpcConnection, CompletableFuture<T>> asyncRequest) {
+    
+    // send request to connection and wait up to the hedge delay
+    CompletableFuture<T> future = sendTimedRequest(connection, asyncRequest);
+    try {
+      return future.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // hedge request
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MoneroError(e);
+    } catch (ExecutionException e) {
+      throw toMoneroError(e);
+    }
+    
+    // send request to next best connection
+    MoneroRpcConnection hedgeConnection = getHedgeConnection(connection);
+    if (hedgeConnection == null) return join(future);
+    CompletableFuture<T> hedgeFuture = sendTimedRequest(hedgeConnection, asyncRequest);
+    
+    // use first successful response, or the first connection's error if both fail
+    CompletableFuture<T> firstFuture = new CompletableFuture<T>();
+    BiConsumer<T, Throwable> onComplete = (result, e) -> {
+      if (e == null) firstFuture.complete(result);
+      else if (future.isCompletedExceptionally() && hedgeFuture.isCompletedExceptionally()) future.whenComplete((firstResult, firstError) -> firstFuture.completeExceptionally(firstError));
+    };
+    future.whenComplete(onComplete);
+    hedgeFuture.whenComplete(onComplete);
+    return join(firstFuture);
+  }
+  
+  private <T> CompletableFuture<T> sendTimedRequest(MoneroRpcConnection connection, Function<MoneroRpcConnection, CompletableFuture<T>> asyncRequest) {
+    LatencyTracker latencyTracker = getLatencyTracker(connection);
+    long startTime = System.currentTimeMillis();
+    latencyTracker.onRequestStarted();
+    CompletableFuture<T> future;
+    try {
+      future = asyncRequest.apply(connection);
+    } catch (RuntimeException e) {
+      latencyTracker.onRequestEnded();
+      throw e;
+    }
+    return future.whenComplete((result, e) -> {
+      latencyTracker.onRequestEnded();
+      onRequestCompleted(connection, startTime, e);
+    });
+  }
+  
+  private Long getHedgeDelay(MoneroRpcConnection connection) {
+    Long latency = getLatencyTracker(connection).getPercentile(hedgePercentile);
+    return latency == null ? null : Math.max(MIN_HEDGE_DELAY_MS, latency);
+  }
+  
+  /**
+   * Get the best scored connection other than the given connection which is connected, fresh,
+   * and whose circuit breaker is closed, or null if none.
+   */
+  private MoneroRpcConnection getHedgeConnection(MoneroRpcConnection connection) {
+    Long maxHeight = getMaxHeight();
+    MoneroRpcConnection bestConnection = null;
+    double bestScore = Double.POSITIVE_INFINITY;
+    for (MoneroRpcConnection hedgeConnection : getConnections()) {
+      if (hedgeConnection == connection || !Boolean.TRUE.equals(hedgeConnection.isConnected()) || isCircuitOpen(hedgeConnection) || isStale(hedgeConnection, maxHeight)) continue;
+      double score = getScoreTracker(hedgeConnection).getScore();
+      if (bestConnection == null || score < bestScore) {
+        bestConnection = hedgeConnection;
+        bestScore = score;
+      }
     }
     return bestConnection;
   }
+  
+  private LatencyTracker getLatencyTracker(MoneroRpcConnection connection) {
+    return requestLatencies.computeIfAbsent(connection, key -> new LatencyTracker());
+  }
+  
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MoneroError(e);
+    } catch (ExecutionException e) {
+      throw toMoneroError(e);
+    }
+  }
+  
+  private static MoneroError toMoneroError(Throwable e) {
+    while ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) e = e.getCause();
+    return e instanceof MoneroError ? (MoneroError) e : new MoneroError(e);
+  }
+  
+  /**
+   * Tracks moving averages of a connection's latency, latency variance, and success ratio
+   * from connection checks and requests.
+   */
+  private static class ScoreTracker {
+    
+    private long numSamples;
+    private long numLatencies;
+    private double latencyMs;
+    private double latencyVariance;
+    private double successRatio = 1;
+    
+    synchronized void onSuccess(long latencyMs) {
+      if (numLatencies++ == 0) this.latencyMs = latencyMs;
+      else {
+        double diff = latencyMs - this.latencyMs;
+        this.latencyMs += EWMA_WEIGHT * diff;
+        latencyVariance = (1 - EWMA_WEIGHT) * (latencyVariance + EWMA_WEIGHT * diff * diff);
+      }
+      updateSuccessRatio(1);
+    }
+    
+    synchronized void onFailure() {
+      updateSuccessRatio(0);
+    }
+    
+    synchronized long getNumSamples() {
+      return numSamples;
+    }
+    
+    synchronized double getScore() {
+      if (numLatencies == 0) return Double.POSITIVE_INFINITY;
+      return (latencyMs + Math.sqrt(latencyVariance)) / Math.max(MIN_SUCCESS_RATIO, successRatio);
+    }
+    
+    synchronized MoneroConnectionScore toScore(MoneroRpcConnection connection) {
+      return new MoneroConnectionScore(connection, getScore(), numLatencies == 0 ? null : latencyMs, numLatencies == 0 ? null : Math.sqrt(latencyVariance), successRatio, numSamples);
+    }
+    
+    private void updateSuccessRatio(double sample) {
+      successRatio = numSamples++ == 0 ? sample : successRatio + EWMA_WEIGHT * (sample - successRatio);
+    }
+  }
+  
+  /**
+   * Tracks the most recent request latencies and the requests in flight of a connection.
+   */
+  private static class LatencyTracker {
+    
+    private final long[] latencies = new long[NUM_LATENCY_SAMPLES];
+    private int numLatencies;
+    private int nextIdx;
+    private double ewmaLatency;
+    private final AtomicInteger numInFlight = new AtomicInteger();
+    
+    synchronized void add(long latencyMs) {
+      latencies[nextIdx] = latencyMs;
+      nextIdx = (nextIdx + 1) % latencies.length;
+      ewmaLatency = numLatencies == 0 ? latencyMs : ewmaLatency + EWMA_WEIGHT * (latencyMs - ewmaLatency);
+      if (numLatencies < latencies.length) numLatencies++;
+    }
+    
+    void onRequestStarted() {
+      numInFlight.incrementAndGet();
+    }
+    
+    void onRequestEnded() {
+      numInFlight.decrementAndGet();
+    }
+    
+    int getNumInFlight() {
+      return numInFlight.get();
+    }
+    
+    /**
+     * Get the moving average latency weighted by the requests in flight, which is 0 until
+     * a latency is known so new connections are tried.
+     */
+    synchronized double getLoad() {
+      return ewmaLatency * (numInFlight.get() + 1);
+    }
+    
+    synchronized Long getPercentile(double percentile) {
+      if (numLatencies < MIN_LATENCY_SAMPLES) return null;
+      long[] sorted = Arrays.copyOf(latencies, numLatencies);
+      Arrays.sort(sorted);
+      return sorted[Math.min(numLatencies - 1, (int) Math.ceil(percentile * numLatencies) - 1)];
+    }
+  }
+  
+  /**
+   * Circuit breaker of a connection which opens after consecutive failures to reach it.
+   */
+  private class CircuitBreaker {
+    
+    private int numFailures;
+    private long openedTime;
+    private boolean isOpen;
+    private boolean isTrialInProgress;
+    
+    synchronized boolean allowRequest() {
+      if (!isOpen) return true;
+      if (isTrialInProgress || System.currentTimeMillis() - openedTime < breakerOpenDurationMs) return false;
+      isTrialInProgress = true; // half open
+      return true;
+    }
+    
+    synchronized boolean isOpen() {
+      return isOpen;
+    }
+    
+    synchronized void onSuccess() {
+      numFailures = 0;
+      isOpen = false;
+      isTrialInProgress = false;
+    }
+    
+    synchronized void onFailure() {
+      numFailures++;
+      if (isTrialInProgress || numFailures >= breakerFailureThreshold) {
+        isOpen = true;
+        openedTime = System.currentTimeMillis();
+      }
+      isTrialInProgress = false;
+    }
+  }
 }
@@ -1,5 +1,7 @@
 package monero.common;
 
+import java.util.List;
+
 /**
  * Default connection manager listener which takes no action on notifications.
  */
@@ -11,4 +13,11 @@ public interface MoneroConnectionManagerListener {
    * @param connection - the connection manager's current connection
    */
   public void onConnectionChanged(MoneroRpcConnection connection);
+  
+  /**
+   * Notified when connection scores are updated after checking connections.
+   * 
+   * @param scores - the scores of the managed connections
+   */
+  public default void onConnectionScoresUpdated(List<MoneroConnectionScore> scores) {}
 }
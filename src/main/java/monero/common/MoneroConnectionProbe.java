@@ -0,0 +1,87 @@
+package monero.common;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request sent by MoneroRpcConnection.checkConnection() to determine if a connection
+ * is online and authenticated and to measure its response time.<br><br>
+ * 
+ * A probe completes normally if the connection responds, or throws on failure.
+ */
+public interface MoneroConnectionProbe {
+  
+  /**
+   * Calls get_version (default).
+   */
+  public static final MoneroConnectionProbe GET_VERSION = (connection, timeoutMs) -> connection.sendJsonRequest("get_version", null, timeoutMs);
+  
+  /**
+   * Calls get_info and records the daemon's height and sync state on the connection (daemon only).
+   */
+  @SuppressWarnings("unchecked")
+  public static final MoneroConnectionProbe GET_INFO = (connection, timeoutMs) -> {
+    Map<String, Object> resp = connection.sendJsonRequest("get_info", null, timeoutMs);
+    Map<String, Object> result = (Map<String, Object>) resp.get("result");
+    if (result == null) return;
+    BigInteger height = (BigInteger) result.get("height");
+    connection.setChainState(height == null ? null : height.longValue(), (Boolean) result.get("synchronized"));
+  };
+  
+  /**
+   * Calls get_info to record a daemon's height and sync state, or get_version if the connection
+   * does not serve get_info (e.g. wallet RPC), so heights are known wherever available.
+   */
+  public static final MoneroConnectionProbe CHAIN_STATE = (connection, timeoutMs) -> {
+    try {
+      GET_INFO.probe(connection, timeoutMs);
+    } catch (MoneroRpcError e) {
+      if (e.getCode() == null || e.getCode() != -32601) throw e; // method not found
+      GET_VERSION.probe(connection, timeoutMs);
+    }
+  };
+  
+  /**
+   * Calls the get_height path (daemon only).
+   */
+  public static final MoneroConnectionProbe GET_HEIGHT = (connection, timeoutMs) -> connection.sendPathRequest("get_height", null, timeoutMs);
+  
+  /**
+   * Fetches the genesis block over the binary api (daemon only).
+   */
+  public static final MoneroConnectionProbe BINARY_PING = (connection, timeoutMs) -> {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("heights", Arrays.asList(0l));
+    connection.sendBinaryRequest("get_blocks_by_height.bin", params, timeoutMs);
+  };
+  
+  /**
+   * Fetches the first 100 blocks over the binary api (daemon only), which measures
+   * response time under a realistic load at the cost of bandwidth and daemon cpu.
+   * 
+   * Falls back to get_version if the native library, which decodes blocks, is not loaded.
+   */
+  public static final MoneroConnectionProbe BLOCKS = (connection, timeoutMs) -> {
+    if (!MoneroUtils.isNativeLibraryLoaded()) {
+      GET_VERSION.probe(connection, timeoutMs);
+      return;
+    }
+    List<Long> heights = new ArrayList<Long>();
+    for (long i = 0; i < 100; i++) heights.add(i);
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("heights", heights);
+    connection.sendBinaryRequest("get_blocks_by_height.bin", params, timeoutMs);
+  };
+
+  /**
+   * Send the probe request.
+   * 
+   * @param connection is the connection to probe
+   * @param timeoutMs is the maximum response time before considered offline
+   */
+  public void probe(MoneroRpcConnection connection, long timeoutMs);
+}
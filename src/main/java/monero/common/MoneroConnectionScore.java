@@ -0,0 +1,75 @@
+package monero.common;
+
+/**
+ * Snapshot of a managed connection's score from its connection checks and the requests sent through the connection manager.<br><br>
+ *
+ * Latency and success ratio are exponentially weighted moving averages, so recent samples count most.
+ * The score is the expected latency plus one standard deviation divided by the success ratio. Lower is better.
+ */
+public class MoneroConnectionScore {
+
+  private MoneroRpcConnection connection;
+  private double score;
+  private Double latencyMs;
+  private Double latencyStdDevMs;
+  private double successRatio;
+  private long numSamples;
+
+  MoneroConnectionScore(MoneroRpcConnection connection, double score, Double latencyMs, Double latencyStdDevMs, double successRatio, long numSamples) {
+    this.connection = connection;
+    this.score = score;
+    this.latencyMs = latencyMs;
+    this.latencyStdDevMs = latencyStdDevMs;
+    this.successRatio = successRatio;
+    this.numSamples = numSamples;
+  }
+
+  public MoneroRpcConnection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Get the connection's score, which is infinite if no response is known.
+   *
+   * @return the connection's score in milliseconds, lower is better
+   */
+  public double getScore() {
+    return score;
+  }
+
+  /**
+   * Get the moving average latency of successful checks and requests.
+   *
+   * @return the moving average latency in milliseconds, null if no response is known
+   */
+  public Double getLatencyMs() {
+    return latencyMs;
+  }
+
+  /**
+   * Get the moving standard deviation of the latency of successful checks and requests.
+   *
+   * @return the moving standard deviation of latency in milliseconds, null if no response is known
+   */
+  public Double getLatencyStdDevMs() {
+    return latencyStdDevMs;
+  }
+
+  /**
+   * Get the moving average ratio of checks and requests which reached the connection.
+   *
+   * @return the moving average success ratio between 0 and 1
+   */
+  public double getSuccessRatio() {
+    return successRatio;
+  }
+
+  public long getNumSamples() {
+    return numSamples;
+  }
+
+  @Override
+  public String toString() {
+    return connection.getUri() + " (score=" + String.format("%.3f", score) + ", latencyMs=" + (latencyMs == null ? null : String.format("%.3f", latencyMs)) + ", latencyStdDevMs=" + (latencyStdDevMs == null ? null : String.format("%.3f", latencyStdDevMs)) + ", successRatio=" + String.format("%.3f", successRatio) + ", numSamples=" + numSamples + ")";
+  }
+}
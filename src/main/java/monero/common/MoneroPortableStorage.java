@@ -0,0 +1,284 @@
+package monero.common;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes Monero's portable storage format (epee), which is the body of the daemon's binary (.bin) endpoints.<br><br>
+ *
+ * Maps are encoded as sections and lists as typed arrays. Non-negative integers are encoded as uint64,
+ * negative integers as int64, strings as UTF-8 and byte arrays as raw strings. Null values and empty
+ * lists are omitted, as when the same map is converted from json by the daemon.<br><br>
+ *
+ * Decoded integers are the smallest of Integer, Long or BigInteger which holds the value, and decoded
+ * strings are UTF-8, which matches deserializing the equivalent json with the default mapper.
+ */
+public class MoneroPortableStorage {
+
+  private static final byte[] SIGNATURE = new byte[] { 0x01, 0x11, 0x01, 0x01, 0x01, 0x01, 0x02, 0x01, 0x01 }; // signature a, signature b, version
+  private static final int MAX_NAME_LENGTH = 255;
+  private static final int MAX_DEPTH = 100;
+  private static final int INITIAL_CAPACITY = 256;
+  private static final BigInteger UINT64_MAX = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+  // serialized types
+  static final byte TYPE_INT64 = 1;
+  static final byte TYPE_INT32 = 2;
+  static final byte TYPE_INT16 = 3;
+  static final byte TYPE_INT8 = 4;
+  static final byte TYPE_UINT64 = 5;
+  static final byte TYPE_UINT32 = 6;
+  static final byte TYPE_UINT16 = 7;
+  static final byte TYPE_UINT8 = 8;
+  static final byte TYPE_DOUBLE = 9;
+  static final byte TYPE_STRING = 10;
+  static final byte TYPE_BOOL = 11;
+  static final byte TYPE_OBJECT = 12;
+  static final byte TYPE_ARRAY = 13;
+  static final byte FLAG_ARRAY = (byte) 0x80;
+
+  /**
+   * Encode a map to portable storage.
+   *
+   * @param map is the map to encode, whose values are maps, lists, strings, byte arrays, numbers or booleans
+   * @return a buffer positioned at the start of the encoded map and limited to its end
+   */
+  public static ByteBuffer serialize(Map<String, Object> map) {
+    Writer writer = new Writer();
+    writer.putBytes(SIGNATURE);
+    writer.putSection(map, 0);
+    writer.buf.flip();
+    return writer.buf;
+  }
+
+  /**
+   * Decode a map from portable storage.
+   *
+   * @param buf is the buffer to decode from its position to its limit, which is advanced past the decoded map
+   * @return the decoded map
+   */
+  public static Map<String, Object> deserialize(ByteBuffer buf) {
+    ByteBuffer in = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      for (byte b : SIGNATURE) if (in.get() != b) throw new MoneroError("Invalid portable storage signature");
+      Map<String, Object> map = readSection(in, 0);
+      buf.position(buf.position() + in.position());
+      return map;
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage ended unexpectedly");
+    }
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private static Map<String, Object> readSection(ByteBuffer in, int depth) {
+    if (depth > MAX_DEPTH) throw new MoneroError("Portable storage exceeds maximum depth of " + MAX_DEPTH);
+    long numEntries = readVarint(in);
+    Map<String, Object> section = new LinkedHashMap<String, Object>();
+    for (long i = 0; i < numEntries; i++) {
+      byte[] name = new byte[in.get() & 0xff];
+      in.get(name);
+      section.put(new String(name, StandardCharsets.UTF_8), readEntry(in, in.get(), depth));
+    }
+    return section;
+  }
+
+  private static Object readEntry(ByteBuffer in, byte type, int depth) {
+    if ((type & FLAG_ARRAY) != 0) return readArray(in, (byte) (type & ~FLAG_ARRAY), depth);
+    if (type == TYPE_ARRAY) return readEntry(in, in.get(), depth + 1); // array entry with its own type
+    return readValue(in, type, depth);
+  }
+
+  private static List<Object> readArray(ByteBuffer in, byte type, int depth) {
+    long size = readVarint(in);
+    if (size > in.remaining()) throw new MoneroError("Portable storage array size exceeds remaining bytes");
+    List<Object> list = new ArrayList<Object>((int) size);
+    for (long i = 0; i < size; i++) list.add(type == TYPE_ARRAY ? readEntry(in, in.get(), depth + 1) : readValue(in, type, depth + 1));
+    return list;
+  }
+
+  private static Object readValue(ByteBuffer in, byte type, int depth) {
+    switch (type) {
+      case TYPE_INT64: return toNumber(in.getLong());
+      case TYPE_INT32: return in.getInt();
+      case TYPE_INT16: return (int) in.getShort();
+      case TYPE_INT8: return (int) in.get();
+      case TYPE_UINT64: {
+        long val = in.getLong();
+        if (val >= 0) return toNumber(val);
+        return new BigInteger(Long.toUnsignedString(val));
+      }
+      case TYPE_UINT32: return toNumber(in.getInt() & 0xffffffffl);
+      case TYPE_UINT16: return in.getShort() & 0xffff;
+      case TYPE_UINT8: return in.get() & 0xff;
+      case TYPE_DOUBLE: return in.getDouble();
+      case TYPE_STRING: {
+        long length = readVarint(in);
+        if (length > in.remaining()) throw new MoneroError("Portable storage string length exceeds remaining bytes");
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+      case TYPE_BOOL: return in.get() != 0;
+      case TYPE_OBJECT: return readSection(in, depth + 1);
+      default: throw new MoneroError("Unknown portable storage type: " + type);
+    }
+  }
+
+  private static Number toNumber(long val) {
+    if (val == (int) val) return Integer.valueOf((int) val); // not a ternary which would promote to long
+    return Long.valueOf(val);
+  }
+
+  private static long readVarint(ByteBuffer in) {
+    if (!in.hasRemaining()) throw new BufferUnderflowException(); // peeking does not check
+    int first = in.get(in.position()) & 0xff;
+    switch (first & 0x03) {
+      case 0: return (in.get() & 0xff) >>> 2;
+      case 1: return (in.getShort() & 0xffff) >>> 2;
+      case 2: return (in.getInt() & 0xffffffffl) >>> 2;
+      default: return in.getLong() >>> 2;
+    }
+  }
+
+  /**
+   * Writes portable storage to a growing buffer.
+   */
+  private static class Writer {
+
+    private ByteBuffer buf = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+    private void putSection(Map<String, Object> map, int depth) {
+      if (depth > MAX_DEPTH) throw new MoneroError("Map exceeds maximum portable storage depth of " + MAX_DEPTH);
+      int numEntries = 0;
+      if (map != null) for (Object val : map.values()) if (!isOmitted(val)) numEntries++;
+      putVarint(numEntries);
+      if (numEntries == 0) return;
+      for (Map.Entry<String, Object> entry : map.entrySet()) {
+        if (isOmitted(entry.getValue())) continue;
+        byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH) throw new MoneroError("Portable storage name exceeds " + MAX_NAME_LENGTH + " bytes: " + entry.getKey());
+        ensureCapacity(1 + name.length);
+        buf.put((byte) name.length);
+        buf.put(name);
+        putEntry(entry.getValue(), depth);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putEntry(Object val, int depth) {
+      ensureCapacity(1);
+      if (val instanceof List) {
+        List<Object> list = (List<Object>) val;
+        byte type = getArrayType(list);
+        buf.put((byte) (type | FLAG_ARRAY));
+        putVarint(list.size());
+        for (Object item : list) {
+          if (item == null) throw new MoneroError("Cannot serialize null array element to portable storage");
+          if (type == TYPE_ARRAY) putEntry(item, depth + 1);
+          else putValue(item, type, depth + 1);
+        }
+      } else {
+        byte type = getType(val);
+        buf.put(type);
+        putValue(val, type, depth);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putValue(Object val, byte type, int depth) {
+      switch (type) {
+        case TYPE_INT64:
+        case TYPE_UINT64:
+          ensureCapacity(8);
+          buf.putLong(val instanceof BigInteger ? ((BigInteger) val).longValue() : ((Number) val).longValue());
+          break;
+        case TYPE_DOUBLE:
+          ensureCapacity(8);
+          buf.putDouble(((Number) val).doubleValue());
+          break;
+        case TYPE_STRING:
+          putBlob(val instanceof byte[] ? (byte[]) val : val.toString().getBytes(StandardCharsets.UTF_8));
+          break;
+        case TYPE_BOOL:
+          ensureCapacity(1);
+          buf.put((byte) (Boolean.TRUE.equals(val) ? 1 : 0));
+          break;
+        case TYPE_OBJECT:
+          putSection((Map<String, Object>) val, depth + 1);
+          break;
+        default:
+          throw new MoneroError("Unsupported portable storage type: " + type);
+      }
+    }
+
+    private void putBlob(byte[] bytes) {
+      putVarint(bytes.length);
+      putBytes(bytes);
+    }
+
+    private void putBytes(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      buf.put(bytes);
+    }
+
+    private void putVarint(long val) {
+      ensureCapacity(8);
+      if (val <= 63) buf.put((byte) (val << 2));
+      else if (val <= 16383) buf.putShort((short) ((val << 2) | 1));
+      else if (val <= 1073741823) buf.putInt((int) ((val << 2) | 2));
+      else if (val <= 4611686018427387903l) buf.putLong((val << 2) | 3);
+      else throw new MoneroError("Varint exceeds maximum portable storage size: " + val);
+    }
+
+    private void ensureCapacity(int numBytes) {
+      if (buf.remaining() >= numBytes) return;
+      ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + numBytes)).order(ByteOrder.LITTLE_ENDIAN);
+      buf.flip();
+      grown.put(buf);
+      buf = grown;
+    }
+
+    private static boolean isOmitted(Object val) {
+      return val == null || (val instanceof List && ((List<?>) val).isEmpty());
+    }
+
+    private static byte getType(Object val) {
+      if (val instanceof String || val instanceof byte[] || val instanceof Character || val instanceof Enum) return TYPE_STRING;
+      if (val instanceof Boolean) return TYPE_BOOL;
+      if (val instanceof Map) return TYPE_OBJECT;
+      if (val instanceof List) return TYPE_ARRAY;
+      if (val instanceof Double || val instanceof Float) return TYPE_DOUBLE;
+      if (val instanceof BigInteger) {
+        BigInteger bigInt = (BigInteger) val;
+        if (bigInt.signum() < 0) {
+          if (bigInt.bitLength() > 63) throw new MoneroError("Integer exceeds portable storage int64: " + val);
+          return TYPE_INT64;
+        }
+        if (bigInt.compareTo(UINT64_MAX) > 0) throw new MoneroError("Integer exceeds portable storage uint64: " + val);
+        return TYPE_UINT64;
+      }
+      if (val instanceof Long || val instanceof Integer || val instanceof Short || val instanceof Byte) return ((Number) val).longValue() < 0 ? TYPE_INT64 : TYPE_UINT64;
+      throw new MoneroError("Cannot serialize " + val.getClass().getSimpleName() + " to portable storage");
+    }
+
+    private static byte getArrayType(List<Object> list) {
+      byte type = 0;
+      for (Object item : list) {
+        if (item == null) continue;
+        byte itemType = getType(item);
+        if (type == 0 || (type == TYPE_UINT64 && itemType == TYPE_INT64)) type = itemType; // any negative integer makes the array signed
+        else if (type != itemType && !(type == TYPE_INT64 && itemType == TYPE_UINT64)) throw new MoneroError("Cannot serialize list of mixed types to portable storage");
+      }
+      if (type == 0) throw new MoneroError("Cannot serialize list of nulls to portable storage");
+      return type;
+    }
+  }
+}
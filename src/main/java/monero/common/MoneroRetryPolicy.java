@@ -0,0 +1,106 @@
+package monero.common;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy to retry idempotent requests which fail to reach a connection, with
+ * exponential backoff and full jitter between attempts.
+ */
+public class MoneroRetryPolicy {
+  
+  private int maxRetries;
+  private long initialDelayMs;
+  private long maxDelayMs;
+  private double multiplier;
+  
+  public MoneroRetryPolicy() {
+    this(3, 100, 5000, 2);
+  }
+  
+  public MoneroRetryPolicy(int maxRetries, long initialDelayMs, long maxDelayMs, double multiplier) {
+    setMaxRetries(maxRetries);
+    setInitialDelayMs(initialDelayMs);
+    setMaxDelayMs(maxDelayMs);
+    setMultiplier(multiplier);
+  }
+  
+  public MoneroRetryPolicy(MoneroRetryPolicy policy) {
+    this(policy.maxRetries, policy.initialDelayMs, policy.maxDelayMs, policy.multiplier);
+  }
+  
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+  
+  /**
+   * Set the maximum number of retries after the first attempt.
+   * 
+   * @param maxRetries is the maximum number of retries (default 3)
+   * @return this policy for chaining
+   */
+  public MoneroRetryPolicy setMaxRetries(int maxRetries) {
+    if (maxRetries < 0) throw new MoneroError("Max retries must be >= 0");
+    this.maxRetries = maxRetries;
+    return this;
+  }
+  
+  public long getInitialDelayMs() {
+    return initialDelayMs;
+  }
+  
+  /**
+   * Set the maximum delay before the first retry.
+   * 
+   * @param initialDelayMs is the maximum delay before the first retry in milliseconds (default 100)
+   * @return this policy for chaining
+   */
+  public MoneroRetryPolicy setInitialDelayMs(long initialDelayMs) {
+    if (initialDelayMs < 0) throw new MoneroError("Initial delay must be >= 0");
+    this.initialDelayMs = initialDelayMs;
+    return this;
+  }
+  
+  public long getMaxDelayMs() {
+    return maxDelayMs;
+  }
+  
+  /**
+   * Set the upper bound of the delay between retries.
+   * 
+   * @param maxDelayMs is the maximum delay between retries in milliseconds (default 5000)
+   * @return this policy for chaining
+   */
+  public MoneroRetryPolicy setMaxDelayMs(long maxDelayMs) {
+    if (maxDelayMs < 0) throw new MoneroError("Max delay must be >= 0");
+    this.maxDelayMs = maxDelayMs;
+    return this;
+  }
+  
+  public double getMultiplier() {
+    return multiplier;
+  }
+  
+  /**
+   * Set the factor which the maximum delay grows by after each retry.
+   * 
+   * @param multiplier is the factor which the maximum delay grows by (default 2)
+   * @return this policy for chaining
+   */
+  public MoneroRetryPolicy setMultiplier(double multiplier) {
+    if (multiplier < 1) throw new MoneroError("Multiplier must be >= 1");
+    this.multiplier = multiplier;
+    return this;
+  }
+  
+  /**
+   * Get a random delay before the given retry, uniformly distributed between 0 and
+   * min(maxDelayMs, initialDelayMs * multiplier^retryIdx).
+   * 
+   * @param retryIdx is the index of the retry starting at 0
+   * @return the delay before the retry in milliseconds
+   */
+  public long getDelayMs(int retryIdx) {
+    double maxDelayMs = Math.min(this.maxDelayMs, initialDelayMs * Math.pow(multiplier, retryIdx));
+    return (long) (ThreadLocalRandom.current().nextDouble() * maxDelayMs);
+  }
+}
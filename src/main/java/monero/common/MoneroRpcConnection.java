@@ -1,11 +1,17 @@
 package monero.common;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import common.utils.JsonUtils;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -13,30 +19,52 @@ import java.net.Proxy;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import javax.net.ssl.SSLContext;
 
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.BasicHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpHost;
@@ -44,8 +72,14 @@ import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.io.ModalCloseable;
 import org.apache.hc.core5.ssl.SSLContexts;
 import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
@@ -64,20 +98,39 @@ public class MoneroRpcConnection {
     MAPPER.setSerializationInclusion(Include.NON_NULL);
     MAPPER.configure(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS, true);
   }
+  
+  // default maximum number of pooled http connections to the uri (matches httpclient5 default)
+  private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+  
+  // default time to keep idle pooled connections over the proxy before evicting them
+  private static final long DEFAULT_PROXY_IDLE_TIMEOUT_MS = 60000;
 
   // instance variables
-  private CloseableHttpClient client;
+  private volatile SharedClient<CloseableHttpClient> client;
+  private SharedClient<CloseableHttpAsyncClient> asyncClient; // created on first async request
+  private final Object asyncClientLock = new Object();
+  private SharedClient<CloseableHttpClient> proxyClient; // created on first request over the proxy
+  private ThreadPoolExecutor proxyExecutor; // runs asynchronous requests over the proxy, created on first use
+  private final Object proxyClientLock = new Object();
   private String uri;
   private String username;
   private String password;
   private String zmqUri;
   private int priority = 0;
   private Long timeoutMs;
-  private Boolean isOnline;
-  private Boolean isAuthenticated;
-  private Long responseTime;
+  private volatile Boolean isOnline;
+  private volatile Boolean isAuthenticated;
+  private volatile Long responseTime;
+  private volatile Long height;
+  private volatile Boolean isSynchronized;
   private String proxyUri;
   private boolean printStackTrace;
+  private volatile boolean isConcurrent;
+  private volatile Boolean isBatchSupported; // unknown until first batch request
+  private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+  private long proxyIdleTimeoutMs = DEFAULT_PROXY_IDLE_TIMEOUT_MS;
+  private MoneroConnectionProbe probe = MoneroConnectionProbe.GET_VERSION;
+  private volatile MoneroRpcMetrics metrics;
   
   private Map<String, Object> attributes = new HashMap<String, Object>();
   
@@ -103,6 +156,7 @@ public class MoneroRpcConnection {
   
   public MoneroRpcConnection(URI uri, String username, String password, URI zmqUri) {
     this.uri = uri == null ? null : MoneroUtils.parseUri(uri.toString()).toString();
+    this.zmqUri = zmqUri == null ? null : zmqUri.toString();
     this.setCredentials(username, password);
   }
   
@@ -112,8 +166,15 @@ public class MoneroRpcConnection {
     this.isOnline = connection.isOnline;
     this.isAuthenticated = connection.isAuthenticated;
     this.responseTime = connection.responseTime;
+    this.height = connection.height;
+    this.isSynchronized = connection.isSynchronized;
     this.proxyUri = connection.proxyUri;
     this.printStackTrace = connection.printStackTrace;
+    this.isConcurrent = connection.isConcurrent;
+    this.proxyIdleTimeoutMs = connection.proxyIdleTimeoutMs;
+    this.probe = connection.probe;
+    this.metrics = connection.metrics;
+    if (this.maxConnectionsPerRoute != connection.maxConnectionsPerRoute) setMaxConnectionsPerRoute(connection.maxConnectionsPerRoute);
   }
 
   public String getUri() {
@@ -126,6 +187,7 @@ public class MoneroRpcConnection {
 
   public MoneroRpcConnection setUri(URI uri) {
     this.uri = MoneroUtils.parseUri(uri.toString()).toString();
+    this.isBatchSupported = null;
     setCredentials(username, password); // update credentials
     return this;
   }
@@ -139,19 +201,11 @@ public class MoneroRpcConnection {
   }
   
   public MoneroRpcConnection setCredentials(String username, String password) {
-    try { if (this.client != null) this.client.close(); }
-    catch (IOException e) { throw new MoneroError(e); }
     if ("".equals(username)) username = null;
     if ("".equals(password)) password = null;
     if (username != null || password != null) {
       if (username == null) throw new MoneroError("username cannot be empty because password is not empty");
       if (password == null) throw new MoneroError("password cannot be empty because username is not empty");
-      URI uriObj = MoneroUtils.parseUri(uri);
-      BasicCredentialsProvider creds = new BasicCredentialsProvider();
-      creds.setCredentials(new AuthScope(uriObj.getHost(), uriObj.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
-      this.client = HttpClients.custom().setDefaultCredentialsProvider(creds).build();
-    } else {
-      this.client = HttpClients.createDefault();
     }
     if (!Objects.equals(this.username, username) || !Objects.equals(this.password, password)) {
       isOnline = null;
@@ -159,6 +213,7 @@ public class MoneroRpcConnection {
     }
     this.username = username;
     this.password = password;
+    refreshClient();
     return this;
   }
   
@@ -182,12 +237,33 @@ public class MoneroRpcConnection {
 
   public MoneroRpcConnection setProxyUri(String proxyUri) {
     this.proxyUri = proxyUri;
+    closeProxyClient(); // recreated on next request over the proxy
     return this;
   }
 
   public String getProxyUri() {
     return proxyUri;
   }
+  
+  /**
+   * Set how long pooled connections over the proxy may stay idle before they are evicted.<br><br>
+   * 
+   * Connections over the proxy are kept alive between requests to avoid repeating the
+   * socks and circuit setup, which can take seconds over Tor.
+   * 
+   * @param proxyIdleTimeoutMs is the idle timeout in milliseconds (default 60000)
+   * @return this connection
+   */
+  public MoneroRpcConnection setProxyIdleTimeout(long proxyIdleTimeoutMs) {
+    if (proxyIdleTimeoutMs <= 0) throw new MoneroError("Proxy idle timeout must be > 0");
+    this.proxyIdleTimeoutMs = proxyIdleTimeoutMs;
+    closeProxyClient(); // recreated on next request over the proxy
+    return this;
+  }
+  
+  public long getProxyIdleTimeout() {
+    return proxyIdleTimeoutMs;
+  }
 
   /**
    * Set the connection's priority relative to other connections. Priority 1 is highest,
@@ -205,6 +281,47 @@ public class MoneroRpcConnection {
   public int getPriority() {
     return priority;
   }
+  
+  /**
+   * Set if requests are sent concurrently over pooled http connections.<br><br>
+   * 
+   * By default, requests are sent one at a time in the order they are received.
+   * 
+   * @param isConcurrent specifies if requests are sent concurrently (default false)
+   * @return this connection
+   */
+  public MoneroRpcConnection setIsConcurrent(boolean isConcurrent) {
+    this.isConcurrent = isConcurrent;
+    return this;
+  }
+  
+  /**
+   * Indicates if requests are sent concurrently over pooled http connections.
+   * 
+   * @return true if requests are sent concurrently, false if sent one at a time
+   */
+  public boolean isConcurrent() {
+    return isConcurrent;
+  }
+  
+  /**
+   * Set the maximum number of pooled http connections to the uri, which bounds
+   * the number of concurrent requests in flight. Also applies to the pool of
+   * connections over the proxy.
+   * 
+   * @param maxConnectionsPerRoute is the maximum number of pooled http connections (default 5)
+   * @return this connection
+   */
+  public MoneroRpcConnection setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+    if (maxConnectionsPerRoute <= 0) throw new MoneroError("Max connections per route must be > 0");
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    refreshClient();
+    return this;
+  }
+  
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
 
   /**
    * Set the RPC request timeout in milliseconds.
@@ -221,6 +338,39 @@ public class MoneroRpcConnection {
     return timeoutMs;
   }
   
+  /**
+   * Set the probe which checkConnection() sends to determine the connection status and response time.
+   * 
+   * @param probe is the probe to send (default MoneroConnectionProbe.GET_VERSION, which MoneroConnectionManager replaces with CHAIN_STATE while a max height lag is set)
+   * @return this connection
+   */
+  public MoneroRpcConnection setProbe(MoneroConnectionProbe probe) {
+    if (probe == null) throw new MoneroError("Probe cannot be null");
+    this.probe = probe;
+    return this;
+  }
+  
+  public MoneroConnectionProbe getProbe() {
+    return probe;
+  }
+  
+  /**
+   * Set the metrics registry to record this connection's requests to.<br><br>
+   * 
+   * A registry may be shared by multiple connections.
+   * 
+   * @param metrics is the metrics registry to record to, or null to not record (default)
+   * @return this connection
+   */
+  public MoneroRpcConnection setMetrics(MoneroRpcMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+  
+  public MoneroRpcMetrics getMetrics() {
+    return metrics;
+  }
+  
   public MoneroRpcConnection setAttribute(String key, Object value) {
     attributes.put(key, value);
     return this;
@@ -231,26 +381,33 @@ public class MoneroRpcConnection {
   }
   
   /**
-   * Check the connection and update online, authentication, and response time status.
+   * Check the connection and update online, authentication, and response time status.<br><br>
+   * 
+   * The response time is measured on the connection's probe (see setProbe()).
    * 
    * @param timeoutMs the maximum response time before considered offline
    * @return true if there is a change in status, false otherwise
    */
   public boolean checkConnection(long timeoutMs) {
+    return checkConnection(timeoutMs, probe);
+  }
+  
+  /**
+   * Check the connection with the given probe instead of the connection's probe.
+   * 
+   * @param timeoutMs the maximum response time before considered offline
+   * @param probe is the probe to send
+   * @return true if there is a change in status, false otherwise
+   */
+  boolean checkConnection(long timeoutMs, MoneroConnectionProbe probe) {
     synchronized (this) {
       Boolean isOnlineBefore = isOnline;
       Boolean isAuthenticatedBefore = isAuthenticated;
       long startTime = System.currentTimeMillis();
+      height = null;
+      isSynchronized = null;
       try {
-        if (MoneroUtils.isNativeLibraryLoaded()) {
-          List<Long> heights = new ArrayList<Long>();
-          for (long i = 0; i < 100; i++) heights.add(i);
-          Map<String, Object> params = new HashMap<String, Object>();
-          params.put("heights", heights);
-          sendBinaryRequest("get_blocks_by_height.bin", params, timeoutMs); // assume daemon connection
-        } else {
-          sendJsonRequest("get_version", null, timeoutMs);
-        }
+        probe.probe(this, timeoutMs);
         isOnline = true;
         isAuthenticated = true;
       } catch (Exception e) {
@@ -316,6 +473,39 @@ public class MoneroRpcConnection {
     return responseTime;
   }
   
+  /**
+   * Get the daemon's blockchain height as of the last call to checkConnection().<br><br>
+   * 
+   * Only known if the connection's probe reports the daemon's chain state (e.g. MoneroConnectionProbe.GET_INFO).
+   * 
+   * @return the daemon's blockchain height or null if unknown
+   */
+  public Long getHeight() {
+    return height;
+  }
+  
+  /**
+   * Indicates if the daemon is synchronized with the network as of the last call to checkConnection().<br><br>
+   * 
+   * Only known if the connection's probe reports the daemon's chain state (e.g. MoneroConnectionProbe.GET_INFO).
+   * 
+   * @return true or false to indicate if synchronized, or null if unknown
+   */
+  public Boolean isSynchronized() {
+    return isSynchronized;
+  }
+  
+  /**
+   * Set the daemon's chain state reported by a probe while checking the connection.
+   * 
+   * @param height is the daemon's blockchain height
+   * @param isSynchronized specifies if the daemon is synchronized with the network
+   */
+  void setChainState(Long height, Boolean isSynchronized) {
+    this.height = height;
+    this.isSynchronized = isSynchronized;
+  }
+  
   /**
    * Send a request to the RPC API.
    * 
@@ -346,7 +536,7 @@ public class MoneroRpcConnection {
    * @return the RPC API response as a map
    */
   public Map<String, Object> sendJsonRequest(String method, Object params, Long timeoutMs) {
-    CloseableHttpResponse resp = null;
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, method);
     try {
 
       // build request body
@@ -361,8 +551,8 @@ public class MoneroRpcConnection {
       post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
       HttpEntity entity = new StringEntity(JsonUtils.serialize(body));
       post.setEntity(entity);
-      Map<String, Object> respMap;
-      synchronized (this) {
+      metricsRequest.setRequestBytes(entity.getContentLength());
+      Map<String, Object> respMap = execute(httpClient -> {
 
         // logging
         if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending json request with method='" + method + "', body=" + JsonUtils.serialize(body) + ", uri=" + uri);
@@ -376,31 +566,222 @@ public class MoneroRpcConnection {
 
         // make request
         long startTime = System.currentTimeMillis();
-        resp = request(post);
-        
-        // validate response
-        validateHttpResponse(resp);
-
-        // deserialize response
-        respMap = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
-        EntityUtils.consume(resp.getEntity());
-        if (MoneroUtils.getLogLevel() >= 3) {
-          String respStr = JsonUtils.serialize(respMap);
-          respStr = respStr.substring(0, Math.min(10000, respStr.length()));
-          MoneroUtils.log(3, "Received json response from method='" + method + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+        try (CloseableHttpResponse resp = request(httpClient, post, metricsRequest)) {
+          
+          // validate response
+          validateHttpResponse(resp);
+
+          // deserialize response
+          Map<String, Object> map = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
+          EntityUtils.consume(resp.getEntity());
+          if (MoneroUtils.getLogLevel() >= 3) {
+            String respStr = JsonUtils.serialize(map);
+            respStr = respStr.substring(0, Math.min(10000, respStr.length()));
+            MoneroUtils.log(3, "Received json response from method='" + method + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+          }
+          return map;
         }
-      }
+      });
       
       // check rpc response for errors
       validateRpcResponse(respMap, method, params);
-      return respMap;
+      return metricsRequest.complete(respMap);
+    } catch (MoneroRpcError e1) {
+      throw metricsRequest.fail(e1);
+    } catch (Exception e2) {
+      throw metricsRequest.fail(new MoneroError(e2));
+    }
+  }
+  
+  /**
+   * Send a request to the RPC API and read its result directly from the response stream.<br><br>
+   * 
+   * Unlike sendJsonRequest(), the response is not buffered as a string or deserialized
+   * to a map, so large results can be read straight into model objects.
+   * 
+   * @param <T> the type read from the result
+   * @param method is the method to request
+   * @param params are the request's input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @param resultReader reads the "result" field of the response
+   * @return the value read from the result or null if the response has no result
+   */
+  public <T> T sendJsonRequest(String method, Object params, Long timeoutMs, MoneroRpcResultReader<T> resultReader) {
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, method);
+    try {
+
+      // build request body
+      Map<String, Object> body = new HashMap<String, Object>();
+      body.put("jsonrpc", "2.0");
+      body.put("id", "0");
+      body.put("method", method);
+      if (params != null) body.put("params", params);
+
+      // send http request
+      HttpPost post = new HttpPost(uri.toString() + "/json_rpc");
+      post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
+      HttpEntity entity = new StringEntity(JsonUtils.serialize(body));
+      post.setEntity(entity);
+      metricsRequest.setRequestBytes(entity.getContentLength());
+      return metricsRequest.complete(execute(httpClient -> {
+
+        // logging
+        if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending json request with method='" + method + "', body=" + JsonUtils.serialize(body) + ", uri=" + uri);
+        if (printStackTrace) {
+          try {
+            throw new RuntimeException("Debug stack trace for json request with method '" + method + "' and body " + JsonUtils.serialize(body));
+          } catch (Exception e) {
+            e.printStackTrace();
+          }
+        }
+
+        // make request
+        long startTime = System.currentTimeMillis();
+        try (CloseableHttpResponse resp = request(httpClient, post, metricsRequest)) {
+          
+          // validate response
+          validateHttpResponse(resp);
+
+          // read result from response stream
+          T result = null;
+          try (JsonParser parser = MAPPER.getFactory().createParser(resp.getEntity().getContent())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw new MoneroError("Expected json object in response from method '" + method + "' to " + uri);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+              String field = parser.getCurrentName();
+              parser.nextToken();
+              if ("result".equals(field)) result = resultReader.read(parser);
+              else if ("error".equals(field)) validateRpcResponse(Collections.singletonMap("error", MAPPER.readValue(parser, new TypeReference<Map<String, Object>>(){})), method, params);
+              else parser.skipChildren();
+            }
+          }
+          EntityUtils.consume(resp.getEntity());
+          if (MoneroUtils.getLogLevel() >= 3) MoneroUtils.log(3, "Received streamed json response from method='" + method + "', uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+          return result;
+        }
+      }));
+    } catch (MoneroRpcError e1) {
+      throw metricsRequest.fail(e1);
+    } catch (Exception e2) {
+      throw metricsRequest.fail(new MoneroError(e2));
+    }
+  }
+  
+  /**
+   * Send a batch of requests to the RPC API in one JSON-RPC 2.0 request.<br><br>
+   * 
+   * Falls back to sending the requests one after another if the server does not support batches.
+   * 
+   * @param requests are the requests to send
+   * @return the responses or errors in the same order as the requests
+   */
+  public List<MoneroRpcResponse> sendJsonRequestBatch(List<MoneroRpcRequest> requests) {
+    return sendJsonRequestBatch(requests, null);
+  }
+  
+  /**
+   * Send a batch of requests to the RPC API in one JSON-RPC 2.0 request.<br><br>
+   * 
+   * Falls back to sending the requests one after another if the server does not support batches.
+   * 
+   * @param requests are the requests to send
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return the responses or errors in the same order as the requests
+   */
+  @SuppressWarnings("unchecked")
+  public List<MoneroRpcResponse> sendJsonRequestBatch(List<MoneroRpcRequest> requests, Long timeoutMs) {
+    if (requests.isEmpty()) return new ArrayList<MoneroRpcResponse>();
+    if (Boolean.FALSE.equals(isBatchSupported)) return sendJsonRequestsSequentially(requests, timeoutMs);
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, "batch");
+    try {
+      
+      // build request body with ids to match responses
+      List<Map<String, Object>> body = new ArrayList<Map<String, Object>>();
+      for (int i = 0; i < requests.size(); i++) {
+        Map<String, Object> request = new HashMap<String, Object>();
+        request.put("jsonrpc", "2.0");
+        request.put("id", Integer.toString(i));
+        request.put("method", requests.get(i).getMethod());
+        if (requests.get(i).getParams() != null) request.put("params", requests.get(i).getParams());
+        body.add(request);
+      }
+      
+      // send http request
+      HttpPost post = new HttpPost(uri.toString() + "/json_rpc");
+      post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
+      HttpEntity entity = new StringEntity(JsonUtils.serialize(body));
+      post.setEntity(entity);
+      metricsRequest.setRequestBytes(entity.getContentLength());
+      Object resp = execute(httpClient -> {
+
+        // logging
+        if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending json batch request with " + requests.size() + " methods, body=" + JsonUtils.serialize(body) + ", uri=" + uri);
+        if (printStackTrace) {
+          try {
+            throw new RuntimeException("Debug stack trace for json batch request with body " + JsonUtils.serialize(body));
+          } catch (Exception e) {
+            e.printStackTrace();
+          }
+        }
+
+        // make request
+        long startTime = System.currentTimeMillis();
+        try (CloseableHttpResponse httpResp = request(httpClient, post, metricsRequest)) {
+          
+          // validate response
+          validateHttpResponse(httpResp);
+
+          // deserialize response
+          String respStr = EntityUtils.toString(httpResp.getEntity(), "UTF-8");
+          EntityUtils.consume(httpResp.getEntity());
+          if (MoneroUtils.getLogLevel() >= 3) MoneroUtils.log(3, "Received json batch response, response=" + respStr.substring(0, Math.min(10000, respStr.length())) + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+          return JsonUtils.deserialize(MAPPER, respStr, new TypeReference<Object>(){});
+        }
+      });
+      
+      // fallback to sequential requests if batch is rejected with a single response
+      if (!(resp instanceof List)) {
+        metricsRequest.complete(null);
+        isBatchSupported = false;
+        return sendJsonRequestsSequentially(requests, timeoutMs);
+      }
+      isBatchSupported = true;
+      metricsRequest.complete(null);
+      
+      // index responses by id
+      Map<String, Map<String, Object>> respMaps = new HashMap<String, Map<String, Object>>();
+      for (Map<String, Object> respMap : (List<Map<String, Object>>) resp) {
+        Object id = respMap.get("id");
+        if (id != null) respMaps.put(id.toString(), respMap);
+      }
+      
+      // match responses to requests
+      List<MoneroRpcResponse> responses = new ArrayList<MoneroRpcResponse>();
+      for (int i = 0; i < requests.size(); i++) {
+        MoneroRpcRequest request = requests.get(i);
+        Map<String, Object> respMap = respMaps.get(Integer.toString(i));
+        if (respMap == null) {
+          responses.add(new MoneroRpcResponse(new MoneroRpcError("No response to batched request with method '" + request.getMethod() + "' from " + uri, null, request.getMethod(), request.getParams())));
+          continue;
+        }
+        try {
+          validateRpcResponse(respMap, request.getMethod(), request.getParams());
+          responses.add(new MoneroRpcResponse(respMap));
+        } catch (MoneroRpcError e) {
+          responses.add(new MoneroRpcResponse(e));
+        }
+      }
+      return responses;
     } catch (MoneroRpcError e1) {
+      metricsRequest.fail(e1);
+      
+      // fallback to sequential requests if batch is rejected with an http error other than authentication
+      if (e1.getCode() != null && e1.getCode() >= 400 && e1.getCode() != 401 && !Boolean.TRUE.equals(isBatchSupported)) {
+        isBatchSupported = false;
+        return sendJsonRequestsSequentially(requests, timeoutMs);
+      }
       throw e1;
     } catch (Exception e2) {
-      throw new MoneroError(e2);
-    } finally {
-      try { resp.close(); }
-      catch (Exception e) {}
+      throw metricsRequest.fail(new MoneroError(e2));
     }
   }
   
@@ -440,7 +821,7 @@ public class MoneroRpcConnection {
    * @return the request's deserialized response
    */
   public Map<String, Object> sendPathRequest(String path, Map<String, Object> params, Long timeoutMs) {
-    CloseableHttpResponse resp = null;
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, path);
     try {
 
       // send http request
@@ -448,10 +829,10 @@ public class MoneroRpcConnection {
       if (params != null) {
         HttpEntity entity = new StringEntity(JsonUtils.serialize(params));
         post.setEntity(entity);
+        metricsRequest.setRequestBytes(entity.getContentLength());
       }
       post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
-      Map<String, Object> respMap;
-      synchronized (this) {
+      Map<String, Object> respMap = execute(httpClient -> {
 
         // logging
         if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending path request with path='" + path + "', params=" + JsonUtils.serialize(params) + ", uri=" + uri);
@@ -465,31 +846,30 @@ public class MoneroRpcConnection {
 
         // send request
         long startTime = System.currentTimeMillis();
-        resp = request(post);
-        
-        // validate response
-        validateHttpResponse(resp);
-        
-        // deserialize response
-        respMap = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
-        EntityUtils.consume(resp.getEntity());
-        if (MoneroUtils.getLogLevel() >= 3) {
-          String respStr = JsonUtils.serialize(respMap);
-          respStr = respStr.substring(0, Math.min(10000, respStr.length()));
-          MoneroUtils.log(3, "Received path response from path='" + path + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+        try (CloseableHttpResponse resp = request(httpClient, post, metricsRequest)) {
+          
+          // validate response
+          validateHttpResponse(resp);
+          
+          // deserialize response
+          Map<String, Object> map = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
+          EntityUtils.consume(resp.getEntity());
+          if (MoneroUtils.getLogLevel() >= 3) {
+            String respStr = JsonUtils.serialize(map);
+            respStr = respStr.substring(0, Math.min(10000, respStr.length()));
+            MoneroUtils.log(3, "Received path response from path='" + path + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+          }
+          return map;
         }
-      }
+      });
       
       // check rpc response for errors
       validateRpcResponse(respMap, path, params);
-      return respMap;
+      return metricsRequest.complete(respMap);
     } catch (MoneroRpcError e1) {
-      throw e1;
+      throw metricsRequest.fail(e1);
     } catch (Exception e2) {
-      throw new MoneroError(e2);
-    } finally {
-      try { resp.close(); }
-      catch (Exception e) {}
+      throw metricsRequest.fail(new MoneroError(e2));
     }
   }
   
@@ -513,52 +893,228 @@ public class MoneroRpcConnection {
    * @return byte[] is the binary response
    */
   public byte[] sendBinaryRequest(String path, Map<String, Object> params, Long timeoutMs) {
-    
-    // serialize params to monero's portable binary storage format
-    byte[] paramsBin = MoneroUtils.mapToBinary(params);
-    CloseableHttpResponse resp = null;
+    return sendBinaryRequestAndRead(path, params, timeoutMs, entity -> {
+      byte[] bytes = EntityUtils.toByteArray(entity);
+      EntityUtils.consume(entity);
+      return bytes;
+    });
+  }
+  
+  /**
+   * Send a binary RPC request and read the response from a direct buffer.<br><br>
+   * 
+   * The response is streamed into a direct buffer which is recycled across requests after the reader
+   * returns, so large responses can be passed to native code without copies on the java heap.
+   * 
+   * @param <T> is the type read from the response
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @param reader reads the binary response, which is invalid after the reader returns
+   * @return the result of the reader
+   */
+  public <T> T sendBinaryRequest(String path, Map<String, Object> params, Long timeoutMs, Function<ByteBuffer, T> reader) {
+    ByteBuffer respBin = sendBinaryRequestToBuffer(path, params, timeoutMs);
     try {
+      return reader.apply(respBin);
+    } finally {
+      MoneroBufferPool.release(respBin);
+    }
+  }
+  
+  /**
+   * Send a binary RPC request and read the response into a pooled direct buffer, which the caller releases.
+   */
+  ByteBuffer sendBinaryRequestToBuffer(String path, Map<String, Object> params, Long timeoutMs) {
+    return sendBinaryRequestAndRead(path, params, timeoutMs, entity -> {
+      try (InputStream in = entity.getContent()) {
+        return MoneroBufferPool.read(in, entity.getContentLength());
+      }
+    });
+  }
 
-      // create http request
-      HttpPost post = new HttpPost(uri.toString() + "/" + path);
-      post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
-      if (paramsBin != null) {
-        HttpEntity entity = new ByteArrayEntity(paramsBin, ContentType.DEFAULT_BINARY);
-        post.setEntity(entity);
+  /**
+   * Send an asynchronous request to the RPC API.<br><br>
+   * 
+   * Requests are driven by a non-blocking I/O reactor, so no thread is held while awaiting the response.
+   * 
+   * @param method is the method to request
+   * @param params are the request's input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @return a future which completes with the RPC API response as a map or exceptionally with a MoneroError
+   */
+  public CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method, Object params) {
+    return sendJsonRequestAsync(method, params, null);
+  }
+  
+  /**
+   * Send an asynchronous request to the RPC API.<br><br>
+   * 
+   * Requests are driven by a non-blocking I/O reactor, so no thread is held while awaiting the response.
+   * 
+   * @param method is the method to request
+   * @param params are the request's input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return a future which completes with the RPC API response as a map or exceptionally with a MoneroError
+   */
+  public CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method, Object params, Long timeoutMs) {
+    if (proxyUri != null) return CompletableFuture.supplyAsync(() -> sendJsonRequest(method, params, timeoutMs), getProxyExecutor()); // requests over the proxy are blocking
+
+    // build request body
+    Map<String, Object> body = new HashMap<String, Object>();
+    body.put("jsonrpc", "2.0");
+    body.put("id", "0");
+    body.put("method", method);
+    if (params != null) body.put("params", params);
+    
+    // build http request
+    SimpleHttpRequest request = SimpleRequestBuilder.post(uri.toString() + "/json_rpc")
+        .setBody(JsonUtils.serialize(body), ContentType.APPLICATION_JSON)
+        .setRequestConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs))
+        .build();
+
+    // logging
+    if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending async json request with method='" + method + "', body=" + JsonUtils.serialize(body) + ", uri=" + uri);
+    if (printStackTrace) {
+      try {
+        throw new RuntimeException("Debug stack trace for async json request with method '" + method + "' and body " + JsonUtils.serialize(body));
+      } catch (Exception e) {
+        e.printStackTrace();
       }
-      
-      // send http request
-      synchronized (this) {
+    }
+    
+    // send request and deserialize response
+    long startTime = System.currentTimeMillis();
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, method);
+    metricsRequest.setRequestBytes(request.getBodyBytes().length);
+    return endAsync(metricsRequest, requestAsync(request, metricsRequest).thenApply(resp -> {
+      Map<String, Object> respMap = toMap(resp);
+      if (MoneroUtils.getLogLevel() >= 3) {
+        String respStr = JsonUtils.serialize(respMap);
+        respStr = respStr.substring(0, Math.min(10000, respStr.length()));
+        MoneroUtils.log(3, "Received async json response from method='" + method + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+      }
+      validateRpcResponse(respMap, method, params);
+      return respMap;
+    }));
+  }
+  
+  /**
+   * Send an asynchronous RPC request to the given path and with the given paramters.
+   * 
+   * E.g. "/get_transactions" with params
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @return a future which completes with the request's deserialized response or exceptionally with a MoneroError
+   */
+  public CompletableFuture<Map<String, Object>> sendPathRequestAsync(String path, Map<String, Object> params) {
+    return sendPathRequestAsync(path, params, null);
+  }
+  
+  /**
+   * Send an asynchronous RPC request to the given path and with the given paramters.
+   * 
+   * E.g. "/get_transactions" with params
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return a future which completes with the request's deserialized response or exceptionally with a MoneroError
+   */
+  public CompletableFuture<Map<String, Object>> sendPathRequestAsync(String path, Map<String, Object> params, Long timeoutMs) {
+    if (proxyUri != null) return CompletableFuture.supplyAsync(() -> sendPathRequest(path, params, timeoutMs), getProxyExecutor()); // requests over the proxy are blocking
+    
+    // build http request
+    SimpleRequestBuilder builder = SimpleRequestBuilder.post(uri.toString() + "/" + path);
+    if (params != null) builder.setBody(JsonUtils.serialize(params), ContentType.APPLICATION_JSON);
+    SimpleHttpRequest request = builder.setRequestConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs)).build();
 
-        // logging
-        if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending binary request with path='" + path + "', params=" + JsonUtils.serialize(params) + ", uri=" + uri);
-        if (printStackTrace) {
-          try {
-            throw new RuntimeException("Debug stack trace for binary request with path '" + path);
-          } catch (Exception e) {
-            e.printStackTrace();
-          }
-        }
+    // logging
+    if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending async path request with path='" + path + "', params=" + JsonUtils.serialize(params) + ", uri=" + uri);
+    if (printStackTrace) {
+      try {
+        throw new RuntimeException("Debug stack trace for async path request with path '" + path + "' and params " + JsonUtils.serialize(params));
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+    
+    // send request and deserialize response
+    long startTime = System.currentTimeMillis();
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, path);
+    if (request.getBodyBytes() != null) metricsRequest.setRequestBytes(request.getBodyBytes().length);
+    return endAsync(metricsRequest, requestAsync(request, metricsRequest).thenApply(resp -> {
+      Map<String, Object> respMap = toMap(resp);
+      if (MoneroUtils.getLogLevel() >= 3) {
+        String respStr = JsonUtils.serialize(respMap);
+        respStr = respStr.substring(0, Math.min(10000, respStr.length()));
+        MoneroUtils.log(3, "Received async path response from path='" + path + "', response=" + respStr + ", uri=" + uri + " (" + (System.currentTimeMillis() - startTime) + " ms)");
+      }
+      validateRpcResponse(respMap, path, params);
+      return respMap;
+    }));
+  }
+  
+  /**
+   * Send an asynchronous binary RPC request.
+   * 
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @return a future which completes with the binary response or exceptionally with a MoneroError
+   */
+  public CompletableFuture<byte[]> sendBinaryRequestAsync(String path, Map<String, Object> params) {
+    return sendBinaryRequestAsync(path, params, null);
+  }
+  
+  /**
+   * Send an asynchronous binary RPC request.
+   * 
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @param timeoutMs overrides the request timeout in milliseconds
+   * @return a future which completes with the binary response or exceptionally with a MoneroError
+   */
+  public CompletableFuture<byte[]> sendBinaryRequestAsync(String path, Map<String, Object> params, Long timeoutMs) {
+    if (proxyUri != null) return CompletableFuture.supplyAsync(() -> sendBinaryRequest(path, params, timeoutMs), getProxyExecutor()); // requests over the proxy are blocking
+    
+    // serialize params to monero's portable binary storage format
+    byte[] paramsBin;
+    try {
+      paramsBin = MoneroUtils.mapToBinary(params);
+    } catch (Exception e) {
+      CompletableFuture<byte[]> failed = new CompletableFuture<byte[]>();
+      failed.completeExceptionally(e instanceof MoneroError ? e : new MoneroError(e));
+      return failed;
+    }
+    
+    // build http request
+    SimpleRequestBuilder builder = SimpleRequestBuilder.post(uri.toString() + "/" + path);
+    if (paramsBin != null) builder.setBody(paramsBin, ContentType.DEFAULT_BINARY);
+    SimpleHttpRequest request = builder.setRequestConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs)).build();
 
-        // send request
-        resp = request(post);
-        
-        // validate response
-        validateHttpResponse(resp);
-        
-        // deserialize response
-        byte[] entity = EntityUtils.toByteArray(resp.getEntity());
-        EntityUtils.consume(resp.getEntity());
-        return entity;
+    // logging
+    if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending async binary request with path='" + path + "', params=" + JsonUtils.serialize(params) + ", uri=" + uri);
+    if (printStackTrace) {
+      try {
+        throw new RuntimeException("Debug stack trace for async binary request with path '" + path);
+      } catch (Exception e) {
+        e.printStackTrace();
       }
-    } catch (MoneroRpcError e1) {
-      throw e1;
-    } catch (Exception e2) {
-      throw new MoneroError(e2);
-    } finally {
-      try { resp.close(); }
-      catch (Exception e) {}
     }
+    
+    // send request
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, path);
+    if (paramsBin != null) metricsRequest.setRequestBytes(paramsBin.length);
+    return endAsync(metricsRequest, requestAsync(request, metricsRequest).thenApply(resp -> resp.getBodyBytes()));
+  }
+  
+  /**
+   * Close the connection's http clients and release their resources.
+   */
+  public void close() {
+    if (client != null) client.retire(); // requests in flight complete
+    closeAsyncClient();
+    closeProxyClient();
   }
 
   /**
@@ -613,6 +1169,198 @@ public class MoneroRpcConnection {
   
   // ------------------------------ PRIVATE HELPERS --------------------------
   
+  private List<MoneroRpcResponse> sendJsonRequestsSequentially(List<MoneroRpcRequest> requests, Long timeoutMs) {
+    List<MoneroRpcResponse> responses = new ArrayList<MoneroRpcResponse>();
+    for (MoneroRpcRequest request : requests) {
+      try {
+        responses.add(new MoneroRpcResponse(sendJsonRequest(request.getMethod(), request.getParams(), timeoutMs)));
+      } catch (MoneroRpcError e) {
+        responses.add(new MoneroRpcResponse(e));
+      }
+    }
+    return responses;
+  }
+  
+  /**
+   * Sends a binary request and reads its response entity with the given reader.
+   */
+  private <T> T sendBinaryRequestAndRead(String path, Map<String, Object> params, Long timeoutMs, EntityReader<T> entityReader) {
+    
+    // serialize params to monero's portable binary storage format
+    ByteBuffer paramsBin = MoneroPortableStorage.serialize(params);
+    MoneroRpcMetrics.Request metricsRequest = MoneroRpcMetrics.startRequest(metrics, uri, path);
+    try {
+
+      // create http request
+      HttpPost post = new HttpPost(uri.toString() + "/" + path);
+      post.setConfig(getRequestConfig(timeoutMs == null ? this.timeoutMs : timeoutMs));
+      post.setEntity(new ByteArrayEntity(paramsBin.array(), paramsBin.arrayOffset(), paramsBin.limit(), ContentType.DEFAULT_BINARY));
+      metricsRequest.setRequestBytes(paramsBin.limit());
+      
+      // send http request
+      return metricsRequest.complete(execute(httpClient -> {
+
+        // logging
+        if (MoneroUtils.getLogLevel() >= 2) MoneroUtils.log(2, "Sending binary request with path='" + path + "', params=" + JsonUtils.serialize(params) + ", uri=" + uri);
+        if (printStackTrace) {
+          try {
+            throw new RuntimeException("Debug stack trace for binary request with path '" + path);
+          } catch (Exception e) {
+            e.printStackTrace();
+          }
+        }
+
+        // send request
+        try (CloseableHttpResponse resp = request(httpClient, post, metricsRequest)) {
+          
+          // validate response
+          validateHttpResponse(resp);
+          
+          // read response
+          return entityReader.read(resp.getEntity());
+        }
+      }));
+    } catch (MoneroRpcError e1) {
+      throw metricsRequest.fail(e1);
+    } catch (Exception e2) {
+      throw metricsRequest.fail(new MoneroError(e2));
+    }
+  }
+  
+  private interface EntityReader<T> {
+    T read(HttpEntity entity) throws IOException;
+  }
+  
+  /**
+   * Executes a request, one at a time unless the connection is concurrent.
+   */
+  private <T> T execute(RequestExecutor<T> executor) throws Exception {
+    if (isConcurrent) return executeWithClient(executor);
+    synchronized (this) {
+      return executeWithClient(executor);
+    }
+  }
+  
+  private <T> T executeWithClient(RequestExecutor<T> executor) throws Exception {
+    SharedClient<CloseableHttpClient> httpClient = proxyUri == null ? acquireClient() : acquireProxyClient();
+    try {
+      return executor.execute(httpClient);
+    } finally {
+      httpClient.release();
+    }
+  }
+  
+  private interface RequestExecutor<T> {
+    T execute(SharedClient<CloseableHttpClient> httpClient) throws Exception;
+  }
+  
+  private SharedClient<CloseableHttpClient> acquireClient() {
+    while (true) {
+      SharedClient<CloseableHttpClient> httpClient = client;
+      if (httpClient.acquire()) return httpClient;
+      if (httpClient == client) throw new MoneroError("Connection is closed: " + uri); // otherwise replaced since read
+    }
+  }
+  
+  private void refreshClient() {
+    HttpClientBuilder builder = HttpClients.custom().setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnPerRoute(maxConnectionsPerRoute)
+        .setMaxConnTotal(maxConnectionsPerRoute)
+        .build());
+    if (username != null) {
+      URI uriObj = MoneroUtils.parseUri(uri);
+      BasicCredentialsProvider creds = new BasicCredentialsProvider();
+      creds.setCredentials(new AuthScope(uriObj.getHost(), uriObj.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
+      builder.setDefaultCredentialsProvider(creds);
+    }
+    SharedClient<CloseableHttpClient> prevClient = client;
+    client = new SharedClient<CloseableHttpClient>(builder.build(), null); // published before the previous client is retired
+    if (prevClient != null) prevClient.retire();
+    closeAsyncClient(); // recreated on next async request
+    closeProxyClient(); // recreated on next request over the proxy
+  }
+  
+  private SharedClient<CloseableHttpAsyncClient> acquireAsyncClient() {
+    synchronized (asyncClientLock) {
+      if (asyncClient == null) {
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+            .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1).build())
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setMaxConnTotal(maxConnectionsPerRoute)
+                .build());
+        if (username != null) {
+          URI uriObj = MoneroUtils.parseUri(uri);
+          BasicCredentialsProvider creds = new BasicCredentialsProvider();
+          creds.setCredentials(new AuthScope(uriObj.getHost(), uriObj.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
+          builder.setDefaultCredentialsProvider(creds);
+        }
+        CloseableHttpAsyncClient httpAsyncClient = builder.build();
+        httpAsyncClient.start();
+        asyncClient = new SharedClient<CloseableHttpAsyncClient>(httpAsyncClient, null);
+      }
+      asyncClient.acquire(); // not retired while locked
+      return asyncClient;
+    }
+  }
+  
+  private void closeAsyncClient() {
+    synchronized (asyncClientLock) {
+      if (asyncClient != null) asyncClient.retire(); // requests in flight complete
+      asyncClient = null;
+    }
+  }
+  
+  /**
+   * Executes an asynchronous http request and validates the http response.
+   */
+  private CompletableFuture<SimpleHttpResponse> requestAsync(SimpleHttpRequest request, MoneroRpcMetrics.Request metricsRequest) {
+    CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<SimpleHttpResponse>();
+    try {
+      SharedClient<CloseableHttpAsyncClient> httpAsyncClient = acquireAsyncClient();
+      future.whenComplete((resp, e) -> httpAsyncClient.release());
+      httpAsyncClient.client.execute(request, new FutureCallback<SimpleHttpResponse>() {
+        
+        @Override
+        public void completed(SimpleHttpResponse resp) {
+          try {
+            if (resp.getBodyBytes() != null) metricsRequest.setResponseBytes(resp.getBodyBytes().length);
+            validateHttpResponse(resp);
+            future.complete(resp);
+          } catch (Exception e) {
+            future.completeExceptionally(e);
+          }
+        }
+        
+        @Override
+        public void failed(Exception e) {
+          future.completeExceptionally(new MoneroError(e));
+        }
+        
+        @Override
+        public void cancelled() {
+          future.completeExceptionally(new MoneroError("Request cancelled: " + request.getRequestUri()));
+        }
+      });
+    } catch (Exception e) {
+      future.completeExceptionally(e instanceof MoneroError ? e : new MoneroError(e));
+    }
+    return future;
+  }
+  
+  /**
+   * Records the completion of an asynchronous request to metrics.
+   */
+  private static <T> CompletableFuture<T> endAsync(MoneroRpcMetrics.Request metricsRequest, CompletableFuture<T> future) {
+    return future.whenComplete((result, e) -> {
+      if (e == null) metricsRequest.end(null);
+      else {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        metricsRequest.end(cause instanceof MoneroError ? (MoneroError) cause : new MoneroError(cause));
+      }
+    });
+  }
+  
   private static void validateHttpResponse(CloseableHttpResponse resp) {
     int code = resp.getCode();
     if (code < 200 || code > 299) {
@@ -622,9 +1370,34 @@ public class MoneroRpcConnection {
       } catch (Exception e) {
         // could not get content
       }
-      throw new MoneroRpcError(code + " " + resp.getReasonPhrase() + (content == null || content.isEmpty() ? "" : (": " + content)), code, null, null);
+      throw createHttpError(code, resp.getReasonPhrase(), content);
+    }
+  }
+  
+  private static void validateHttpResponse(SimpleHttpResponse resp) {
+    int code = resp.getCode();
+    if (code < 200 || code > 299) {
+      String content = null;
+      try {
+        content = resp.getBodyText();
+      } catch (Exception e) {
+        // could not get content
+      }
+      throw createHttpError(code, resp.getReasonPhrase(), content);
     }
   }
+  
+  private static Map<String, Object> toMap(SimpleHttpResponse resp) {
+    try {
+      return JsonUtils.toMap(MAPPER, resp.getBodyText());
+    } catch (Exception e) {
+      throw new MoneroError(e);
+    }
+  }
+  
+  private static MoneroRpcError createHttpError(int code, String reasonPhrase, String content) {
+    return new MoneroRpcError(code + " " + reasonPhrase + (content == null || content.isEmpty() ? "" : (": " + content)), code, null, null);
+  }
 
   @SuppressWarnings("unchecked")
   private void validateRpcResponse(Map<String, Object> respMap, String method, Object params) {
@@ -646,35 +1419,166 @@ public class MoneroRpcConnection {
     return builder.build();
   }
 
-  private CloseableHttpResponse request(HttpUriRequest request) throws IOException, URISyntaxException {
-    return proxyUri == null ? client.execute(request) : requestWithProxy(request);
+  private CloseableHttpResponse request(SharedClient<CloseableHttpClient> httpClient, HttpUriRequest request, MoneroRpcMetrics.Request metricsRequest) throws IOException, URISyntaxException {
+    CloseableHttpResponse resp = httpClient.socksAddress == null ? httpClient.client.execute(request) : requestWithProxy(httpClient, request);
+    if (resp.getEntity() != null) resp.setEntity(new CountingEntity(resp.getEntity(), metricsRequest)); // content length is unknown if chunked
+    return resp;
   }
 
-  private CloseableHttpResponse requestWithProxy(HttpUriRequest request) throws IOException {
+  private CloseableHttpResponse requestWithProxy(SharedClient<CloseableHttpClient> httpClient, HttpUriRequest request) throws IOException {
 
-    // register socket factories to use socks5
-    Registry<ConnectionSocketFactory> reg = RegistryBuilder.<ConnectionSocketFactory>create()
-        .register("http", new SocksConnectionSocketFactory())
-        .register("https", new SocksSSLConnectionSocketFactory(SSLContexts.createSystemDefault())).build();
+    // register socks address
+    HttpClientContext context = HttpClientContext.create();
+    context.setAttribute("socks.address", httpClient.socksAddress);
 
-    // create connection manager to use socket factories and fake dns resolver
-    boolean isLocal = false; // use fake dns resolver if not resolving DNS locally TODO: determine if request url is local
-    BasicHttpClientConnectionManager cm = isLocal ?
-        new BasicHttpClientConnectionManager(reg) :
-        new BasicHttpClientConnectionManager(reg, null, null, new FakeDnsResolver());
+    // execute request over pooled connections
+    return httpClient.client.execute(request, context);
+  }
+  
+  private SharedClient<CloseableHttpClient> acquireProxyClient() {
+    synchronized (proxyClientLock) {
+      if (proxyClient == null) {
+        URI proxyParsed = MoneroUtils.parseUri(proxyUri);
+        InetSocketAddress socksAddress = new InetSocketAddress(proxyParsed.getHost(), proxyParsed.getPort());
+        
+        // register socket factories to use socks5
+        Registry<ConnectionSocketFactory> reg = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", new SocksConnectionSocketFactory())
+            .register("https", new SocksSSLConnectionSocketFactory(SSLContexts.createSystemDefault())).build();
+        
+        // create pooled connection manager to use socket factories and fake dns resolver
+        boolean isLocal = false; // use fake dns resolver if not resolving DNS locally TODO: determine if request url is local
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(reg, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND, null, isLocal ? null : new FakeDnsResolver(), null);
+        cm.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        cm.setMaxTotal(maxConnectionsPerRoute);
+        
+        // create http client which keeps connections alive until idle
+        HttpClientBuilder builder = HttpClients.custom()
+            .setConnectionManager(cm)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(proxyIdleTimeoutMs));
+        if (username != null) {
+          URI uriObj = MoneroUtils.parseUri(uri);
+          BasicCredentialsProvider creds = new BasicCredentialsProvider();
+          creds.setCredentials(new AuthScope(uriObj.getHost(), uriObj.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
+          builder.setDefaultCredentialsProvider(creds);
+        }
+        proxyClient = new SharedClient<CloseableHttpClient>(builder.build(), socksAddress);
+      }
+      proxyClient.acquire(); // not retired while locked
+      return proxyClient;
+    }
+  }
+  
+  /**
+   * Get the executor which runs blocking requests over the proxy for the asynchronous API, with one
+   * thread per pooled connection so the requests never hold threads of shared pools.
+   */
+  private Executor getProxyExecutor() {
+    synchronized (proxyClientLock) {
+      if (proxyExecutor == null) {
+        AtomicInteger threadNum = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+          Thread thread = new Thread(runnable, "MoneroRpcConnection-proxy-" + threadNum.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+        proxyExecutor = new ThreadPoolExecutor(maxConnectionsPerRoute, maxConnectionsPerRoute, proxyIdleTimeoutMs, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        proxyExecutor.allowCoreThreadTimeOut(true);
+      }
+      return proxyExecutor;
+    }
+  }
+  
+  private void closeProxyClient() {
+    synchronized (proxyClientLock) {
+      if (proxyClient != null) proxyClient.retire(); // requests in flight complete
+      proxyClient = null;
+      if (proxyExecutor != null) proxyExecutor.shutdown(); // queued requests still complete
+      proxyExecutor = null;
+    }
+  }
 
-    // create http client
-    CloseableHttpClient closeableHttpClient = HttpClients.custom().setConnectionManager(cm).build();
+  /**
+   * HTTP client shared by requests in flight, which is closed once retired and idle so requests in
+   * flight complete when the client is replaced.
+   */
+  private static class SharedClient<C extends ModalCloseable> {
     
-    // register socks address
-    URI proxyParsed = MoneroUtils.parseUri(proxyUri);
-    InetSocketAddress socksAddress = new InetSocketAddress(proxyParsed.getHost(), proxyParsed.getPort());
-    HttpClientContext context = HttpClientContext.create();
-    context.setAttribute("socks.address", socksAddress);
+    final C client;
+    final InetSocketAddress socksAddress; // routes requests over the proxy if not null
+    private int numRequests;
+    private boolean isRetired;
+    
+    SharedClient(C client, InetSocketAddress socksAddress) {
+      this.client = client;
+      this.socksAddress = socksAddress;
+    }
+    
+    synchronized boolean acquire() {
+      if (isRetired) return false;
+      numRequests++;
+      return true;
+    }
+    
+    synchronized void release() {
+      if (--numRequests == 0 && isRetired) client.close(CloseMode.GRACEFUL);
+    }
+    
+    synchronized void retire() {
+      if (isRetired) return;
+      isRetired = true;
+      if (numRequests == 0) client.close(CloseMode.GRACEFUL);
+    }
+  }
 
-    // execute request
-    CloseableHttpResponse httpResponse = closeableHttpClient.execute(request, context);
-    return httpResponse;
+  /**
+   * Response entity which records the number of bytes read from its content.
+   */
+  private static class CountingEntity extends HttpEntityWrapper {
+    
+    private final MoneroRpcMetrics.Request metricsRequest;
+    
+    CountingEntity(HttpEntity entity, MoneroRpcMetrics.Request metricsRequest) {
+      super(entity);
+      this.metricsRequest = metricsRequest;
+    }
+    
+    @Override
+    public InputStream getContent() throws IOException {
+      return new FilterInputStream(super.getContent()) {
+        
+        @Override
+        public int read() throws IOException {
+          int b = super.read();
+          if (b != -1) metricsRequest.addResponseBytes(1);
+          return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          int numBytes = super.read(b, off, len);
+          if (numBytes > 0) metricsRequest.addResponseBytes(numBytes);
+          return numBytes;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+          long numBytes = super.skip(n);
+          if (numBytes > 0) metricsRequest.addResponseBytes(numBytes);
+          return numBytes;
+        }
+      };
+    }
+    
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      try (InputStream in = getContent()) {
+        byte[] buf = new byte[8192];
+        int numBytes;
+        while ((numBytes = in.read(buf)) != -1) out.write(buf, 0, numBytes);
+      }
+    }
   }
 
   /**
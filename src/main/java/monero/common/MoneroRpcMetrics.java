@@ -0,0 +1,297 @@
+package monero.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects request statistics of one or more RPC connections by json-rpc method or path.<br><br>
+ * 
+ * Statistics include request counts, latency percentiles, request and response sizes, error
+ * counts by code, and requests in flight. They are available directly, through listeners
+ * notified of each request, or over JMX after calling registerMBean().<br><br>
+ * 
+ * Example:<br><br>
+ * 
+ * <code>
+ * MoneroRpcMetrics metrics = new MoneroRpcMetrics().registerMBean("daemon");<br>
+ * connection.setMetrics(metrics);<br>
+ * ...<br>
+ * System.out.println(metrics.getStats("get_info"));
+ * </code>
+ */
+public class MoneroRpcMetrics implements MoneroRpcMetricsMXBean {
+  
+  // latency histogram has 4 buckets per power of 2 microseconds, so percentiles are accurate to within 25%
+  private static final int NUM_BUCKETS = 248;
+  
+  private final Map<String, RequestMetrics> requestMetrics = new ConcurrentHashMap<String, RequestMetrics>();
+  private final List<MoneroRpcMetricsListener> listeners = new CopyOnWriteArrayList<MoneroRpcMetricsListener>();
+  private ObjectName objectName;
+  
+  /**
+   * Add a listener to be notified of each completed request.
+   * 
+   * @param listener is the listener to add
+   * @return this metrics registry
+   */
+  public MoneroRpcMetrics addListener(MoneroRpcMetricsListener listener) {
+    listeners.add(listener);
+    return this;
+  }
+  
+  /**
+   * Remove a listener.
+   * 
+   * @param listener is the listener to remove
+   * @return this metrics registry
+   */
+  public MoneroRpcMetrics removeListener(MoneroRpcMetricsListener listener) {
+    if (!listeners.remove(listener)) throw new MoneroError("Metrics listener is not registered");
+    return this;
+  }
+  
+  public List<MoneroRpcMetricsListener> getListeners() {
+    return new ArrayList<MoneroRpcMetricsListener>(listeners);
+  }
+  
+  @Override
+  public long getNumRequests() {
+    long numRequests = 0;
+    for (RequestMetrics metrics : requestMetrics.values()) numRequests += metrics.numRequests.sum();
+    return numRequests;
+  }
+  
+  @Override
+  public long getNumErrors() {
+    long numErrors = 0;
+    for (RequestMetrics metrics : requestMetrics.values()) numErrors += metrics.numErrors.sum();
+    return numErrors;
+  }
+  
+  @Override
+  public int getNumInFlight() {
+    int numInFlight = 0;
+    for (RequestMetrics metrics : requestMetrics.values()) numInFlight += metrics.numInFlight.get();
+    return numInFlight;
+  }
+  
+  @Override
+  public Map<String, MoneroRpcStats> getStats() {
+    Map<String, MoneroRpcStats> stats = new TreeMap<String, MoneroRpcStats>();
+    for (Map.Entry<String, RequestMetrics> entry : requestMetrics.entrySet()) stats.put(entry.getKey(), entry.getValue().getStats(entry.getKey()));
+    return stats;
+  }
+  
+  /**
+   * Get request statistics for a json-rpc method or path.
+   * 
+   * @param name is the json-rpc method or path
+   * @return the request statistics or null if no requests have been sent
+   */
+  public MoneroRpcStats getStats(String name) {
+    RequestMetrics metrics = requestMetrics.get(name);
+    return metrics == null ? null : metrics.getStats(name);
+  }
+  
+  @Override
+  public void reset() {
+    requestMetrics.clear();
+  }
+  
+  /**
+   * Register this metrics registry with the platform MBean server under
+   * <code>monero.common:type=MoneroRpcMetrics,name=&lt;name&gt;</code>.
+   * 
+   * @param name identifies this metrics registry
+   * @return this metrics registry
+   */
+  public synchronized MoneroRpcMetrics registerMBean(String name) {
+    if (objectName != null) throw new MoneroError("Metrics are already registered as MBean: " + objectName);
+    try {
+      ObjectName objectName = new ObjectName("monero.common:type=MoneroRpcMetrics,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+      return this;
+    } catch (Exception e) {
+      throw new MoneroError(e);
+    }
+  }
+  
+  /**
+   * Unregister this metrics registry from the platform MBean server.
+   * 
+   * @return this metrics registry
+   */
+  public synchronized MoneroRpcMetrics unregisterMBean() {
+    if (objectName == null) return this;
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+      objectName = null;
+      return this;
+    } catch (Exception e) {
+      throw new MoneroError(e);
+    }
+  }
+  
+  // ------------------------------ PACKAGE HELPERS ---------------------------
+  
+  /**
+   * Start timing a request.
+   * 
+   * @param metrics is the metrics registry to record to, or null to not record
+   * @param uri is the uri of the connection sending the request
+   * @param name is the json-rpc method or path of the request
+   * @return the request to complete when its response is processed
+   */
+  static Request startRequest(MoneroRpcMetrics metrics, String uri, String name) {
+    return new Request(metrics, uri, name);
+  }
+  
+  /**
+   * A request being timed, which is a no-op if not recording to a registry.
+   */
+  static class Request {
+    
+    private final MoneroRpcMetrics metrics;
+    private final String uri;
+    private final String name;
+    private final RequestMetrics requestMetrics;
+    private final long startTime;
+    private long requestBytes;
+    private long responseBytes;
+    private boolean isEnded;
+    
+    private Request(MoneroRpcMetrics metrics, String uri, String name) {
+      this.metrics = metrics;
+      this.uri = uri;
+      this.name = name;
+      this.requestMetrics = metrics == null ? null : metrics.getRequestMetrics(name);
+      this.startTime = metrics == null ? 0 : System.nanoTime();
+      if (requestMetrics != null) requestMetrics.numInFlight.incrementAndGet();
+    }
+    
+    void setRequestBytes(long requestBytes) {
+      this.requestBytes = Math.max(0, requestBytes);
+    }
+    
+    void setResponseBytes(long responseBytes) {
+      this.responseBytes = Math.max(0, responseBytes);
+    }
+    
+    void addResponseBytes(long numBytes) {
+      responseBytes += numBytes;
+    }
+    
+    <T> T complete(T result) {
+      end(null);
+      return result;
+    }
+    
+    <E extends MoneroError> E fail(E error) {
+      end(error);
+      return error;
+    }
+    
+    synchronized void end(MoneroError error) {
+      if (metrics == null || isEnded) return;
+      isEnded = true;
+      long durationNs = System.nanoTime() - startTime;
+      metrics.record(uri, name, requestMetrics, durationNs, requestBytes, responseBytes, error);
+    }
+  }
+  
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+  
+  private RequestMetrics getRequestMetrics(String name) {
+    return requestMetrics.computeIfAbsent(name, key -> new RequestMetrics());
+  }
+  
+  private void record(String uri, String name, RequestMetrics metrics, long durationNs, long requestBytes, long responseBytes, MoneroError error) {
+    long durationUs = durationNs / 1000;
+    metrics.numInFlight.decrementAndGet();
+    metrics.numRequests.increment();
+    metrics.totalUs.add(durationUs);
+    metrics.maxUs.accumulateAndGet(durationUs, Math::max);
+    metrics.histogram.incrementAndGet(getBucket(durationUs));
+    metrics.requestBytes.add(requestBytes);
+    metrics.responseBytes.add(responseBytes);
+    if (error != null) {
+      metrics.numErrors.increment();
+      if (error.getCode() != null) metrics.errorCounts.computeIfAbsent(error.getCode(), code -> new LongAdder()).increment();
+    }
+    for (MoneroRpcMetricsListener listener : listeners) listener.onRequest(uri, name, durationNs / 1000000d, requestBytes, responseBytes, error);
+  }
+  
+  private static int getBucket(long durationUs) {
+    if (durationUs < 4) return (int) Math.max(0, durationUs);
+    int exponent = 63 - Long.numberOfLeadingZeros(durationUs);
+    int subBucket = (int) ((durationUs >>> (exponent - 2)) & 3);
+    return Math.min(NUM_BUCKETS - 1, (exponent - 1) * 4 + subBucket);
+  }
+  
+  private static long getBucketUpperBoundUs(int bucket) {
+    if (bucket < 4) return bucket;
+    int exponent = bucket / 4 + 1;
+    int subBucket = bucket % 4;
+    return ((5l + subBucket) << (exponent - 2)) - 1;
+  }
+  
+  /**
+   * Accumulates statistics for one json-rpc method or path.
+   */
+  private static class RequestMetrics {
+    final LongAdder numRequests = new LongAdder();
+    final LongAdder numErrors = new LongAdder();
+    final AtomicInteger numInFlight = new AtomicInteger();
+    final LongAdder totalUs = new LongAdder();
+    final AtomicLong maxUs = new AtomicLong();
+    final AtomicLongArray histogram = new AtomicLongArray(NUM_BUCKETS);
+    final LongAdder requestBytes = new LongAdder();
+    final LongAdder responseBytes = new LongAdder();
+    final Map<Integer, LongAdder> errorCounts = new ConcurrentHashMap<Integer, LongAdder>();
+    
+    MoneroRpcStats getStats(String name) {
+      long[] counts = new long[NUM_BUCKETS];
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) total += counts[i] = histogram.get(i);
+      long numRequests = this.numRequests.sum();
+      Map<Integer, Long> errorCounts = new TreeMap<Integer, Long>();
+      for (Map.Entry<Integer, LongAdder> entry : this.errorCounts.entrySet()) errorCounts.put(entry.getKey(), entry.getValue().sum());
+      return new MoneroRpcStats(name,
+          numRequests,
+          numErrors.sum(),
+          numInFlight.get(),
+          numRequests == 0 ? 0 : totalUs.sum() / 1000d / numRequests,
+          getPercentileMs(counts, total, 0.5),
+          getPercentileMs(counts, total, 0.99),
+          maxUs.get() / 1000d,
+          requestBytes.sum(),
+          responseBytes.sum(),
+          errorCounts);
+    }
+    
+    private double getPercentileMs(long[] counts, long total, double percentile) {
+      if (total == 0) return 0;
+      long threshold = (long) Math.ceil(total * percentile);
+      long count = 0;
+      for (int i = 0; i < counts.length; i++) {
+        count += counts[i];
+        if (count >= threshold) return Math.min(getBucketUpperBoundUs(i), maxUs.get()) / 1000d;
+      }
+      return maxUs.get() / 1000d;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package monero.common;
+
+/**
+ * Receives notifications of completed RPC requests from MoneroRpcMetrics.
+ */
+public interface MoneroRpcMetricsListener {
+
+  /**
+   * Notified when a request completes successfully or with an error.
+   * 
+   * @param uri is the uri of the connection which sent the request
+   * @param name is the json-rpc method or path of the request
+   * @param durationMs is the time from sending the request to processing its response
+   * @param requestBytes is the size of the request body in bytes
+   * @param responseBytes is the size of the response body in bytes, or 0 if unknown
+   * @param error is the error if the request failed, null otherwise
+   */
+  public void onRequest(String uri, String name, double durationMs, long requestBytes, long responseBytes, MoneroError error);
+}
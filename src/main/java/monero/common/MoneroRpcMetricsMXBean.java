@@ -0,0 +1,42 @@
+package monero.common;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of MoneroRpcMetrics.
+ */
+public interface MoneroRpcMetricsMXBean {
+  
+  /**
+   * Get the total number of requests completed.
+   * 
+   * @return the total number of requests completed
+   */
+  public long getNumRequests();
+  
+  /**
+   * Get the total number of requests which failed.
+   * 
+   * @return the total number of requests which failed
+   */
+  public long getNumErrors();
+  
+  /**
+   * Get the number of requests currently in flight.
+   * 
+   * @return the number of requests currently in flight
+   */
+  public int getNumInFlight();
+  
+  /**
+   * Get request statistics by json-rpc method or path.
+   * 
+   * @return request statistics by json-rpc method or path
+   */
+  public Map<String, MoneroRpcStats> getStats();
+  
+  /**
+   * Clear all statistics.
+   */
+  public void reset();
+}
@@ -0,0 +1,37 @@
+package monero.common;
+
+/**
+ * A JSON-RPC request with a method and optional parameters.
+ */
+public class MoneroRpcRequest {
+
+  private String method;
+  private Object params;
+  
+  public MoneroRpcRequest(String method) {
+    this(method, null);
+  }
+  
+  public MoneroRpcRequest(String method, Object params) {
+    this.method = method;
+    this.params = params;
+  }
+  
+  public String getMethod() {
+    return method;
+  }
+  
+  public MoneroRpcRequest setMethod(String method) {
+    this.method = method;
+    return this;
+  }
+  
+  public Object getParams() {
+    return params;
+  }
+  
+  public MoneroRpcRequest setParams(Object params) {
+    this.params = params;
+    return this;
+  }
+}
@@ -0,0 +1,48 @@
+package monero.common;
+
+import java.util.Map;
+
+/**
+ * The response to one request of a JSON-RPC batch, which is either the
+ * deserialized response or the error returned for the request.
+ */
+public class MoneroRpcResponse {
+
+  private Map<String, Object> response;
+  private MoneroRpcError error;
+  
+  public MoneroRpcResponse(Map<String, Object> response) {
+    this.response = response;
+  }
+  
+  public MoneroRpcResponse(MoneroRpcError error) {
+    this.error = error;
+  }
+  
+  /**
+   * Get the deserialized response, which contains the "result" of the request.
+   * 
+   * @return the deserialized response or null if the request failed
+   */
+  public Map<String, Object> getResponse() {
+    return response;
+  }
+  
+  /**
+   * Get the error returned for the request.
+   * 
+   * @return the error returned for the request or null if the request succeeded
+   */
+  public MoneroRpcError getError() {
+    return error;
+  }
+  
+  /**
+   * Indicates if the request failed.
+   * 
+   * @return true if the request failed, false otherwise
+   */
+  public boolean isError() {
+    return error != null;
+  }
+}
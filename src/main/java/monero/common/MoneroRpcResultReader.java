@@ -0,0 +1,24 @@
+package monero.common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+
+/**
+ * Reads the result of a RPC request directly from the response stream.
+ * 
+ * @param <T> the type read from the result
+ */
+public interface MoneroRpcResultReader<T> {
+
+  /**
+   * Read the result from a streaming parser positioned at the result's first token.
+   * 
+   * The reader must consume the result's tokens through its last token (e.g. the
+   * result's closing END_OBJECT).
+   * 
+   * @param parser is the streaming parser positioned at the result's first token
+   * @return the value read from the result
+   * @throws IOException if the result cannot be read
+   */
+  public T read(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,116 @@
+package monero.common;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of request statistics for one json-rpc method or path.
+ */
+public class MoneroRpcStats {
+
+  private String name;
+  private long numRequests;
+  private long numErrors;
+  private int numInFlight;
+  private double meanMs;
+  private double p50Ms;
+  private double p99Ms;
+  private double maxMs;
+  private long requestBytes;
+  private long responseBytes;
+  private Map<Integer, Long> errorCounts;
+  
+  MoneroRpcStats(String name, long numRequests, long numErrors, int numInFlight, double meanMs, double p50Ms, double p99Ms, double maxMs, long requestBytes, long responseBytes, Map<Integer, Long> errorCounts) {
+    this.name = name;
+    this.numRequests = numRequests;
+    this.numErrors = numErrors;
+    this.numInFlight = numInFlight;
+    this.meanMs = meanMs;
+    this.p50Ms = p50Ms;
+    this.p99Ms = p99Ms;
+    this.maxMs = maxMs;
+    this.requestBytes = requestBytes;
+    this.responseBytes = responseBytes;
+    this.errorCounts = Collections.unmodifiableMap(errorCounts);
+  }
+  
+  /**
+   * Get the json-rpc method or path of the requests.
+   * 
+   * @return the json-rpc method or path of the requests
+   */
+  public String getName() {
+    return name;
+  }
+  
+  public long getNumRequests() {
+    return numRequests;
+  }
+  
+  public long getNumErrors() {
+    return numErrors;
+  }
+  
+  public int getNumInFlight() {
+    return numInFlight;
+  }
+  
+  public double getMeanMs() {
+    return meanMs;
+  }
+  
+  /**
+   * Get the median request time, accurate to within 25%.
+   * 
+   * @return the median request time in milliseconds
+   */
+  public double getP50Ms() {
+    return p50Ms;
+  }
+  
+  /**
+   * Get the 99th percentile request time, accurate to within 25%.
+   * 
+   * @return the 99th percentile request time in milliseconds
+   */
+  public double getP99Ms() {
+    return p99Ms;
+  }
+  
+  public double getMaxMs() {
+    return maxMs;
+  }
+  
+  /**
+   * Get the total size of request bodies.
+   * 
+   * @return the total size of request bodies in bytes
+   */
+  public long getRequestBytes() {
+    return requestBytes;
+  }
+  
+  /**
+   * Get the total size of response bodies, excluding responses of unknown length.
+   * 
+   * @return the total size of response bodies in bytes
+   */
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+  
+  /**
+   * Get the number of errors by error code, which is the http status code or
+   * the json-rpc error code. Errors without a code are only counted in getNumErrors().
+   * 
+   * @return the number of errors by error code
+   */
+  public Map<Integer, Long> getErrorCounts() {
+    return errorCounts;
+  }
+  
+  @Override
+  public String toString() {
+    return name + " (numRequests=" + numRequests + ", numErrors=" + numErrors + ", numInFlight=" + numInFlight + ", meanMs=" + String.format("%.3f", meanMs) + ", p50Ms=" + String.format("%.3f", p50Ms) + ", p99Ms=" + String.format("%.3f", p99Ms) + ", maxMs=" + String.format("%.3f", maxMs) + ", requestBytes=" + requestBytes + ", responseBytes=" + responseBytes + ", errorCounts=" + errorCounts + ")";
+  }
+}
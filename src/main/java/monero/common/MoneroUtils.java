@@ -1,30 +1,37 @@
 package monero.common;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import common.utils.GenUtils;
-import common.utils.JsonUtils;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestException;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 import monero.daemon.model.MoneroNetworkType;
 import monero.daemon.model.MoneroTx;
+import monero.wallet.model.MoneroAddress;
 import monero.wallet.model.MoneroAddressType;
 import monero.wallet.model.MoneroDecodedAddress;
 import monero.wallet.model.MoneroIntegratedAddress;
 import monero.wallet.model.MoneroTxConfig;
-import org.apache.commons.codec.binary.Hex;
 import org.bouncycastle.jcajce.provider.digest.Keccak;
 
 /**
@@ -136,7 +143,7 @@ public class MoneroUtils {
    */
   public static boolean isNativeLibraryLoaded() {
     try {
-      jsonToBinaryJni(JsonUtils.serialize(new HashMap<>()));
+      setLogLevelJni(LOG_LEVEL); // keeps native log level in sync
       return true;
     } catch (Exception | UnsatisfiedLinkError e) {
       return false;
@@ -149,31 +156,16 @@ public class MoneroUtils {
   private static long AU_PER_XMR = 1000000000000l;
   private static final int NUM_MNEMONIC_WORDS = 25;
   private static final int VIEW_KEY_LENGTH = 64;
-  private static final String ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
-  private static final List<Character> CHARS = new ArrayList<Character>();
-  static {
-    for (char c : ALPHABET.toCharArray()) {
-      CHARS.add(c);
-    }
-  }
-  private final static BigDecimal ALPHABET_SIZE = new BigDecimal(ALPHABET.length());
-  private final static Map<Integer, Integer> ENCODED_BLOCK_SIZE = new HashMap<Integer, Integer>();
-  static {
-      ENCODED_BLOCK_SIZE.put(0, 0);
-      ENCODED_BLOCK_SIZE.put(2, 1);
-      ENCODED_BLOCK_SIZE.put(3, 2);
-      ENCODED_BLOCK_SIZE.put(5, 3);
-      ENCODED_BLOCK_SIZE.put(6, 4);
-      ENCODED_BLOCK_SIZE.put(7, 5);
-      ENCODED_BLOCK_SIZE.put(9, 6);
-      ENCODED_BLOCK_SIZE.put(10, 7);
-      ENCODED_BLOCK_SIZE.put(11, 8);
-  };
-  private final static int FULL_BLOCK_SIZE = 8;
-  private final static int FULL_ENCODED_BLOCK_SIZE = 11;
-  private final static BigDecimal UINT64_MAX = new BigDecimal(Math.pow(2, 64));
-  private final static Pattern STANDARD_ADDRESS_PATTERN = Pattern.compile("^[" + ALPHABET + "]{95}$");
-  private final static Pattern INTEGRATED_ADDRESS_PATTERN = Pattern.compile("^[" + ALPHABET + "]{106}$");
+  private static volatile boolean isBinaryBlocksBufferSupported = true; // false if the native library predates reading buffers
+  private final static int STANDARD_ADDRESS_LENGTH = 95;
+  private final static int INTEGRATED_ADDRESS_LENGTH = 106;
+  private final static int ADDRESS_CHECKSUM_LENGTH = 4;
+  private final static int PUBLIC_KEY_LENGTH = 32;
+  private final static int PAYMENT_ID_LENGTH = 8;
+  private final static int DEFAULT_ADDRESS_CACHE_SIZE = 10000;
+  private final static ThreadLocal<AddressCodec> ADDRESS_CODEC = ThreadLocal.withInitial(AddressCodec::new);
+  private final static AddressCache ADDRESS_CACHE = new AddressCache(DEFAULT_ADDRESS_CACHE_SIZE);
+  private final static SecureRandom RANDOM = new SecureRandom();
   
   /**
    * Indicates if a wallet keys file exists at the given path.
@@ -309,12 +301,86 @@ public class MoneroUtils {
    * @return the integrated address
    */
   public static MoneroIntegratedAddress getIntegratedAddress(MoneroNetworkType networkType, String standardAddress, String paymentId) {
-    loadNativeLibrary();
-    try {
-      return JsonUtils.deserialize(getIntegratedAddressJni(networkType.ordinal(), standardAddress, paymentId == null ? "" : paymentId), MoneroIntegratedAddress.class);
-    } catch (Exception err) {
-      throw new MoneroError(err.getMessage());
+    MoneroAddress address = decodeAddressKeys(standardAddress);
+    if (address.getNetworkType() != networkType) throw new MoneroError("Address network type mismatch: " + networkType + " vs " + address.getNetworkType());
+    if (address.getAddressType() == MoneroAddressType.INTEGRATED_ADDRESS) throw new MoneroError("The given address already has a payment id");
+    if (paymentId == null || paymentId.isEmpty()) {
+      byte[] paymentIdBytes = new byte[PAYMENT_ID_LENGTH];
+      RANDOM.nextBytes(paymentIdBytes);
+      paymentId = AddressCodec.toHex(paymentIdBytes, 0, PAYMENT_ID_LENGTH);
+    }
+    MoneroAddress integratedAddress = encodeAddress(networkType, MoneroAddressType.INTEGRATED_ADDRESS, address.getPublicSpendKey(), address.getPublicViewKey(), paymentId);
+    return new MoneroIntegratedAddress(standardAddress, integratedAddress.getPaymentId(), integratedAddress.getAddress());
+  }
+  
+  /**
+   * Decodes an address to its network, type, public keys and payment id.<br><br>
+   * 
+   * Decoded addresses are cached, so decoding the same address again returns the same instance.
+   * 
+   * @param address is the address to decode
+   * @return the decoded address
+   * @throws MoneroError if the address is invalid
+   */
+  public static MoneroAddress decodeAddressKeys(String address) {
+    MoneroAddress decodedAddress = ADDRESS_CACHE.get(address);
+    if (decodedAddress != null) return decodedAddress;
+    AddressCodec codec = ADDRESS_CODEC.get();
+    String error = codec.decode(address);
+    if (error != null) throw new MoneroError(error);
+    decodedAddress = codec.toAddress(address);
+    ADDRESS_CACHE.put(decodedAddress);
+    return decodedAddress;
+  }
+  
+  /**
+   * Encodes an address from its network, type, public keys and payment id.
+   * 
+   * @param networkType is the network type of the address
+   * @param addressType is the type of the address
+   * @param publicSpendKey is the public spend key as 64 hex characters
+   * @param publicViewKey is the public view key as 64 hex characters
+   * @param paymentId is the payment id as 16 hex characters if an integrated address, otherwise null
+   * @return the encoded address
+   * @throws MoneroError if a key or the payment id is invalid
+   */
+  public static MoneroAddress encodeAddress(MoneroNetworkType networkType, MoneroAddressType addressType, String publicSpendKey, String publicViewKey, String paymentId) {
+    if (networkType == null) throw new MoneroError("Must provide network type");
+    if (addressType == null) throw new MoneroError("Must provide address type");
+    validatePublicSpendKey(publicSpendKey);
+    validatePublicViewKey(publicViewKey);
+    int addressCode;
+    switch (addressType) {
+      case PRIMARY_ADDRESS: addressCode = networkType.getPrimaryAddressCode(); break;
+      case SUBADDRESS: addressCode = networkType.getSubaddressCode(); break;
+      case INTEGRATED_ADDRESS:
+        if (paymentId == null || paymentId.length() != 2 * PAYMENT_ID_LENGTH || !GenUtils.isHex(paymentId)) throw new MoneroError("Invalid payment id");
+        addressCode = networkType.getIntegratedAddressCode();
+        break;
+      default: throw new MoneroError("Unsupported address type: " + addressType);
     }
+    if (addressType != MoneroAddressType.INTEGRATED_ADDRESS && paymentId != null && !paymentId.isEmpty()) throw new MoneroError("Payment id requires integrated address type");
+    AddressCodec codec = ADDRESS_CODEC.get();
+    return codec.toAddress(codec.encode(networkType, addressType, addressCode, publicSpendKey, publicViewKey, addressType == MoneroAddressType.INTEGRATED_ADDRESS ? paymentId : null));
+  }
+  
+  /**
+   * Set the maximum number of decoded addresses to cache.
+   * 
+   * @param addressCacheSize is the maximum number of decoded addresses to cache, or 0 to disable caching (default 10000)
+   */
+  public static void setAddressCacheSize(int addressCacheSize) {
+    if (addressCacheSize < 0) throw new MoneroError("Address cache size must be >= 0");
+    ADDRESS_CACHE.setMaxSize(addressCacheSize);
+  }
+  
+  /**
+   * Get the maximum number of decoded addresses to cache.
+   * 
+   * @return the maximum number of decoded addresses to cache
+   */
+  public static int getAddressCacheSize() {
+    return ADDRESS_CACHE.getMaxSize();
   }
   
   /**
@@ -324,54 +390,10 @@ public class MoneroUtils {
    * @return the decoded address and network types
    */
   public static MoneroDecodedAddress decodeAddress(String address) {
-    GenUtils.assertNotNull("Address is null", address);
-    
-    // determine if address has integrated address pattern
-    boolean isIntegrated = false;
-    if (!STANDARD_ADDRESS_PATTERN.matcher(address).matches()) {
-      if (INTEGRATED_ADDRESS_PATTERN.matcher(address).matches()) {
-        isIntegrated = true;
-      } else {
-        throw new MoneroError("Address has invalid regex pattern");
-      }
-    }
-    
-    // decode address to hex string
-    String addressHex = decodeAddressToHex(address);
-    
-    // validate address hash
-    GenUtils.assertTrue("Address has invalid hash", isValidAddressHash(addressHex));
-    
-    // get address code
-    int addressCode = Integer.parseInt(addressHex.substring(0, 2), 16);
-    
-    // determine network and address types
-    MoneroAddressType addressType = null;
-    MoneroNetworkType networkType = null;
-    for (MoneroNetworkType aNetworkType : MoneroNetworkType.values()) {
-      if (addressCode == aNetworkType.getPrimaryAddressCode()) {
-        GenUtils.assertFalse("Address has primary address code but integrated address pattern", isIntegrated);
-        addressType = MoneroAddressType.PRIMARY_ADDRESS;
-        networkType = aNetworkType;
-        break;
-      } else if (addressCode == aNetworkType.getIntegratedAddressCode()) {
-        GenUtils.assertTrue("Address has integrated address code but non-integrated address pattern", isIntegrated);
-        addressType = MoneroAddressType.INTEGRATED_ADDRESS;
-        networkType = aNetworkType;
-        break;
-      } else if (addressCode == aNetworkType.getSubaddressCode()) {
-        GenUtils.assertFalse("Address has subaddress code but integrated address pattern", isIntegrated);
-        addressType = MoneroAddressType.SUBADDRESS;
-        networkType = aNetworkType;
-        break;
-      }
-    }
-    
-    // validate address and network types
-    GenUtils.assertTrue("Address has invalid code: " + addressCode, addressType != null && networkType != null);
-    
-    // return decoded address
-    return new MoneroDecodedAddress(address, addressType, networkType);
+    AddressCodec codec = ADDRESS_CODEC.get();
+    String error = codec.decode(address);
+    if (error != null) throw new MoneroError(error);
+    return new MoneroDecodedAddress(address, codec.addressType, codec.networkType);
   }
   
   /**
@@ -382,12 +404,8 @@ public class MoneroUtils {
    * @return true if the address is valid, false otherwise
    */
   public static boolean isValidAddress(String address, MoneroNetworkType networkType) {
-      try {
-        validateAddress(address, networkType);
-        return true;
-      } catch (MoneroError e) {
-        return false;
-      }
+    AddressCodec codec = ADDRESS_CODEC.get();
+    return codec.decode(address) == null && codec.networkType == networkType;
   }
   
   /**
@@ -397,12 +415,10 @@ public class MoneroUtils {
    * @param networkType is the address's network type
    */
   public static void validateAddress(String address, MoneroNetworkType networkType) {
-    try {
-      MoneroDecodedAddress decodedAddress = decodeAddress(address);
-      GenUtils.assertEquals("Address network type mismatch: " + networkType + " vs " + decodedAddress.getNetworkType(), networkType, decodedAddress.getNetworkType());
-    } catch (AssertionError e) {
-      throw new MoneroError(e.getMessage());
-    }
+    AddressCodec codec = ADDRESS_CODEC.get();
+    String error = codec.decode(address);
+    if (error != null) throw new MoneroError(error);
+    if (codec.networkType != networkType) throw new MoneroError("Address network type mismatch: " + networkType + " vs " + codec.networkType);
   }
 
   // TODO: improve validation
@@ -441,9 +457,7 @@ public class MoneroUtils {
   }
 
   public static void validateBase58(String standardAddress) {
-    for (char c : standardAddress.toCharArray()) {
-      if (!CHARS.contains(c)) throw new MoneroError("Invalid Base58 " + standardAddress);
-    }
+    if (!MoneroBase58.isBase58(standardAddress)) throw new MoneroError("Invalid Base58 " + standardAddress);
   }
   
   /**
@@ -482,47 +496,95 @@ public class MoneroUtils {
     txs.add(tx);
   }
   
+  /**
+   * Serialize a map to Monero's portable storage binary format.
+   * 
+   * @param map is the map to serialize
+   * @return the map in portable storage binary format
+   */
   public static byte[] mapToBinary(Map<String, Object> map) {
-    loadNativeLibrary();
-    return jsonToBinaryJni(JsonUtils.serialize(map));
+    ByteBuffer buf = MoneroPortableStorage.serialize(map);
+    return Arrays.copyOf(buf.array(), buf.limit());
   }
   
+  /**
+   * Deserialize a map from Monero's portable storage binary format.
+   * 
+   * @param bin is the map in portable storage binary format
+   * @return the deserialized map
+   */
   public static Map<String, Object> binaryToMap(byte[] bin) {
-    loadNativeLibrary();
-    return JsonUtils.deserialize(binaryToJsonJni(bin), new TypeReference<Map<String, Object>>(){});
+    return MoneroPortableStorage.deserialize(ByteBuffer.wrap(bin));
   }
   
-  @SuppressWarnings("unchecked")
+  /**
+   * Deserialize blocks and their transactions from the binary response of get_blocks_by_height.bin.<br><br>
+   * 
+   * The native library decodes the blocks to json which embeds each block and transaction as a json string.
+   * The json is read in one pass, parsing each embedded block and transaction from the parser's text buffer
+   * instead of building intermediate strings.
+   * 
+   * @param binBlocks is the binary response of get_blocks_by_height.bin
+   * @return a map with the response fields, "blocks" as a list of block maps, and "txs" as a list of transaction maps per block
+   */
   public static Map<String, Object> binaryBlocksToMap(byte[] binBlocks) {
-    
-    // convert binary blocks to json then to map
     loadNativeLibrary();
-    Map<String, Object> map = JsonUtils.deserialize(MoneroRpcConnection.MAPPER, binaryBlocksToJsonJni(binBlocks), new TypeReference<Map<String, Object>>(){});
-    
-    // parse blocks to maps
-    List<Map<String, Object>> blockMaps = new ArrayList<Map<String, Object>>();
-    for (String blockStr : (List<String>) map.get("blocks")) {
-      blockMaps.add(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, blockStr, new TypeReference<Map<String, Object>>(){}));
+    return binaryBlocksJsonToMap(binaryBlocksToJsonJni(binBlocks));
+  }
+  
+  /**
+   * Deserialize blocks and their transactions from the binary response of get_blocks_by_height.bin.<br><br>
+   * 
+   * A direct buffer is read by the native library in place, without copying it to the java heap, unless
+   * the loaded native library predates reading buffers, in which case the buffer is copied to an array.
+   * 
+   * @param binBlocks is the binary response of get_blocks_by_height.bin from its position to its limit
+   * @return a map with the response fields, "blocks" as a list of block maps, and "txs" as a list of transaction maps per block
+   */
+  public static Map<String, Object> binaryBlocksToMap(ByteBuffer binBlocks) {
+    if (!binBlocks.isDirect() || !isBinaryBlocksBufferSupported) {
+      if (binBlocks.hasArray() && binBlocks.arrayOffset() == 0 && binBlocks.position() == 0 && binBlocks.limit() == binBlocks.array().length) return binaryBlocksToMap(binBlocks.array());
+      byte[] bytes = new byte[binBlocks.remaining()];
+      binBlocks.duplicate().get(bytes);
+      return binaryBlocksToMap(bytes);
     }
-    map.put("blocks", blockMaps); // overwrite block strings
-    
-    // parse txs to maps, one array of txs per block
-    List<List<Map<String, Object>>> allTxs = new ArrayList<List<Map<String, Object>>>();
-    List<Object> rpcAllTxs = (List<Object>) map.get("txs");
-    for (Object rpcTxs : rpcAllTxs) {
-      if ("".equals(rpcTxs)) {
-        allTxs.add(new ArrayList<Map<String, Object>>());
-      } else {
-        List<Map<String, Object>> txs = new ArrayList<Map<String, Object>>();
-        allTxs.add(txs);
-        for (String rpcTx : (List<String>) rpcTxs) {
-          txs.add(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, rpcTx.replaceFirst(",", "{") + "}", new TypeReference<Map<String, Object>>(){})); // modify tx string to proper json and parse // TODO: more efficient way than this json manipulation?
+    loadNativeLibrary();
+    String json;
+    try {
+      json = binaryBlocksBufferToJsonJni(binBlocks, binBlocks.position(), binBlocks.remaining());
+    } catch (UnsatisfiedLinkError e) {
+      isBinaryBlocksBufferSupported = false; // native library does not export the buffer function
+      return binaryBlocksToMap(binBlocks);
+    }
+    return binaryBlocksJsonToMap(json);
+  }
+  
+  private static Map<String, Object> binaryBlocksJsonToMap(String json) {
+    Map<String, Object> map = new HashMap<String, Object>();
+    JsonFactory factory = MoneroRpcConnection.MAPPER.getFactory();
+    try (JsonParser parser = factory.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) throw new MoneroError("Binary blocks json is not an object");
+      EmbeddedJsonReader reader = new EmbeddedJsonReader(factory);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if ("blocks".equals(field)) {
+          map.put("blocks", reader.readMaps(parser, false));
+        } else if ("txs".equals(field)) {
+          
+          // parse txs to maps, one list of txs per block
+          List<List<Map<String, Object>>> allTxs = new ArrayList<List<Map<String, Object>>>();
+          if (token == JsonToken.START_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) allTxs.add(reader.readMaps(parser, true));
+          }
+          map.put("txs", allTxs);
+        } else {
+          map.put(field, MoneroRpcConnection.MAPPER.readValue(parser, Object.class));
         }
       }
+    } catch (IOException e) {
+      throw new MoneroError(e);
     }
-    map.put("txs", allTxs); // overwrite tx strings
-
-    // return map containing blocks and txs as maps
     return map;
   }
   
@@ -625,10 +687,8 @@ public class MoneroUtils {
   
   // ---------------------------- NATIVE BINDINGS -----------------------------
   
-  private native static String getIntegratedAddressJni(int networkType, String standardAddress, String paymentId);
-  private native static byte[] jsonToBinaryJni(String json);
-  private native static String binaryToJsonJni(byte[] bin);
   private native static String binaryBlocksToJsonJni(byte[] binBlocks);
+  private native static String binaryBlocksBufferToJsonJni(ByteBuffer binBlocks, int offset, int length);
   private native static void configureLoggingJni(String path, boolean console);
   private native static void setLogLevelJni(int level);
   
@@ -638,111 +698,218 @@ public class MoneroUtils {
     return str != null && str.length() == 64 && GenUtils.isHex(str);
   }
 
-  private static boolean isValidAddressHash(String decodedAddrStr) {
-    String checksumCheck = decodedAddrStr.substring(decodedAddrStr.length() - 8);
-    String withoutChecksumStr = decodedAddrStr.substring(0, decodedAddrStr.length() - 8);
-    byte[] withoutChecksumBytes = hexToBin(withoutChecksumStr);
-
-    Keccak.Digest256 digest256 = new Keccak.Digest256();
-    byte[] hashbytes = digest256.digest(withoutChecksumBytes);
-    String encodedStr = new String(Hex.encodeHex(hashbytes));
-
-    String hashChecksum = encodedStr.substring(0, 8);
-    return hashChecksum != null && hashChecksum.equals(checksumCheck);
-  }
-  
-  private static String decodeAddressToHex(String address) {
-    int[] bin = new int[address.length()];
-    for (int i = 0; i < address.length(); i++) {
-      bin[i] = address.codePointAt(i);
-    }
-
-    int fullBlockCount = (int) Math.floor(bin.length / FULL_ENCODED_BLOCK_SIZE);
-    int lastBlockSize = bin.length % FULL_ENCODED_BLOCK_SIZE;
-    int lastBlockDecodedSize = ENCODED_BLOCK_SIZE.get(lastBlockSize);
-    if (lastBlockDecodedSize < 0) {
-      throw new IllegalArgumentException("Invalid encoded length");
+  /**
+   * Encodes and decodes addresses with buffers and a digest reused per thread.
+   */
+  private static class AddressCodec {
+    
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    private final byte[] data = new byte[MoneroBase58.getDecodedLength(INTEGRATED_ADDRESS_LENGTH)];
+    private final byte[] hash = new byte[32];
+    private final Keccak.Digest256 digest = new Keccak.Digest256();
+    private MoneroAddressType addressType;
+    private MoneroNetworkType networkType;
+    
+    /**
+     * Decode an address and verify its checksum, assigning its address and network types if valid.
+     * 
+     * @param address is the address to decode
+     * @return null if the address is valid, otherwise the reason it's invalid
+     */
+    String decode(String address) {
+      addressType = null;
+      networkType = null;
+      if (address == null) return "Address is null";
+      boolean isIntegrated = address.length() == INTEGRATED_ADDRESS_LENGTH;
+      if (address.length() != STANDARD_ADDRESS_LENGTH && !isIntegrated) return "Address has invalid length: " + address.length();
+      int length = MoneroBase58.decode(address, data, 0);
+      if (length < 0) return "Address has invalid Base58 encoding";
+      
+      // verify checksum
+      hashData(length - ADDRESS_CHECKSUM_LENGTH);
+      for (int i = 0; i < ADDRESS_CHECKSUM_LENGTH; i++) {
+        if (hash[i] != data[length - ADDRESS_CHECKSUM_LENGTH + i]) return "Address has invalid hash";
+      }
+      
+      // determine network and address types from address code
+      int addressCode = data[0] & 0xff;
+      for (MoneroNetworkType aNetworkType : MoneroNetworkType.values()) {
+        if (addressCode == aNetworkType.getPrimaryAddressCode()) {
+          if (isIntegrated) return "Address has primary address code but integrated address length";
+          addressType = MoneroAddressType.PRIMARY_ADDRESS;
+        } else if (addressCode == aNetworkType.getIntegratedAddressCode()) {
+          if (!isIntegrated) return "Address has integrated address code but non-integrated address length";
+          addressType = MoneroAddressType.INTEGRATED_ADDRESS;
+        } else if (addressCode == aNetworkType.getSubaddressCode()) {
+          if (isIntegrated) return "Address has subaddress code but integrated address length";
+          addressType = MoneroAddressType.SUBADDRESS;
+        } else {
+          continue;
+        }
+        networkType = aNetworkType;
+        return null;
+      }
+      return "Address has invalid code: " + addressCode;
     }
-
-    int dataSize = fullBlockCount * FULL_BLOCK_SIZE + lastBlockDecodedSize;
-    int[] data = new int[dataSize];
-    for (int i = 0; i < fullBlockCount; i++) {
-      data = decodeBlock(GenUtils.subarray(bin, i * FULL_ENCODED_BLOCK_SIZE, i * FULL_ENCODED_BLOCK_SIZE + FULL_ENCODED_BLOCK_SIZE), data, i * FULL_BLOCK_SIZE);
+    
+    /**
+     * Build an address from the data of the address last decoded or encoded.
+     * 
+     * @param address is the encoded address
+     * @return the address with its parts
+     */
+    MoneroAddress toAddress(String address) {
+      String publicSpendKey = toHex(data, 1, PUBLIC_KEY_LENGTH);
+      String publicViewKey = toHex(data, 1 + PUBLIC_KEY_LENGTH, PUBLIC_KEY_LENGTH);
+      String paymentId = addressType == MoneroAddressType.INTEGRATED_ADDRESS ? toHex(data, 1 + 2 * PUBLIC_KEY_LENGTH, PAYMENT_ID_LENGTH) : null;
+      return new MoneroAddress(address, networkType, addressType, publicSpendKey, publicViewKey, paymentId);
     }
-    if (lastBlockSize > 0) {
-      int[] subarray = GenUtils.subarray(bin, fullBlockCount * FULL_ENCODED_BLOCK_SIZE, fullBlockCount * FULL_ENCODED_BLOCK_SIZE + FULL_BLOCK_SIZE);
-      data = decodeBlock(subarray, data, fullBlockCount * FULL_BLOCK_SIZE);
+    
+    /**
+     * Encode an address from validated parts.
+     * 
+     * @param networkType is the network type of the address
+     * @param addressType is the type of the address
+     * @param addressCode is the network and address type's code, which is a single byte varint
+     * @param publicSpendKey is the public spend key as hex
+     * @param publicViewKey is the public view key as hex
+     * @param paymentId is the payment id as hex if an integrated address, otherwise null
+     * @return the encoded address
+     */
+    String encode(MoneroNetworkType networkType, MoneroAddressType addressType, int addressCode, String publicSpendKey, String publicViewKey, String paymentId) {
+      this.networkType = networkType;
+      this.addressType = addressType;
+      int length = 0;
+      data[length++] = (byte) addressCode;
+      length = fromHex(publicSpendKey, length);
+      length = fromHex(publicViewKey, length);
+      if (paymentId != null) length = fromHex(paymentId, length);
+      hashData(length);
+      System.arraycopy(hash, 0, data, length, ADDRESS_CHECKSUM_LENGTH);
+      length += ADDRESS_CHECKSUM_LENGTH;
+      return MoneroBase58.encode(data, 0, length);
     }
-
-    return binToHex(data);
-  }
-
-  private static int[] decodeBlock(int[] data, int[] buf, int index) {
-
-    if (data.length < 1 || data.length > FULL_ENCODED_BLOCK_SIZE) {
-      throw new RuntimeException("Invalid block length: " + data.length);
+    
+    private void hashData(int length) {
+      digest.update(data, 0, length);
+      try {
+        digest.digest(hash, 0, hash.length);
+      } catch (DigestException e) {
+        throw new MoneroError(e);
+      }
     }
-
-    int resSize = ENCODED_BLOCK_SIZE.get(data.length);
-    if (resSize <= 0) {
-      throw new RuntimeException("Invalid block size");
+    
+    private int fromHex(String hex, int offset) {
+      for (int i = 0; i < hex.length(); i += 2) {
+        data[offset++] = (byte) ((Character.digit(hex.charAt(i), 16) << 4) | Character.digit(hex.charAt(i + 1), 16));
+      }
+      return offset;
     }
-    BigDecimal resNum = BigDecimal.ZERO;
-    BigDecimal order = BigDecimal.ONE;
-    for (int i = data.length - 1; i >= 0; i--) {
-      int digit = ALPHABET.indexOf(data[i]);
-      if (digit < 0) {
-        throw new RuntimeException("Invalid symbol");
+    
+    private static String toHex(byte[] bytes, int offset, int length) {
+      char[] chars = new char[2 * length];
+      for (int i = 0; i < length; i++) {
+        chars[2 * i] = HEX_DIGITS[(bytes[offset + i] >> 4) & 0x0f];
+        chars[2 * i + 1] = HEX_DIGITS[bytes[offset + i] & 0x0f];
       }
-      BigDecimal product = order.multiply(new BigDecimal(digit)).add(resNum);
-      // if product > UINT64_MAX
-      if (product.compareTo(UINT64_MAX) > 0) {
-        throw new RuntimeException("Overflow");
+      return new String(chars);
+    }
+  }
+  
+  /**
+   * Bounded cache of decoded addresses which evicts the least recently used address.
+   */
+  private static class AddressCache {
+    
+    private int maxSize;
+    private LinkedHashMap<String, MoneroAddress> addresses = new LinkedHashMap<String, MoneroAddress>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, MoneroAddress> eldest) {
+        return size() > maxSize;
       }
-      resNum = product;
-      order = order.multiply(ALPHABET_SIZE);
+    };
+    
+    public AddressCache(int maxSize) {
+      this.maxSize = maxSize;
     }
-    if (resSize < FULL_BLOCK_SIZE && (new BigDecimal(2).pow(8 * resSize).compareTo(resNum) <= 0)) {
-      throw new RuntimeException("Overflow 2");
+    
+    public synchronized void setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+      Iterator<String> iter = addresses.keySet().iterator();
+      while (addresses.size() > maxSize) {
+        iter.next();
+        iter.remove();
+      }
     }
-
-    int[] tmpBuf = uint64To8be(resNum, resSize);
-    for (int j = 0; j < tmpBuf.length; j++) {
-      buf[j + index] = tmpBuf[j];
+    
+    public synchronized int getMaxSize() {
+      return maxSize;
     }
-
-    return buf;
-  }
-
-  private static int[] uint64To8be(BigDecimal num, int size) {
-    int[] res = new int[size];
-    if (size < 1 || size > 8) {
-      throw new RuntimeException("Invalid input length");
+    
+    /**
+     * Get a cached address, which is immutable so it's shared rather than copied.
+     * 
+     * @return the cached address or null if not cached
+     */
+    public synchronized MoneroAddress get(String address) {
+      if (maxSize == 0 || address == null) return null;
+      return addresses.get(address);
     }
-    BigDecimal twopow8 = new BigDecimal(2).pow(8);
-    for (int i = size - 1; i >= 0; i--) {
-      res[i] = num.remainder(twopow8).intValue();
-      num = num.divide(twopow8);
+    
+    public synchronized void put(MoneroAddress address) {
+      if (maxSize == 0) return;
+      addresses.put(address.getAddress(), address);
     }
-    return res;
   }
 
-  private static byte[] hexToBin(String hexStr) {
-    if (hexStr == null || hexStr.length() % 2 != 0) {
-      return null;
-    }
-    byte[] res = new byte[hexStr.length() / 2];
-    for (int i = 0; i < hexStr.length() / 2; ++i) {
-      res[i] = (byte)Integer.parseInt(hexStr.substring(i * 2, i * 2 + 2), 16);
+  /**
+   * Parses blocks or transactions embedded as json strings from a parser's text buffer.
+   */
+  private static class EmbeddedJsonReader {
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>(){};
+    
+    private JsonFactory factory;
+    private char[] buf = new char[4096]; // reused to wrap transaction fields in braces
+    
+    EmbeddedJsonReader(JsonFactory factory) {
+      this.factory = factory;
     }
-    return res;
-  }
-
-  private static String binToHex(int[] data) {
-    StringBuilder builder = new StringBuilder();
-    for (int i : data) {
-      builder.append(String.format("%02x", i));
+    
+    /**
+     * Read an array of embedded json objects at the parser's current token, which is empty if a string.
+     * 
+     * @param parser is positioned at the array to read
+     * @param isTxFields specifies if each embedded string holds object fields led by a comma instead of an object
+     * @return the parsed maps
+     */
+    List<Map<String, Object>> readMaps(JsonParser parser, boolean isTxFields) throws IOException {
+      List<Map<String, Object>> maps = new ArrayList<Map<String, Object>>();
+      if (parser.currentToken() != JsonToken.START_ARRAY) return maps; // empty arrays are encoded as ""
+      while (parser.nextToken() == JsonToken.VALUE_STRING) {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (isTxFields) {
+          
+          // replace the first comma with an opening brace and close the object
+          int commaIdx = offset;
+          while (commaIdx < offset + length && text[commaIdx] != ',') commaIdx++;
+          if (buf.length < length + 1) buf = new char[Math.max(buf.length * 2, length + 1)];
+          System.arraycopy(text, offset, buf, 0, length);
+          if (commaIdx < offset + length) buf[commaIdx - offset] = '{';
+          buf[length] = '}';
+          text = buf;
+          offset = 0;
+          length++;
+        }
+        try (JsonParser embeddedParser = factory.createParser(text, offset, length)) {
+          maps.add(MoneroRpcConnection.MAPPER.readValue(embeddedParser, MAP_TYPE));
+        }
+      }
+      return maps;
     }
-    return builder.toString();
   }
 }
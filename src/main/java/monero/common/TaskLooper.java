@@ -1,38 +1,108 @@
 package monero.common;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Run a task in a fixed period loop.
+ * Run a task in a fixed period loop.<br><br>
+ *
+ * Loops are scheduled on a shared scheduler rather than a thread per loop, so many
+ * mostly-idle loops (e.g. pollers of many open wallets) do not each hold a thread.
+ * The scheduler only fires each run, which executes on a shared executor (virtual
+ * threads on JDK 21+, otherwise a cached pool of daemon threads), so tasks blocked on
+ * hung requests never delay other loops. The scheduler and executor can be replaced
+ * globally with setDefaultScheduler() and setDefaultExecutor() or per looper.
  */
 public class TaskLooper {
-  
+
+  private static final int DEFAULT_SCHEDULER_THREADS = 2; // only fires runs
+  private static ScheduledExecutorService defaultScheduler;
+  private static Executor defaultExecutor;
+  private static Executor virtualThreadExecutor;
+  private static boolean isVirtualThreadExecutorLoaded;
+
   private Runnable task;
+  private ScheduledExecutorService scheduler;
+  private Executor executor;
   private long periodInMs;
+  private long jitterInMs;
+  private boolean targetFixedPeriod;
   private boolean isStarted;
-  private boolean isLooping;
+  private int loopId; // incremented on each start to end the previous loop's runs
+  private ScheduledFuture<?> scheduledRun;
 
   /**
-   * Build the looper with a task to invoke on a fixed period loop.
-   * 
+   * Build the looper with a task to invoke on a fixed period loop using the default scheduler.
+   *
    * @param task is the task to invoke
    */
   public TaskLooper(Runnable task) {
+    this(task, null);
+  }
+
+  /**
+   * Build the looper with a task to invoke on a fixed period loop.
+   *
+   * @param task is the task to invoke
+   * @param scheduler schedules the task's runs (defaults to the shared scheduler if null)
+   */
+  public TaskLooper(Runnable task, ScheduledExecutorService scheduler) {
     this.task = task;
+    this.scheduler = scheduler;
   }
 
   /**
    * Get the runnable task to invoke on a fixed period loop.
-   * 
+   *
    * @return the runnable task
    */
   public Runnable getTask() {
     return task;
   }
 
+  /**
+   * Set the executor to run the task on. By default, the task runs on the shared executor.
+   * A task which never blocks can run directly on the scheduler's thread with Runnable::run.
+   *
+   * @param executor runs the task, or null to run on the shared executor
+   * @return this instance for chaining
+   */
+  public synchronized TaskLooper setExecutor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  public synchronized Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Set a random delay up to the given amount to add to each period, which spreads out
+   * loops started at the same time.
+   *
+   * @param jitterInMs is the maximum random delay to add to each period in milliseconds (default 0)
+   * @return this instance for chaining
+   */
+  public synchronized TaskLooper setJitterInMs(long jitterInMs) {
+    if (jitterInMs < 0) throw new RuntimeException("Looper jitter must be >= 0 ms");
+    this.jitterInMs = jitterInMs;
+    return this;
+  }
+
+  public synchronized long getJitterInMs() {
+    return jitterInMs;
+  }
+
   /**
    * Start the task loop.
-   * 
+   *
    * @param periodInMs the loop period in milliseconds
    * @return this instance for chaining
    */
@@ -40,53 +110,30 @@ public class TaskLooper {
     start(periodInMs, false);
     return this;
   }
-  
+
   /**
-   * Start the task loop.
-   * 
+   * Start the task loop.<br><br>
+   *
+   * The task runs immediately, then each period after the previous run ends (fixed delay)
+   * or starts (fixed rate). Runs never overlap, so a fixed rate run which takes longer than
+   * the period is followed immediately by the next run.
+   *
    * @param periodInMs the loop period in milliseconds
-   * @param targetFixedPeriod specifies if the task should target a fixed period by accounting for run time
+   * @param targetFixedPeriod specifies if the task should target a fixed period by accounting for run time (fixed rate)
    * @return this instance for chaining
    */
   public synchronized TaskLooper start(long periodInMs, boolean targetFixedPeriod) {
-    synchronized (this) {
-      setPeriodInMs(periodInMs);
-      if (isStarted) return this;
-      isStarted = true;
-      
-      // start looping
-      if (isLooping) return this;
-      isLooping = true;
-      TaskLooper that = this;
-      Thread loop = new Thread(new Runnable() {
-        @Override
-        public void run() {
-          while (isStarted && !Thread.currentThread().isInterrupted()) {
-            
-            // run the task
-            long startTime = System.currentTimeMillis();
-            task.run();
-            
-            // wait period
-            if (isStarted) {
-              try { TimeUnit.MILLISECONDS.sleep(that.periodInMs - (targetFixedPeriod ? System.currentTimeMillis() - startTime : 0)); } // target fixed period by accounting for run time
-              catch (Exception e) {
-                isLooping = false;
-                if (isStarted) throw new RuntimeException(e);
-              }
-            }
-          }
-          isLooping = false;
-        }
-      });
-      loop.start();
-    }
+    setPeriodInMs(periodInMs);
+    this.targetFixedPeriod = targetFixedPeriod;
+    if (isStarted) return this;
+    isStarted = true;
+    schedule(++loopId, 0);
     return this;
   }
 
   /**
    * Indicates if looping.
-   * 
+   *
    * @return true if looping, false otherwise
    */
   public boolean isStarted() {
@@ -94,19 +141,21 @@ public class TaskLooper {
       return isStarted;
     }
   }
-  
+
   /**
-   * Stop the task loop.
+   * Stop the task loop. A run in progress completes but no further runs are started.
    */
   public void stop() {
     synchronized (this) {
       isStarted = false;
+      if (scheduledRun != null) scheduledRun.cancel(false);
+      scheduledRun = null;
     }
   }
-  
+
   /**
    * Set the loop period in milliseconds.
-   * 
+   *
    * @param periodInMs the loop period in milliseconds
    */
   public void setPeriodInMs(long periodInMs) {
@@ -115,4 +164,119 @@ public class TaskLooper {
       this.periodInMs = periodInMs;
     }
   }
+
+  /**
+   * Set the scheduler shared by loopers which are not given a scheduler.<br><br>
+   *
+   * Loopers already started continue on their current scheduler until restarted.
+   *
+   * @param scheduler is the scheduler to share, or null to use a built-in pool of daemon threads
+   */
+  public static synchronized void setDefaultScheduler(ScheduledExecutorService scheduler) {
+    defaultScheduler = scheduler;
+  }
+
+  /**
+   * Get the scheduler shared by loopers which are not given a scheduler.
+   *
+   * @return the shared scheduler
+   */
+  public static synchronized ScheduledExecutorService getDefaultScheduler() {
+    if (defaultScheduler == null) {
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(DEFAULT_SCHEDULER_THREADS, new ThreadFactory() {
+        private final AtomicInteger threadNum = new AtomicInteger();
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "TaskLooper-" + threadNum.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      scheduler.setRemoveOnCancelPolicy(true);
+      defaultScheduler = scheduler;
+    }
+    return defaultScheduler;
+  }
+
+  /**
+   * Set the executor shared by loopers which are not given an executor.<br><br>
+   *
+   * Loopers already started use the new executor from their next run.
+   *
+   * @param executor is the executor to share, or null to use virtual threads if supported, otherwise a cached pool of daemon threads
+   */
+  public static synchronized void setDefaultExecutor(Executor executor) {
+    defaultExecutor = executor;
+  }
+
+  /**
+   * Get the executor shared by loopers which are not given an executor.
+   *
+   * @return the shared executor
+   */
+  public static synchronized Executor getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      defaultExecutor = getVirtualThreadExecutor();
+      if (defaultExecutor == null) {
+        defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+          private final AtomicInteger threadNum = new AtomicInteger();
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TaskLooper-task-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      }
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Get an executor which runs each task on a new virtual thread, if supported by the JVM (JDK 21+).
+   *
+   * @return the virtual thread executor or null if virtual threads are not supported
+   */
+  public static synchronized Executor getVirtualThreadExecutor() {
+    if (!isVirtualThreadExecutorLoaded) {
+      isVirtualThreadExecutorLoaded = true;
+      try {
+        virtualThreadExecutor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null); // loaded reflectively to run on java 8+
+      } catch (Exception e) {
+        virtualThreadExecutor = null;
+      }
+    }
+    return virtualThreadExecutor;
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private synchronized void schedule(int loopId, long delayInMs) {
+    if (!isStarted || loopId != this.loopId) return;
+    if (jitterInMs > 0) delayInMs += ThreadLocalRandom.current().nextLong(jitterInMs + 1);
+    Executor executor = this.executor;
+    Runnable run = () -> (executor == null ? getDefaultExecutor() : executor).execute(() -> run(loopId));
+    scheduledRun = (scheduler == null ? getDefaultScheduler() : scheduler).schedule(run, delayInMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void run(int loopId) {
+    synchronized (this) {
+      if (!isStarted || loopId != this.loopId) return;
+    }
+
+    // run the task
+    long startTime = System.currentTimeMillis();
+    try {
+      task.run();
+    } catch (Exception e) {
+      MoneroUtils.log(0, "Task looper failed to run task: " + e);
+    } finally {
+      Thread.interrupted(); // clear interrupt so pooled threads are reusable
+
+      // schedule next run, including after an error which propagates to the executor
+      synchronized (this) {
+        schedule(loopId, targetFixedPeriod ? Math.max(0, periodInMs - (System.currentTimeMillis() - startTime)) : periodInMs); // target fixed period by accounting for run time
+      }
+    }
+  }
 }
@@ -25,11 +25,13 @@ package monero.daemon;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import monero.daemon.model.MoneroAltChain;
 import monero.daemon.model.MoneroBan;
 import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroBlockHeader;
+import monero.daemon.model.MoneroBlockStreamConfig;
 import monero.daemon.model.MoneroBlockTemplate;
 import monero.daemon.model.MoneroDaemonInfo;
 import monero.daemon.model.MoneroDaemonListener;
@@ -223,6 +225,30 @@ public interface MoneroDaemon {
    */
   public List<MoneroBlock> getBlocksByRangeChunked(Long startHeight, Long endHeight, Long maxChunkSize);
   
+  /**
+   * Stream blocks in the given height range, fetching chunks ahead of consumption so that only
+   * the chunks read ahead and the chunk being consumed are held in memory.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @return stream of blocks in height order, which should be closed (e.g. with try-with-resources) if not fully consumed, otherwise fetching ahead stops only once the stream is garbage collected
+   */
+  public Stream<MoneroBlock> streamBlocks(Long startHeight, Long endHeight);
+  
+  /**
+   * Stream blocks in the given height range, fetching chunks ahead of consumption so that only
+   * the chunks read ahead and the chunk being consumed are held in memory.<br><br>
+   * 
+   * If fetching a chunk fails after any retries, the stream throws the error after the blocks
+   * before the chunk are consumed, so a new stream can resume from the next unconsumed height.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @param config configures the chunk size, read ahead, and retries (optional)
+   * @return stream of blocks in height order, which should be closed (e.g. with try-with-resources) if not fully consumed, otherwise fetching ahead stops only once the stream is garbage collected
+   */
+  public Stream<MoneroBlock> streamBlocks(Long startHeight, Long endHeight, MoneroBlockStreamConfig config);
+  
   /**
    * Get block hashes as a binary request to the daemon.
    * 
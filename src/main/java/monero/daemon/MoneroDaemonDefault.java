@@ -26,6 +26,7 @@ import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import monero.daemon.model.MoneroBan;
 import monero.daemon.model.MoneroBlock;
@@ -52,6 +53,11 @@ public abstract class MoneroDaemonDefault implements MoneroDaemon {
     return getBlocksByRangeChunked(startHeight, endHeight, null);
   }
   
+  @Override
+  public Stream<MoneroBlock> streamBlocks(Long startHeight, Long endHeight) {
+    return streamBlocks(startHeight, endHeight, null);
+  }
+  
   @Override
   public MoneroTx getTx(String txHash) {
     return getTx(txHash, null);
@@ -22,25 +22,53 @@
 
 package monero.daemon;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import common.utils.GenUtils;
 import common.utils.JsonUtils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import monero.common.MoneroBlobParser;
+import monero.common.MoneroConnectionManager;
+import monero.common.MoneroConnectionManagerListener;
 import monero.common.MoneroError;
+import monero.common.MoneroRetryPolicy;
 import monero.common.MoneroRpcConnection;
 import monero.common.MoneroRpcError;
+import monero.common.MoneroRpcResultReader;
 import monero.common.MoneroUtils;
 import monero.common.TaskLooper;
 import monero.daemon.model.ConnectionType;
@@ -48,6 +76,7 @@ import monero.daemon.model.MoneroAltChain;
 import monero.daemon.model.MoneroBan;
 import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroBlockHeader;
+import monero.daemon.model.MoneroBlockStreamConfig;
 import monero.daemon.model.MoneroBlockTemplate;
 import monero.daemon.model.MoneroConnectionSpan;
 import monero.daemon.model.MoneroDaemonInfo;
@@ -72,6 +101,9 @@ import monero.daemon.model.MoneroTx;
 import monero.daemon.model.MoneroTxBacklogEntry;
 import monero.daemon.model.MoneroTxPoolStats;
 import monero.daemon.model.MoneroVersion;
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
 
 /**
  * Implements a Monero daemon using monerod.
@@ -85,17 +117,29 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   private static final String DEFAULT_ID = "0000000000000000000000000000000000000000000000000000000000000000";
   private static long MAX_REQ_SIZE = 3000000;  // max request size when fetching blocks from daemon
   private static int NUM_HEADERS_PER_REQ = 750;
+  private static final long DEFAULT_POLL_PERIOD_IN_MS = 10000; // poll every X ms
+  private static final int DEFAULT_HEADER_CACHE_SIZE = 10000; // max number of cached block headers
+  private static final long MAX_REORG_DEPTH = 100; // depth of cached headers to invalidate on reorg
+  private static final long DEFAULT_MAX_CHUNK_BYTES_IN_FLIGHT = 4 * MAX_REQ_SIZE;
+  private static final int DEFAULT_NUM_CHUNKS_AHEAD = 2;
+  private static final Map<String, DaemonPoller> DAEMON_POLLERS = new HashMap<String, DaemonPoller>(); // pollers shared by daemons listening to the same uri
   
   // instance variables
   private MoneroRpcConnection rpc;
+  private MoneroConnectionManager connectionManager;
   private DaemonPoller daemonPoller;
+  private long pollPeriodInMs = DEFAULT_POLL_PERIOD_IN_MS;
+  private boolean adaptivePolling;
+  private MoneroConnectionManagerListener connectionManagerListener; // follows the current connection while listening
   private List<MoneroDaemonListener> listeners;
-  private Map<Long, MoneroBlockHeader> cachedHeaders;
+  private HeaderCache headerCache;
+  private int maxParallelChunks = 1;
+  private long maxChunkBytesInFlight = DEFAULT_MAX_CHUNK_BYTES_IN_FLIGHT;
   private Process process; // process running monerod if applicable
   
   private MoneroDaemonRpc() {
     this.listeners = new ArrayList<MoneroDaemonListener>();
-    this.cachedHeaders = new HashMap<Long, MoneroBlockHeader>();
+    this.headerCache = new HeaderCache(DEFAULT_HEADER_CACHE_SIZE);
   }
   
   public MoneroDaemonRpc(URI uri) {
@@ -116,6 +160,18 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     this.rpc = rpc;
   }
   
+  /**
+   * Create a daemon client which sends requests through a connection manager's
+   * current connection, with the manager's hedging applied to read requests.
+   * 
+   * @param connectionManager manages the connections to the daemon
+   */
+  public MoneroDaemonRpc(MoneroConnectionManager connectionManager) {
+    this();
+    GenUtils.assertNotNull(connectionManager);
+    this.connectionManager = connectionManager;
+  }
+  
   /**
    * Create an internal process running monerod and connect to it.
    * 
@@ -246,22 +302,162 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return listeners;
   }
   
+  /**
+   * Set the maximum number of chunks which getBlocksByRangeChunked() fetches and decodes concurrently.<br><br>
+   * 
+   * Chunks are planned from cached block headers and reassembled in height order. If the daemon
+   * uses a connection manager which load balances requests, the chunks are spread across its connections.<br><br>
+   * 
+   * A connection sends one request at a time unless it is concurrent, so chunks are fetched in parallel
+   * only if the connection is concurrent (see MoneroRpcConnection.setIsConcurrent()) or the connection
+   * manager load balances requests. Otherwise chunks are fetched one at a time.
+   * 
+   * @param maxParallelChunks is the maximum number of chunks to fetch concurrently (default 1)
+   * @return this daemon for chaining
+   */
+  public MoneroDaemonRpc setMaxParallelChunks(int maxParallelChunks) {
+    if (maxParallelChunks <= 0) throw new MoneroError("Max parallel chunks must be > 0");
+    this.maxParallelChunks = maxParallelChunks;
+    return this;
+  }
+  
+  public int getMaxParallelChunks() {
+    return maxParallelChunks;
+  }
+  
+  /**
+   * Set the maximum total size of the chunks which getBlocksByRangeChunked() fetches concurrently.
+   * 
+   * @param maxChunkBytesInFlight is the maximum total size of chunks in flight, at least the max chunk size (default 12,000,000 bytes)
+   * @return this daemon for chaining
+   */
+  public MoneroDaemonRpc setMaxChunkBytesInFlight(long maxChunkBytesInFlight) {
+    if (maxChunkBytesInFlight <= 0) throw new MoneroError("Max chunk bytes in flight must be > 0");
+    this.maxChunkBytesInFlight = maxChunkBytesInFlight;
+    return this;
+  }
+  
+  public long getMaxChunkBytesInFlight() {
+    return maxChunkBytesInFlight;
+  }
+  
+  /**
+   * Set the maximum number of block headers to cache by height.<br><br>
+   * 
+   * Cached headers back getBlockHeaderByHeight(), getBlockHeadersByRange(), getBlockHash(),
+   * and chunked block requests. The least recently used headers are evicted first. Headers
+   * within 100 blocks of a reorg are invalidated when the reorg is seen by listening to the
+   * daemon or by fetching a header whose hash differs from the cached header at its height.
+   * Reorgs are only seen while listening, so otherwise only headers more than 100 blocks
+   * below the top of the chain are served from the cache. The depth of a cached header is
+   * derived from the highest known block, which is refreshed at least once per poll period.
+   * 
+   * @param headerCacheSize is the maximum number of block headers to cache, or 0 to disable caching (default 10000)
+   * @return this daemon for chaining
+   */
+  public MoneroDaemonRpc setHeaderCacheSize(int headerCacheSize) {
+    if (headerCacheSize < 0) throw new MoneroError("Header cache size must be >= 0");
+    headerCache.setMaxSize(headerCacheSize);
+    return this;
+  }
+  
+  public int getHeaderCacheSize() {
+    return headerCache.getMaxSize();
+  }
+  
+  /**
+   * Get the number of header lookups served from the header cache.
+   * 
+   * @return the number of header cache hits
+   */
+  public long getNumHeaderCacheHits() {
+    return headerCache.getNumHits();
+  }
+  
+  /**
+   * Get the number of header lookups which were not served from the header cache.
+   * 
+   * @return the number of header cache misses
+   */
+  public long getNumHeaderCacheMisses() {
+    return headerCache.getNumMisses();
+  }
+  
+  /**
+   * Remove all cached block headers.
+   */
+  public void clearHeaderCache() {
+    headerCache.clear();
+  }
+  
+  /**
+   * Set the period to poll the daemon for new blocks while listeners are registered.<br><br>
+   * 
+   * Daemon instances listening to the same uri share one poller, which polls at the shortest
+   * period among them and notifies the listeners of each instance.
+   * 
+   * @param pollPeriodInMs is the period to poll the daemon in milliseconds (default 10000)
+   * @return this daemon for chaining
+   */
+  public MoneroDaemonRpc setPollPeriodInMs(long pollPeriodInMs) {
+    if (pollPeriodInMs <= 0) throw new MoneroError("Poll period must be greater than 0 ms");
+    this.pollPeriodInMs = pollPeriodInMs;
+    refreshListening();
+    return this;
+  }
+  
+  public long getPollPeriodInMs() {
+    return pollPeriodInMs;
+  }
+  
+  /**
+   * Enable or disable adaptive polling, which polls around the 2 minute target block time.<br><br>
+   * 
+   * Adaptive polling waits 3 poll periods in the minute after a new block, then polls every
+   * half poll period until 4 minutes after the block, then polls every poll period. A shared
+   * poller only polls adaptively if all daemon instances listening to its uri do.
+   * 
+   * @param adaptivePolling specifies if polling adapts to the time since the last block (default false)
+   * @return this daemon for chaining
+   */
+  public MoneroDaemonRpc setAdaptivePolling(boolean adaptivePolling) {
+    this.adaptivePolling = adaptivePolling;
+    refreshListening();
+    return this;
+  }
+  
+  public boolean getAdaptivePolling() {
+    return adaptivePolling;
+  }
+  
   /**
    * Get the daemon's RPC connection.
    * 
-   * @return the daemon's rpc connection
+   * @return the daemon's rpc connection, or the connection manager's current connection if applicable
    */
   public MoneroRpcConnection getRpcConnection() {
-    return this.rpc;
+    return connectionManager == null ? this.rpc : connectionManager.getConnection();
+  }
+  
+  /**
+   * Get the connection manager which the daemon sends requests through.
+   * 
+   * @return the daemon's connection manager or null if the daemon uses a single connection
+   */
+  public MoneroConnectionManager getConnectionManager() {
+    return connectionManager;
   }
 
   /**
    * Set the Tor proxy to the daemon.
    * 
+   * Applies to each of the connection manager's connections if managed, but not to connections added afterwards.
+   * 
    * @param uri the Tor proxy URI
    */
   public void setProxyUri(String uri) {
-    this.rpc.setProxyUri(uri);
+    if (connectionManager == null) rpc.setProxyUri(uri);
+    else for (MoneroRpcConnection connection : connectionManager.getConnections()) connection.setProxyUri(uri);
   }
   
   /**
@@ -281,14 +477,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroVersion getVersion() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_version");
+    Map<String, Object> resp = sendJsonRequest("get_version");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     return new MoneroVersion(((BigInteger) result.get("version")).intValue(), (Boolean) result.get("release"));
   }
 
   @Override
   public boolean isTrusted() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_height");
+    Map<String, Object> resp = sendPathRequest("get_height");
     checkResponseStatus(resp);
     return !(boolean) resp.get("untrusted");
   }
@@ -296,14 +492,16 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public long getHeight() {
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_count");
+    Map<String, Object> respMap = sendJsonRequest("get_block_count");
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     return ((BigInteger) resultMap.get("count")).intValue();
   }
 
   @Override
   public String getBlockHash(long height) {
-    Map<String, Object> respMap = rpc.sendJsonRequest("on_get_block_hash", Arrays.asList(height));
+    MoneroBlockHeader cachedHeader = headerCache.get(height, isHeaderCacheCurrent());
+    if (cachedHeader != null) return cachedHeader.getHash();
+    Map<String, Object> respMap = sendJsonRequest("on_get_block_hash", Arrays.asList(height));
     return (String) respMap.get("result");
   }
 
@@ -313,59 +511,46 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("wallet_address", walletAddress);
     params.put("reserve_size", reserveSize);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_template", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block_template", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlockTemplate template = convertRpcBlockTemplate(resultMap);
     return template;
   }
   
-  @SuppressWarnings("unchecked")
   @Override
   public MoneroBlockHeader getLastBlockHeader() {
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_last_block_header");
-    Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    checkResponseStatus(resultMap);
-    MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    MoneroBlockHeader header = sendJsonRequest("get_last_block_header", null, null, MoneroDaemonRpc::readRpcBlockHeaderResult);
+    headerCache.put(header);
     return header;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public MoneroBlockHeader getBlockHeaderByHash(String blockHash) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("hash", blockHash);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_header_by_hash", params);
-    Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    MoneroBlockHeader header = sendJsonRequest("get_block_header_by_hash", params, null, MoneroDaemonRpc::readRpcBlockHeaderResult);
+    headerCache.put(header);
     return header;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public MoneroBlockHeader getBlockHeaderByHeight(long height) {
+    MoneroBlockHeader cachedHeader = headerCache.get(height, isHeaderCacheCurrent());
+    if (cachedHeader != null) return cachedHeader;
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_header_by_height", params);
-    Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    MoneroBlockHeader header = sendJsonRequest("get_block_header_by_height", params, null, MoneroDaemonRpc::readRpcBlockHeaderResult);
+    headerCache.put(header);
     return header;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public List<MoneroBlockHeader> getBlockHeadersByRange(Long startHeight, Long endHeight) {
-    Map<String, Object> params = new HashMap<String, Object>();
-    params.put("start_height", startHeight);
-    params.put("end_height", endHeight);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_headers_range", params);
-    Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    List<Map<String, Object>> rpcHeaders = (List<Map<String, Object>>) resultMap.get("headers");
-    List<MoneroBlockHeader> headers = new ArrayList<MoneroBlockHeader>();
-    for (Map<String, Object> rpcHeader : rpcHeaders) {
-      MoneroBlockHeader header = convertRpcBlockHeader(rpcHeader);
-      headers.add(header);
+    if (startHeight != null && endHeight != null) {
+      List<MoneroBlockHeader> cachedHeaders = headerCache.getRange(startHeight, endHeight, isHeaderCacheCurrent());
+      if (cachedHeaders != null) return cachedHeaders;
     }
-    return headers;
+    return fetchBlockHeadersByRange(startHeight, endHeight);
   }
 
   @SuppressWarnings("unchecked")
@@ -373,7 +558,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroBlock getBlockByHash(String blockHash) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("hash", blockHash);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlock block = convertRpcBlock(resultMap);
     return block;
@@ -389,7 +574,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroBlock getBlockByHeight(long height) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block", params);
     Map<String, Object> rpcBlock = (Map<String, Object>) respMap.get("result");
     MoneroBlock block = convertRpcBlock(rpcBlock);
     return block;
@@ -399,13 +584,10 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @Override
   public List<MoneroBlock> getBlocksByHeight(List<Long> heights) {
     
-    // fetch blocks in binary
+    // fetch blocks in binary and convert to map, reading the response in place
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("heights", heights);
-    byte[] respBin = rpc.sendBinaryRequest("get_blocks_by_height.bin", params);
-    
-    // convert binary blocks to map
-    Map<String, Object> rpcResp = MoneroUtils.binaryBlocksToMap(respBin);
+    Map<String, Object> rpcResp = sendBinaryRequest("get_blocks_by_height.bin", params, MoneroUtils::binaryBlocksToMap);
     checkResponseStatus(rpcResp);
     
     // build blocks with transactions
@@ -462,6 +644,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public List<MoneroBlock> getBlocksByRangeChunked(Long startHeight, Long endHeight, Long maxChunkSize) {
     if (startHeight == null) startHeight = 0l;
     if (endHeight == null) endHeight = getHeight() - 1;
+    if (maxParallelChunks > 1 && isParallelRequestSupported()) return getBlocksByRangeParallel(startHeight, endHeight, maxChunkSize == null ? MAX_REQ_SIZE : maxChunkSize);
     long lastHeight = startHeight - 1;
     List<MoneroBlock> blocks = new ArrayList<MoneroBlock>();
     while (lastHeight < endHeight) {
@@ -471,6 +654,16 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return blocks;
   }
   
+  @Override
+  public Stream<MoneroBlock> streamBlocks(Long startHeight, Long endHeight, MoneroBlockStreamConfig config) {
+    if (startHeight == null) startHeight = 0l;
+    if (endHeight == null) endHeight = getHeight() - 1;
+    if (config == null) config = new MoneroBlockStreamConfig();
+    if (config.getNumChunksAhead() != null && config.getNumChunksAhead() <= 0) throw new MoneroError("Number of chunks ahead must be > 0");
+    BlockIterator iterator = new BlockIterator(startHeight, endHeight, config);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+  }
+  
   @Override
   public List<String> getBlockHashes(List<String> blockHashes, Long startHeight) {
     throw new RuntimeException("MoneroDaemonRpc.getBlockHashes() not implemented");
@@ -483,12 +676,13 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     // validate input
     if (txHashes.isEmpty()) throw new MoneroError("Must provide an array of transaction hashes");
     
-    // fetch transactions
+    // fetch transactions, decoding pruned hex locally instead of requesting json
+    boolean isDecodedLocally = Boolean.TRUE.equals(prune);
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("txs_hashes", txHashes);
-    params.put("decode_as_json", true);
+    params.put("decode_as_json", !isDecodedLocally);
     params.put("prune", prune);
-    Map<String, Object> respMap = rpc.sendPathRequest("get_transactions", params);
+    Map<String, Object> respMap = sendPathRequest("get_transactions", params);
     try {
       checkResponseStatus(respMap);
     } catch (MoneroError e) {
@@ -506,6 +700,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         MoneroTx tx = new MoneroTx();
         tx.setIsMinerTx(false);
         txs.add(convertRpcTx(rpcTxs.get(i), tx));
+        if (isDecodedLocally && tx.getPrunedHex() != null) parsePrunedHex(tx);
       }
     }
     return txs;
@@ -527,7 +722,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
     params.put("count", numBlocks);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_coinbase_tx_sum", params);
+    Map<String, Object> respMap = sendJsonRequest("get_coinbase_tx_sum", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     checkResponseStatus(resultMap);
     MoneroMinerTxSum txSum = new MoneroMinerTxSum();
@@ -539,7 +734,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroFeeEstimate getFeeEstimate(Integer graceBlocks) {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_fee_estimate");
+    Map<String, Object> resp = sendJsonRequest("get_fee_estimate");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     MoneroFeeEstimate feeEstimate = new MoneroFeeEstimate();
@@ -558,7 +753,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("tx_as_hex", txHex);
     params.put("do_not_relay", doNotRelay);
-    Map<String, Object> resp = rpc.sendPathRequest("send_raw_transaction", params);
+    Map<String, Object> resp = sendPathRequest("send_raw_transaction", params);
     MoneroSubmitTxResult submitResult = convertRpcSubmitTxResult(resp);
     
     // set isGood based on status
@@ -576,7 +771,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public void relayTxsByHash(Collection<String> txHashes) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("txids", txHashes);
-    Map<String, Object> resp = rpc.sendJsonRequest("relay_tx", params);
+    Map<String, Object> resp = sendJsonRequest("relay_tx", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
 
@@ -585,7 +780,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public List<MoneroTx> getTxPool() {
     
     // send rpc request
-    Map<String, Object> resp = rpc.sendPathRequest("get_transaction_pool");
+    Map<String, Object> resp = sendPathRequest("get_transaction_pool");
     checkResponseStatus(resp);
     
     // build txs
@@ -618,7 +813,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroTxPoolStats getTxPoolStats() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_transaction_pool_stats");
+    Map<String, Object> resp = sendPathRequest("get_transaction_pool_stats");
     checkResponseStatus(resp);
     return convertRpcTxPoolStats((Map<String, Object>) resp.get("pool_stats"));
   }
@@ -633,7 +828,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public void flushTxPool(String... hashes) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("txids", hashes);
-    Map<String, Object> resp = rpc.sendJsonRequest("flush_txpool", params);
+    Map<String, Object> resp = sendJsonRequest("flush_txpool", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
   
@@ -648,7 +843,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (keyImages == null || keyImages.isEmpty()) throw new MoneroError("Must provide key images to check the status of");
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("key_images", keyImages);
-    Map<String, Object> resp = rpc.sendPathRequest("is_key_image_spent", params);
+    Map<String, Object> resp = sendPathRequest("is_key_image_spent", params);
     checkResponseStatus(resp);
     List<MoneroKeyImageSpentStatus> statuses = new ArrayList<MoneroKeyImageSpentStatus>();
     for (BigInteger bi : (List<BigInteger>) resp.get("spent_status")) {
@@ -675,7 +870,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     params.put("recent_cutoff", recentCutoff);
     
     // send rpc request
-    Map<String, Object> resp = rpc.sendJsonRequest("get_output_histogram", params);
+    Map<String, Object> resp = sendJsonRequest("get_output_histogram", params);
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     
@@ -724,7 +919,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroDaemonInfo getInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_info");
+    Map<String, Object> resp = sendJsonRequest("get_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcInfo(result);
@@ -733,7 +928,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroDaemonSyncInfo getSyncInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("sync_info");
+    Map<String, Object> resp = sendJsonRequest("sync_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcSyncInfo(result);
@@ -742,7 +937,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroHardForkInfo getHardForkInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("hard_fork_info");
+    Map<String, Object> resp = sendJsonRequest("hard_fork_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcHardForkInfo(result);
@@ -751,7 +946,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroAltChain> getAltChains() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_alternate_chains");
+    Map<String, Object> resp = sendJsonRequest("get_alternate_chains");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroAltChain> chains = new ArrayList<MoneroAltChain>();
@@ -763,7 +958,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<String> getAltBlockHashes() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_alt_blocks_hashes");
+    Map<String, Object> resp = sendPathRequest("get_alt_blocks_hashes");
     checkResponseStatus(resp);
     if (!resp.containsKey("blks_hashes")) return new ArrayList<String>();
     return (List<String>) resp.get("blks_hashes");
@@ -806,7 +1001,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroPeer> getPeers() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_connections");
+    Map<String, Object> resp = sendJsonRequest("get_connections");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroPeer> connections = new ArrayList<MoneroPeer>();
@@ -822,7 +1017,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public List<MoneroPeer> getKnownPeers() {
     
     // send request
-    Map<String, Object> respMap = rpc.sendPathRequest("get_peer_list");
+    Map<String, Object> respMap = sendPathRequest("get_peer_list");
     checkResponseStatus(respMap);
     
     // build peers
@@ -849,7 +1044,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (limit < 0) throw new MoneroError("Outgoing peer limit must be >= 0");
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("out_peers", limit);
-    Map<String, Object> resp = rpc.sendPathRequest("out_peers", params);
+    Map<String, Object> resp = sendPathRequest("out_peers", params);
     checkResponseStatus(resp);
   }
 
@@ -858,14 +1053,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (limit < 0) throw new MoneroError("Incoming peer limit must be >= 0");
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("in_peers", limit);
-    Map<String, Object> resp = rpc.sendPathRequest("in_peers", params);
+    Map<String, Object> resp = sendPathRequest("in_peers", params);
     checkResponseStatus(resp);
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroBan> getPeerBans() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_bans");
+    Map<String, Object> resp = sendJsonRequest("get_bans");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroBan> bans = new ArrayList<MoneroBan>();
@@ -886,7 +1081,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     for (MoneroBan ban : bans) rpcBans.add(convertToRpcBan(ban));
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("bans", rpcBans);
-    Map<String, Object> resp = rpc.sendJsonRequest("set_bans", params);
+    Map<String, Object> resp = sendJsonRequest("set_bans", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
   
@@ -936,19 +1131,19 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     params.put("threads_count", numThreads);
     params.put("do_background_mining", isBackground);
     params.put("ignore_battery", ignoreBattery);
-    Map<String, Object> resp = rpc.sendPathRequest("start_mining", params);
+    Map<String, Object> resp = sendPathRequest("start_mining", params);
     checkResponseStatus(resp);
   }
 
   @Override
   public void stopMining() {
-    Map<String, Object> resp = rpc.sendPathRequest("stop_mining");
+    Map<String, Object> resp = sendPathRequest("stop_mining");
     checkResponseStatus(resp);
   }
 
   @Override
   public MoneroMiningStatus getMiningStatus() {
-    Map<String, Object> resp = rpc.sendPathRequest("mining_status");
+    Map<String, Object> resp = sendPathRequest("mining_status");
     checkResponseStatus(resp);
     return convertRpcMiningStatus(resp);
   }
@@ -957,7 +1152,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @Override
   public void submitBlocks(Collection<String> blockBlobs) {
     if (blockBlobs.isEmpty()) throw new MoneroError("Must provide an array of mined block blobs to submit");
-    Map<String, Object> resp = rpc.sendJsonRequest("submit_block", blockBlobs);
+    Map<String, Object> resp = sendJsonRequest("submit_block", blockBlobs);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
 
@@ -966,7 +1161,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroPruneResult pruneBlockchain(boolean check) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("check", check);
-    Map<String, Object> resp = rpc.sendJsonRequest("prune_blockchain", params, 0l);
+    Map<String, Object> resp = sendJsonRequest("prune_blockchain", params, 0l);
     Map<String, Object> resultMap = (Map<String, Object>) resp.get("result");
     checkResponseStatus(resultMap);
     MoneroPruneResult result = new MoneroPruneResult();
@@ -979,7 +1174,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroDaemonUpdateCheckResult checkForUpdate() {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("command", "check");
-    Map<String, Object> respMap = rpc.sendPathRequest("update", params);
+    Map<String, Object> respMap = sendPathRequest("update", params);
     checkResponseStatus(respMap);
     return convertRpcUpdateCheckResult(respMap);
   }
@@ -989,14 +1184,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("command", "download");
     params.put("path", path);
-    Map<String, Object> resp = rpc.sendPathRequest("update", params);
+    Map<String, Object> resp = sendPathRequest("update", params);
     checkResponseStatus(resp);
     return convertRpcUpdateDownloadResult(resp);
   }
 
   @Override
   public void stop() {
-    Map<String, Object> resp = rpc.sendPathRequest("stop_daemon");
+    Map<String, Object> resp = sendPathRequest("stop_daemon");
     checkResponseStatus(resp);
   }
 
@@ -1026,8 +1221,36 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   
   // ------------------------------- PRIVATE INSTANCE  ----------------------------
   
+  private Map<String, Object> sendJsonRequest(String method) {
+    return sendJsonRequest(method, null);
+  }
+  
+  private Map<String, Object> sendJsonRequest(String method, Object params) {
+    return sendJsonRequest(method, params, null);
+  }
+  
+  private Map<String, Object> sendJsonRequest(String method, Object params, Long timeoutMs) {
+    return connectionManager == null ? rpc.sendJsonRequest(method, params, timeoutMs) : connectionManager.sendJsonRequest(method, params, timeoutMs);
+  }
+  
+  private <T> T sendJsonRequest(String method, Object params, Long timeoutMs, MoneroRpcResultReader<T> resultReader) {
+    return connectionManager == null ? rpc.sendJsonRequest(method, params, timeoutMs, resultReader) : connectionManager.sendJsonRequest(method, params, timeoutMs, resultReader);
+  }
+  
+  private Map<String, Object> sendPathRequest(String path) {
+    return sendPathRequest(path, null);
+  }
+  
+  private Map<String, Object> sendPathRequest(String path, Map<String, Object> params) {
+    return connectionManager == null ? rpc.sendPathRequest(path, params) : connectionManager.sendPathRequest(path, params);
+  }
+  
+  private <T> T sendBinaryRequest(String path, Map<String, Object> params, Function<ByteBuffer, T> reader) {
+    return connectionManager == null ? rpc.sendBinaryRequest(path, params, null, reader) : connectionManager.sendBinaryRequest(path, params, null, reader);
+  }
+  
   private int[] getBandwidthLimits() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_limit");
+    Map<String, Object> resp = sendPathRequest("get_limit");
     checkResponseStatus(resp);
     return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
   }
@@ -1038,7 +1261,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("limit_down", downLimit);
     params.put("limit_up", upLimit);
-    Map<String, Object> resp = rpc.sendPathRequest("set_limit", params);
+    Map<String, Object> resp = sendPathRequest("set_limit", params);
     checkResponseStatus(resp);
     return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
   }
@@ -1056,14 +1279,29 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (startHeight == null) startHeight = 0l;
     if (maxHeight == null) maxHeight = getHeight() - 1;
     if (chunkSize == null) chunkSize = MAX_REQ_SIZE;
+    BlockChunk chunk = getMaxChunk(startHeight, maxHeight, chunkSize);
+    return chunk.endHeight >= startHeight ? getBlocksByRange(startHeight, chunk.endHeight) : new ArrayList<MoneroBlock>();
+  }
+  
+  /**
+   * Determine a contiguous chunk of blocks starting from a given height up to a maximum
+   * height or maximum amount of block data, whichever comes first.
+   */
+  private BlockChunk getMaxChunk(long startHeight, long maxHeight, long chunkSize) {
     
     // determine end height to fetch
-    int reqSize = 0;
+    long reqSize = 0;
     long endHeight = startHeight - 1;
+    List<MoneroBlockHeader> headers = new ArrayList<MoneroBlockHeader>();
+    int headerIdx = 0;
     while (reqSize < chunkSize && endHeight < maxHeight) {
       
       // get header of next block
-      MoneroBlockHeader header = getBlockHeaderByHeightCached(endHeight + 1, maxHeight);
+      if (headerIdx == headers.size()) {
+        headers = getBlockHeadersByHeightCached(endHeight + 1, maxHeight);
+        headerIdx = 0;
+      }
+      MoneroBlockHeader header = headers.get(headerIdx++);
       
       // block cannot be bigger than max request size
       GenUtils.assertTrue("Block exceeds maximum request size: " + header.getSize(), header.getSize() <= chunkSize);
@@ -1075,7 +1313,69 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
       reqSize += header.getSize();
       endHeight++;
     }
-    return endHeight >= startHeight ? getBlocksByRange(startHeight, endHeight) : new ArrayList<MoneroBlock>();
+    return new BlockChunk(endHeight, reqSize);
+  }
+  
+  /**
+   * Get blocks in a height range by fetching and decoding chunks concurrently, bounded by the
+   * maximum number of parallel chunks and total chunk bytes in flight.
+   */
+  private List<MoneroBlock> getBlocksByRangeParallel(long startHeight, long endHeight, long chunkSize) {
+    ExecutorService pool = Executors.newFixedThreadPool(maxParallelChunks, runnable -> {
+      Thread thread = new Thread(runnable, "MoneroDaemonRpc-chunk");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Semaphore bytesInFlight = new Semaphore((int) Math.min(Integer.MAX_VALUE, Math.max(maxChunkBytesInFlight, chunkSize)));
+    AtomicBoolean isFailed = new AtomicBoolean();
+    List<Future<List<MoneroBlock>>> chunks = new ArrayList<Future<List<MoneroBlock>>>();
+    try {
+      
+      // plan chunks from cached headers and fetch within byte budget
+      long lastHeight = startHeight - 1;
+      while (lastHeight < endHeight && !isFailed.get()) {
+        long chunkStartHeight = lastHeight + 1;
+        BlockChunk chunk = getMaxChunk(chunkStartHeight, endHeight, chunkSize);
+        int chunkBytes = (int) chunk.size;
+        bytesInFlight.acquire(chunkBytes);
+        if (isFailed.get()) break; // chunk failed while waiting for budget
+        chunks.add(pool.submit(() -> {
+          try {
+            return getBlocksByRange(chunkStartHeight, chunk.endHeight);
+          } catch (RuntimeException e) {
+            isFailed.set(true);
+            throw e;
+          } finally {
+            bytesInFlight.release(chunkBytes);
+          }
+        }));
+        lastHeight = chunk.endHeight;
+      }
+      
+      // reassemble chunks in height order
+      List<MoneroBlock> blocks = new ArrayList<MoneroBlock>();
+      for (Future<List<MoneroBlock>> chunk : chunks) blocks.addAll(chunk.get());
+      return blocks;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MoneroError(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof MoneroError) throw (MoneroError) e.getCause();
+      throw new MoneroError(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+  
+  /**
+   * Indicates if requests are sent in parallel, which requires a concurrent connection or a
+   * connection manager which load balances requests across connections.
+   */
+  private boolean isParallelRequestSupported() {
+    if (connectionManager == null) return rpc.isConcurrent();
+    if (connectionManager.getLoadBalanceType() != MoneroConnectionManager.LoadBalanceType.NONE) return true;
+    MoneroRpcConnection connection = connectionManager.getConnection();
+    return connection != null && connection.isConcurrent();
   }
   
   /**
@@ -1084,28 +1384,51 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
    * 
    * @param height is the height of the header to retrieve from the cache
    * @param maxHeight is the maximum height of headers to cache
+   * @return the cached header or the fetched header range starting at the height
    */
-  private MoneroBlockHeader getBlockHeaderByHeightCached(long height, long maxHeight) {
+  private List<MoneroBlockHeader> getBlockHeadersByHeightCached(long height, long maxHeight) {
     
     // get header from cache
-    MoneroBlockHeader cachedHeader = cachedHeaders.get(height);
-    if (cachedHeader != null) return cachedHeader;
+    MoneroBlockHeader cachedHeader = headerCache.get(height, isHeaderCacheCurrent());
+    if (cachedHeader != null) return Arrays.asList(cachedHeader);
     
     // fetch and cache headers if not in cache
     long endHeight = Math.min(maxHeight, height + NUM_HEADERS_PER_REQ - 1);  // TODO: could specify end height to cache to optimize small requests (would like to have time profiling in place though)
-    List<MoneroBlockHeader> headers = getBlockHeadersByRange(height, endHeight);
-    for (MoneroBlockHeader header : headers) {
-      cachedHeaders.put(header.getHeight(), header);
+    return fetchBlockHeadersByRange(height, endHeight);
+  }
+  
+  /**
+   * Indicates if the header cache is kept current by listening to the daemon, which sees reorgs.
+   * Otherwise refreshes the cache's top height if it's older than the poll period, so headers
+   * are only served from below the reorg depth with current depths.
+   */
+  private boolean isHeaderCacheCurrent() {
+    synchronized (DAEMON_POLLERS) {
+      if (daemonPoller != null) return true;
     }
-    
-    // return the cached header
-    return cachedHeaders.get(height);
+    if (!headerCache.isEmpty() && System.currentTimeMillis() - headerCache.getTopHeightTime() > pollPeriodInMs) headerCache.setTopHeight(getHeight() - 1);
+    return false;
+  }
+  
+  /**
+   * Fetch a range of block headers from the daemon and cache them.
+   */
+  private List<MoneroBlockHeader> fetchBlockHeadersByRange(Long startHeight, Long endHeight) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("start_height", startHeight);
+    params.put("end_height", endHeight);
+    List<MoneroBlockHeader> headers = sendJsonRequest("get_block_headers_range", params, null, MoneroDaemonRpc::readRpcBlockHeadersResult);
+    for (MoneroBlockHeader header : headers) headerCache.put(header);
+    return headers;
   }
   
   //---------------------------------- PRIVATE STATIC -------------------------------
   
   private static void checkResponseStatus(Map<String, Object> resp) {
-    String status = (String) resp.get("status");
+    checkResponseStatus((String) resp.get("status"));
+  }
+  
+  private static void checkResponseStatus(String status) {
     if (!"OK".equals(status)) throw new MoneroRpcError(status, null, null, null);
   }
   
@@ -1171,6 +1494,83 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return header;
   }
   
+  /**
+   * Reads a block header directly from a streaming parser positioned at the header's START_OBJECT.
+   * 
+   * Mirrors convertRpcBlockHeader() without building an intermediate map.
+   */
+  private static MoneroBlockHeader readRpcBlockHeader(JsonParser parser) throws IOException {
+    MoneroBlockHeader header = new MoneroBlockHeader();
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("block_size")) header.setSize(parser.getLongValue());
+      else if (key.equals("depth")) header.setDepth(parser.getLongValue());
+      else if (key.equals("difficulty")) { }  // handled by wide_difficulty
+      else if (key.equals("cumulative_difficulty")) { } // handled by wide_cumulative_difficulty
+      else if (key.equals("difficulty_top64")) { }  // handled by wide_difficulty
+      else if (key.equals("cumulative_difficulty_top64")) { } // handled by wide_cumulative_difficulty
+      else if (key.equals("wide_difficulty")) header.setDifficulty(prefixedHexToBI(parser.getText()));
+      else if (key.equals("wide_cumulative_difficulty")) header.setCumulativeDifficulty(prefixedHexToBI(parser.getText()));
+      else if (key.equals("hash")) header.setHash(parser.getText());
+      else if (key.equals("height")) header.setHeight(parser.getLongValue());
+      else if (key.equals("major_version")) header.setMajorVersion(parser.getIntValue());
+      else if (key.equals("minor_version")) header.setMinorVersion(parser.getIntValue());
+      else if (key.equals("nonce")) header.setNonce(parser.getLongValue());
+      else if (key.equals("num_txes")) header.setNumTxs(parser.getIntValue());
+      else if (key.equals("orphan_status")) header.setOrphanStatus(parser.getBooleanValue());
+      else if (key.equals("prev_hash") || key.equals("prev_id")) header.setPrevHash(parser.getText());
+      else if (key.equals("reward")) header.setReward(parser.getBigIntegerValue());
+      else if (key.equals("timestamp")) header.setTimestamp(parser.getLongValue());
+      else if (key.equals("block_weight")) header.setWeight(parser.getLongValue());
+      else if (key.equals("long_term_weight")) header.setLongTermWeight(parser.getLongValue());
+      else if (key.equals("pow_hash")) header.setPowHash("".equals(parser.getText()) ? null : parser.getText());
+      else if (key.equals("miner_tx_hash")) header.setMinerTxHash(parser.getText());
+      else if (key.equals("tx_hashes") || key.equals("miner_tx")) parser.skipChildren();  // used in block model, not header model
+      else {
+        LOGGER.warning("ignoring unexpected block header field: '" + key + "': " + parser.getText());
+        parser.skipChildren();
+      }
+    }
+    return header;
+  }
+  
+  /**
+   * Reads a result containing a "block_header" and checks its status.
+   */
+  private static MoneroBlockHeader readRpcBlockHeaderResult(JsonParser parser) throws IOException {
+    MoneroBlockHeader header = null;
+    String status = null;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("block_header")) header = readRpcBlockHeader(parser);
+      else if (key.equals("status")) status = parser.getText();
+      else parser.skipChildren();
+    }
+    checkResponseStatus(status);
+    return header;
+  }
+  
+  /**
+   * Reads a result containing a list of "headers" and checks its status.
+   */
+  private static List<MoneroBlockHeader> readRpcBlockHeadersResult(JsonParser parser) throws IOException {
+    List<MoneroBlockHeader> headers = new ArrayList<MoneroBlockHeader>();
+    String status = null;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("headers")) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) headers.add(readRpcBlockHeader(parser));
+      }
+      else if (key.equals("status")) status = parser.getText();
+      else parser.skipChildren();
+    }
+    checkResponseStatus(status);
+    return headers;
+  }
+  
   @SuppressWarnings("unchecked")
   private static MoneroBlock convertRpcBlock(Map<String, Object> rpcBlock) {
     
@@ -1328,6 +1728,19 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return tx;
   }
   
+  /**
+   * Assigns the fields of a transaction's pruned hex to the transaction, as when decoded from json.
+   */
+  private static void parsePrunedHex(MoneroTx tx) {
+    MoneroBlobParser.parseTx(tx.getPrunedHex(), tx);
+    if (tx.getOutputIndices() != null) {
+      GenUtils.assertEquals(tx.getOutputIndices().size(), tx.getOutputs().size());
+      for (int i = 0; i < tx.getOutputs().size(); i++) {
+        tx.getOutputs().get(i).setIndex(tx.getOutputIndices().get(i));  // transfer output indices to outputs
+      }
+    }
+  }
+  
   @SuppressWarnings("unchecked")
   private static MoneroOutput convertRpcOutput(Map<String, Object> rpcOutput, MoneroTx tx) {
     MoneroOutput output = new MoneroOutput();
@@ -1348,6 +1761,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         Map<String, Object> valMap = (Map<String, Object>) val;
         String pubKey = valMap.containsKey("key") ? (String) valMap.get("key") : ((Map<String, String>) valMap.get("tagged_key")).get("key"); // TODO (monerod): rpc json uses {tagged_key={key=...}}, binary blocks use {key=...}
         output.setStealthPublicKey(GenUtils.reconcile(output.getStealthPublicKey(), pubKey));
+        if (valMap.containsKey("tagged_key")) output.setViewTag(GenUtils.reconcile(output.getViewTag(), ((Map<String, String>) valMap.get("tagged_key")).get("view_tag")));
       }
       else LOGGER.warning("ignoring unexpected field output: " + key + ": " + val);
     }
@@ -1704,24 +2118,387 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return new BigInteger(hex.substring(2), 16);
   }
   
+  /**
+   * Register with the shared poller of the current connection's uri while listeners are
+   * registered, and unregister otherwise.
+   */
   private void refreshListening() {
-    if (daemonPoller == null && listeners.size() > 0) daemonPoller = new DaemonPoller(this);
-    if (daemonPoller != null) daemonPoller.setIsPolling(listeners.size() > 0);
+    synchronized (DAEMON_POLLERS) {
+      MoneroRpcConnection connection = getRpcConnection();
+      String uri = listeners.isEmpty() || connection == null ? null : connection.getUri();
+      
+      // unregister from poller of previous uri
+      if (daemonPoller != null && !daemonPoller.getUri().equals(uri)) {
+        if (daemonPoller.removeDaemon(this)) DAEMON_POLLERS.remove(daemonPoller.getUri());
+        daemonPoller = null;
+      }
+      
+      // register with poller of current uri
+      if (uri != null) {
+        if (daemonPoller == null) {
+          daemonPoller = DAEMON_POLLERS.get(uri);
+          if (daemonPoller == null) {
+            daemonPoller = new DaemonPoller(uri);
+            DAEMON_POLLERS.put(uri, daemonPoller);
+          }
+          daemonPoller.addDaemon(this);
+        } else {
+          daemonPoller.refresh(); // apply poll settings
+        }
+      }
+    }
+    
+    // follow connection manager's current connection while listening
+    if (connectionManager != null) {
+      synchronized (this) {
+        if (listeners.isEmpty() && connectionManagerListener != null) {
+          connectionManager.removeListener(connectionManagerListener);
+          connectionManagerListener = null;
+        } else if (!listeners.isEmpty() && connectionManagerListener == null) {
+          connectionManagerListener = connection -> refreshListening();
+          connectionManager.addListener(connectionManagerListener);
+        }
+      }
+    }
+  }
+  
+  /**
+   * Iterates blocks in a height range, fetching chunks on a background thread ahead of
+   * consumption and releasing consumed blocks.
+   */
+  private class BlockIterator implements Iterator<MoneroBlock> {
+    
+    private final BlockFetcher fetcher;
+    private ArrayDeque<MoneroBlock> chunk = new ArrayDeque<MoneroBlock>();
+    private boolean isDone;
+    
+    public BlockIterator(long startHeight, long endHeight, MoneroBlockStreamConfig config) {
+      this.fetcher = new BlockFetcher(startHeight, endHeight, config, this);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean hasNext() {
+      while (chunk.isEmpty()) {
+        if (isDone) return false;
+        if (fetcher.isClosed) throw new MoneroError("Block stream is closed");
+        fetcher.start();
+        Object next;
+        try {
+          next = fetcher.chunks.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MoneroError(e);
+        }
+        if (next == fetcher.END) {
+          isDone = true;
+          return false;
+        }
+        if (next instanceof MoneroError) {
+          isDone = true;
+          close();
+          throw (MoneroError) next;
+        }
+        chunk = new ArrayDeque<MoneroBlock>((List<MoneroBlock>) next);
+      }
+      return true;
+    }
+    
+    @Override
+    public MoneroBlock next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      return chunk.poll();
+    }
+    
+    public void close() {
+      fetcher.close();
+    }
+  }
+  
+  /**
+   * Fetches chunks of blocks ahead of a block iterator on its own thread. The iterator is only
+   * weakly referenced, so fetching stops if the iterator is abandoned without being closed.
+   */
+  private class BlockFetcher implements Runnable {
+    
+    private static final long ABANDONED_CHECK_PERIOD_IN_MS = 1000;
+    private final Object END = new Object(); // marks the end of the range
+    private final long startHeight;
+    private final long endHeight;
+    private final long chunkSize;
+    private final MoneroRetryPolicy retryPolicy;
+    private final BlockingQueue<Object> chunks; // fetched chunks of blocks, error, or end
+    private final WeakReference<BlockIterator> iteratorRef;
+    private Thread thread;
+    private volatile boolean isClosed;
+    
+    public BlockFetcher(long startHeight, long endHeight, MoneroBlockStreamConfig config, BlockIterator iterator) {
+      this.startHeight = startHeight;
+      this.endHeight = endHeight;
+      this.chunkSize = config.getMaxChunkSize() == null ? MAX_REQ_SIZE : config.getMaxChunkSize();
+      this.retryPolicy = config.getRetryPolicy();
+      this.chunks = new ArrayBlockingQueue<Object>(config.getNumChunksAhead() == null ? DEFAULT_NUM_CHUNKS_AHEAD : config.getNumChunksAhead());
+      this.iteratorRef = new WeakReference<BlockIterator>(iterator);
+    }
+    
+    public synchronized void start() {
+      if (thread != null) return;
+      thread = new Thread(this, "MoneroDaemonRpc-stream");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    
+    public synchronized void close() {
+      isClosed = true;
+      if (thread != null) thread.interrupt();
+      chunks.clear();
+    }
+    
+    @Override
+    public void run() {
+      try {
+        long height = startHeight;
+        while (height <= endHeight && !isClosed) {
+          
+          // fetch next chunk, retrying from its start height
+          List<MoneroBlock> blocks;
+          int numRetries = 0;
+          while (true) {
+            try {
+              BlockChunk chunk = getMaxChunk(height, endHeight, chunkSize);
+              blocks = getBlocksByRange(height, chunk.endHeight);
+              break;
+            } catch (RuntimeException e) {
+              if (isClosed) return;
+              if (retryPolicy == null || numRetries >= retryPolicy.getMaxRetries()) {
+                put(e instanceof MoneroError ? e : new MoneroError(e));
+                return;
+              }
+              TimeUnit.MILLISECONDS.sleep(retryPolicy.getDelayMs(numRetries++));
+            }
+          }
+          
+          // wait for room ahead of consumption
+          if (!put(blocks)) return;
+          height = blocks.get(blocks.size() - 1).getHeight() + 1;
+        }
+        put(END);
+      } catch (InterruptedException e) {
+        // closed
+      } catch (Throwable e) {
+        
+        // fail the iterator instead of leaving it waiting for a chunk
+        try {
+          put(new MoneroError(e));
+        } catch (InterruptedException e2) {
+          // closed
+        }
+      }
+    }
+    
+    /**
+     * Put an item in the queue once there is room.
+     * 
+     * @return true if the item was queued, false if closed or the iterator was abandoned
+     */
+    private boolean put(Object item) throws InterruptedException {
+      while (!chunks.offer(item, ABANDONED_CHECK_PERIOD_IN_MS, TimeUnit.MILLISECONDS)) {
+        if (isClosed || iteratorRef.get() == null) return false;
+      }
+      return !isClosed;
+    }
   }
   
   /**
-   * Polls a Monero daemon for updates and notifies listeners as they occur.
+   * Contiguous chunk of blocks to fetch in one request.
    */
-  private class DaemonPoller {
+  private static class BlockChunk {
     
-    private static final long DEFAULT_POLL_PERIOD_IN_MS = 10000; // poll every X ms
+    private final long endHeight;
+    private final long size;
     
-    private MoneroDaemonRpc daemon;
+    public BlockChunk(long endHeight, long size) {
+      this.endHeight = endHeight;
+      this.size = size;
+    }
+  }
+  
+  /**
+   * Bounded cache of main chain block headers by height which evicts the least recently used
+   * headers and invalidates headers near a reorg.
+   */
+  private static class HeaderCache {
+    
+    private int maxSize;
+    private long topHeight = -1; // height of the highest known block to derive depths
+    private long topHeightTime; // local time when the top height was last known
+    private long numHits;
+    private long numMisses;
+    private LinkedHashMap<Long, MoneroBlockHeader> headers = new LinkedHashMap<Long, MoneroBlockHeader>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, MoneroBlockHeader> eldest) {
+        return size() > maxSize;
+      }
+    };
+    
+    public HeaderCache(int maxSize) {
+      this.maxSize = maxSize;
+    }
+    
+    public synchronized void setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+      Iterator<Long> iter = headers.keySet().iterator();
+      while (headers.size() > maxSize) {
+        iter.next();
+        iter.remove();
+      }
+    }
+    
+    public synchronized int getMaxSize() {
+      return maxSize;
+    }
+    
+    public synchronized long getNumHits() {
+      return numHits;
+    }
+    
+    public synchronized long getNumMisses() {
+      return numMisses;
+    }
+    
+    public synchronized boolean isEmpty() {
+      return headers.isEmpty();
+    }
+    
+    public synchronized long getTopHeightTime() {
+      return topHeightTime;
+    }
+    
+    public synchronized void setTopHeight(long topHeight) {
+      this.topHeight = topHeight;
+      topHeightTime = System.currentTimeMillis();
+    }
+    
+    /**
+     * Get a copy of the cached header at a height.
+     * 
+     * @param isCurrent specifies if reorgs are seen, otherwise only headers below the reorg depth are returned
+     * @return the cached header or null if not cached
+     */
+    public synchronized MoneroBlockHeader get(long height, boolean isCurrent) {
+      if (maxSize == 0) return null;
+      MoneroBlockHeader header = isCurrent || isBelowReorgDepth(height) ? headers.get(height) : null;
+      if (header == null) {
+        numMisses++;
+        return null;
+      }
+      numHits++;
+      return copy(header);
+    }
+    
+    /**
+     * Get copies of the cached headers in a range of heights.
+     * 
+     * @param isCurrent specifies if reorgs are seen, otherwise only headers below the reorg depth are returned
+     * @return the cached headers or null if any header in the range is not cached
+     */
+    public synchronized List<MoneroBlockHeader> getRange(long startHeight, long endHeight, boolean isCurrent) {
+      if (maxSize == 0) return null;
+      if (!isCurrent && !isBelowReorgDepth(endHeight)) {
+        numMisses++;
+        return null;
+      }
+      List<MoneroBlockHeader> rangeHeaders = new ArrayList<MoneroBlockHeader>();
+      for (long height = startHeight; height <= endHeight; height++) {
+        MoneroBlockHeader header = headers.get(height);
+        if (header == null) {
+          numMisses++;
+          return null;
+        }
+        rangeHeaders.add(copy(header));
+      }
+      numHits++;
+      return rangeHeaders;
+    }
+    
+    /**
+     * Cache a main chain header fetched from the daemon, invalidating headers near its height
+     * if it replaces a different header.
+     */
+    public synchronized void put(MoneroBlockHeader header) {
+      if (maxSize == 0 || header.getHeight() == null || header.getHash() == null || Boolean.TRUE.equals(header.getOrphanStatus())) return;
+      MoneroBlockHeader cachedHeader = headers.get(header.getHeight());
+      if (cachedHeader != null && !cachedHeader.getHash().equals(header.getHash())) invalidate(header.getHeight());
+      if (header.getDepth() != null) {
+        topHeight = Math.max(topHeight, header.getHeight() + header.getDepth());
+        topHeightTime = System.currentTimeMillis();
+      }
+      headers.put(header.getHeight(), new MoneroBlockHeader(header));
+    }
+    
+    /**
+     * Update the cache with a new block at the top of the chain, invalidating headers near
+     * its height if it does not extend the cached chain.
+     */
+    public synchronized void onBlockHeader(MoneroBlockHeader header) {
+      if (header.getHeight() == null) return;
+      MoneroBlockHeader prevHeader = headers.get(header.getHeight() - 1);
+      if (prevHeader != null && header.getPrevHash() != null && !prevHeader.getHash().equals(header.getPrevHash())) invalidate(header.getHeight() - 1);
+      topHeight = header.getHeight();
+      topHeightTime = System.currentTimeMillis();
+      put(header);
+    }
+    
+    public synchronized void clear() {
+      headers.clear();
+    }
+    
+    private boolean isBelowReorgDepth(long height) {
+      return topHeight >= 0 && height < topHeight - MAX_REORG_DEPTH;
+    }
+    
+    private void invalidate(long reorgHeight) {
+      headers.keySet().removeIf(height -> height >= reorgHeight - MAX_REORG_DEPTH);
+    }
+    
+    private MoneroBlockHeader copy(MoneroBlockHeader header) {
+      MoneroBlockHeader copy = new MoneroBlockHeader(header);
+      if (topHeight >= 0 && header.getDepth() != null) copy.setDepth(Math.max(0, topHeight - header.getHeight()));
+      return copy;
+    }
+  }
+  
+  /**
+   * Polls a Monero daemon for updates and notifies the listeners of all daemon instances
+   * registered with it as they occur.<br><br>
+   * 
+   * If the daemon's connection has a ZMQ publish uri, new blocks and tx pool entries are
+   * pushed from the daemon's json-minimal-chain_main and json-minimal-txpool_add topics.
+   * Polling slows to catch missed notifications while the subscriber is connected, and
+   * resumes its normal period if ZMQ is unavailable.
+   */
+  private static class DaemonPoller {
+    
+    private static final long TARGET_BLOCK_TIME_IN_MS = 120000;
+    private static final long MIN_ADAPTIVE_POLL_PERIOD_IN_MS = 1000;
+    private static final long ZMQ_POLL_PERIOD_IN_MS = 60000; // poll every X ms while subscribed to zmq
+    private static final long ZMQ_RECEIVE_TIMEOUT_IN_MS = 1000; // check if unsubscribed every X ms
+    private static final String ZMQ_CHAIN_TOPIC = "json-minimal-chain_main";
+    private static final String ZMQ_TX_POOL_TOPIC = "json-minimal-txpool_add";
+    
+    private String uri;
+    private List<MoneroDaemonRpc> daemons = new CopyOnWriteArrayList<MoneroDaemonRpc>();
     private TaskLooper looper;
     private MoneroBlockHeader lastHeader;
+    private long lastHeaderTime; // local time when the last header changed
+    private boolean isPolling;
+    private String zmqUri;
+    private AtomicBoolean isZmqSubscribed; // set false to end the current subscription
+    private boolean isZmqConnected;
     
-    public DaemonPoller(MoneroDaemonRpc daemon) {
-      this.daemon = daemon;
+    public DaemonPoller(String uri) {
+      this.uri = uri;
       looper = new TaskLooper(new Runnable() {
         @Override
         public void run() {
@@ -1730,34 +2507,104 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
       });
     }
     
-    public void setIsPolling(boolean isPolling) {
-      if (isPolling) looper.start(DEFAULT_POLL_PERIOD_IN_MS); // TODO: allow configurable poll period
-      else looper.stop();
+    public String getUri() {
+      return uri;
+    }
+    
+    public synchronized void addDaemon(MoneroDaemonRpc daemon) {
+      if (!daemons.contains(daemon)) daemons.add(daemon);
+      refresh();
+    }
+    
+    /**
+     * Unregister a daemon instance.
+     * 
+     * @param daemon is the daemon instance to unregister
+     * @return true if no daemon instances remain registered, false otherwise
+     */
+    public synchronized boolean removeDaemon(MoneroDaemonRpc daemon) {
+      daemons.remove(daemon);
+      refresh();
+      return daemons.isEmpty();
+    }
+    
+    /**
+     * Start or stop polling depending on registered daemon instances and apply their poll settings.
+     */
+    public synchronized void refresh() {
+      isPolling = !daemons.isEmpty();
+      if (isPolling) {
+        refreshZmq();
+        if (looper.isStarted()) looper.setPeriodInMs(getPollPeriodInMs());
+        else looper.start(getPollPeriodInMs());
+      } else {
+        looper.stop();
+        unsubscribeZmq();
+      }
+    }
+    
+    /**
+     * Get the period until the next poll, which is the shortest poll period of the registered
+     * daemon instances, adapted to the time since the last block if they all poll adaptively.
+     */
+    private synchronized long getPollPeriodInMs() {
+      if (isZmqConnected) return ZMQ_POLL_PERIOD_IN_MS;
+      long pollPeriodInMs = Long.MAX_VALUE;
+      boolean adaptivePolling = true;
+      for (MoneroDaemonRpc daemon : daemons) {
+        pollPeriodInMs = Math.min(pollPeriodInMs, daemon.getPollPeriodInMs());
+        adaptivePolling = adaptivePolling && daemon.getAdaptivePolling();
+      }
+      if (daemons.isEmpty()) return DEFAULT_POLL_PERIOD_IN_MS;
+      if (!adaptivePolling || lastHeaderTime == 0) return pollPeriodInMs;
+      long timeSinceBlock = System.currentTimeMillis() - lastHeaderTime;
+      if (timeSinceBlock < TARGET_BLOCK_TIME_IN_MS / 2) return Math.min(pollPeriodInMs * 3, TARGET_BLOCK_TIME_IN_MS / 2 - timeSinceBlock + 1); // block unlikely
+      if (timeSinceBlock < TARGET_BLOCK_TIME_IN_MS * 2) return Math.max(MIN_ADAPTIVE_POLL_PERIOD_IN_MS, pollPeriodInMs / 2); // block due
+      return pollPeriodInMs;
     }
     
     private void poll() {
       try {
         
+        // poll through first registered daemon instance
+        if (daemons.isEmpty()) return;
+        MoneroDaemonRpc daemon = daemons.get(0);
+        
+        // subscribe to zmq of current connection
+        refreshZmq();
+        
         // get first header for comparison
-        if (lastHeader == null) {
-          lastHeader = daemon.getLastBlockHeader();
-          return;
+        synchronized (this) {
+          if (lastHeader == null) {
+            lastHeader = daemon.getLastBlockHeader();
+            return;
+          }
         }
         
         // fetch and compare latest block header
-        MoneroBlockHeader header = daemon.getLastBlockHeader();
-        if (!header.getHash().equals(lastHeader.getHash())) {
-          lastHeader = header;
-          synchronized(daemon.getListeners()) {
-            announceBlockHeader(header);
-          }
-        }
+        onBlockHeader(daemon.getLastBlockHeader());
       } catch (Exception e) {
         e.printStackTrace();
+      } finally {
+        looper.setPeriodInMs(getPollPeriodInMs());
+      }
+    }
+    
+    private void onBlockHeader(MoneroBlockHeader header) {
+      synchronized (this) {
+        if (lastHeader != null && (header.getHash().equals(lastHeader.getHash()) || header.getHeight() < lastHeader.getHeight())) return; // already notified
+        lastHeader = header;
+        lastHeaderTime = System.currentTimeMillis();
+      }
+      for (MoneroDaemonRpc daemon : daemons) daemon.headerCache.onBlockHeader(header);
+      for (MoneroDaemonRpc daemon : daemons) {
+        synchronized(daemon.getListeners()) {
+          announceBlockHeader(daemon, header);
+        }
       }
     }
 
-    private void announceBlockHeader(MoneroBlockHeader header) {
+    private void announceBlockHeader(MoneroDaemonRpc daemon, MoneroBlockHeader header) {
       for (MoneroDaemonListener listener : daemon.getListeners()) {
         try {
           listener.onBlockHeader(header);
@@ -1767,5 +2614,138 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         }
       }
     }
+    
+    private void announceTxPoolTx(MoneroDaemonRpc daemon, MoneroTx tx) {
+      for (MoneroDaemonListener listener : daemon.getListeners()) {
+        try {
+          listener.onTxPoolTx(tx);
+        } catch (Exception e) {
+          System.err.println("Error calling listener on new tx pool tx: " + e.getMessage());
+          e.printStackTrace();
+        }
+      }
+    }
+    
+    /**
+     * Subscribe to the zmq publish uri of the first registered daemon instance's connection if changed.
+     */
+    private synchronized void refreshZmq() {
+      if (!isPolling || daemons.isEmpty()) return;
+      MoneroRpcConnection connection = daemons.get(0).getRpcConnection();
+      String zmqUri = connection == null ? null : connection.getZmqUri();
+      if (zmqUri == null ? this.zmqUri == null : zmqUri.equals(this.zmqUri)) return;
+      unsubscribeZmq();
+      this.zmqUri = zmqUri;
+      if (zmqUri == null) return;
+      AtomicBoolean isZmqSubscribed = new AtomicBoolean(true);
+      this.isZmqSubscribed = isZmqSubscribed;
+      Thread thread = new Thread(() -> subscribeZmq(zmqUri, isZmqSubscribed), "MoneroDaemonRpc-zmq");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    
+    private synchronized void unsubscribeZmq() {
+      if (isZmqSubscribed != null) isZmqSubscribed.set(false);
+      isZmqSubscribed = null;
+      zmqUri = null;
+      setIsZmqConnected(false);
+    }
+    
+    private void subscribeZmq(String zmqUri, AtomicBoolean isZmqSubscribed) {
+      try (ZContext context = new ZContext()) {
+        
+        // monitor connection to publisher
+        ZMQ.Socket subscriber = context.createSocket(SocketType.SUB);
+        subscriber.monitor("inproc://monitor", ZMQ.EVENT_CONNECTED | ZMQ.EVENT_DISCONNECTED);
+        ZMQ.Socket monitor = context.createSocket(SocketType.PAIR);
+        monitor.connect("inproc://monitor");
+        
+        // subscribe to chain and tx pool topics
+        subscriber.subscribe(ZMQ_CHAIN_TOPIC.getBytes(ZMQ.CHARSET));
+        subscriber.subscribe(ZMQ_TX_POOL_TOPIC.getBytes(ZMQ.CHARSET));
+        subscriber.connect(zmqUri);
+        
+        // receive until unsubscribed
+        ZMQ.Poller poller = context.createPoller(2);
+        poller.register(subscriber, ZMQ.Poller.POLLIN);
+        poller.register(monitor, ZMQ.Poller.POLLIN);
+        while (isZmqSubscribed.get()) {
+          poller.poll(ZMQ_RECEIVE_TIMEOUT_IN_MS);
+          if (poller.pollin(1)) {
+            ZMQ.Event event = ZMQ.Event.recv(monitor);
+            synchronized (this) {
+              if (isZmqSubscribed.get()) setIsZmqConnected(event.getEvent() == ZMQ.EVENT_CONNECTED);
+            }
+          }
+          if (poller.pollin(0)) {
+            String message = subscriber.recvStr();
+            if (!isZmqSubscribed.get()) break;
+            try {
+              onZmqMessage(message);
+            } catch (Exception e) {
+              e.printStackTrace();
+            }
+          }
+        }
+      } catch (Exception e) {
+        System.err.println("Error subscribing to zmq at " + zmqUri + ": " + e.getMessage());
+        e.printStackTrace();
+        synchronized (this) {
+          if (isZmqSubscribed.get()) setIsZmqConnected(false); // fall back to polling
+        }
+      }
+    }
+    
+    /**
+     * Poll at the normal period unless connected to the zmq publisher, restarting the loop
+     * so polling resumes immediately if disconnected.
+     */
+    private void setIsZmqConnected(boolean isZmqConnected) {
+      if (this.isZmqConnected == isZmqConnected) return;
+      this.isZmqConnected = isZmqConnected;
+      if (!isPolling) return;
+      looper.stop();
+      looper.start(getPollPeriodInMs());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void onZmqMessage(String message) {
+      int topicEndIdx = message.indexOf(':');
+      if (topicEndIdx < 0) return;
+      String topic = message.substring(0, topicEndIdx);
+      String json = message.substring(topicEndIdx + 1);
+      if (ZMQ_CHAIN_TOPIC.equals(topic)) {
+        
+        // fetch headers of blocks added to the main chain
+        Map<String, Object> chain = JsonUtils.deserialize(MoneroRpcConnection.MAPPER, json, new TypeReference<Map<String, Object>>(){});
+        List<String> blockHashes = (List<String>) chain.get("ids");
+        if (blockHashes == null || blockHashes.isEmpty()) return;
+        long firstHeight = ((BigInteger) chain.get("first_height")).longValue();
+        if (daemons.isEmpty()) return;
+        MoneroDaemonRpc daemon = daemons.get(0);
+        List<MoneroBlockHeader> headers = blockHashes.size() == 1 ? Arrays.asList(daemon.getBlockHeaderByHash(blockHashes.get(0))) : daemon.fetchBlockHeadersByRange(firstHeight, firstHeight + blockHashes.size() - 1); // not cached which could be orphaned
+        for (int i = 0; i < headers.size(); i++) {
+          if (!blockHashes.get(i).equals(headers.get(i).getHash())) return; // chain changed since notification, caught up by next poll
+          onBlockHeader(headers.get(i));
+        }
+      } else if (ZMQ_TX_POOL_TOPIC.equals(topic)) {
+        
+        // announce txs added to the pool
+        List<Map<String, Object>> rpcTxs = JsonUtils.deserialize(MoneroRpcConnection.MAPPER, json, new TypeReference<List<Map<String, Object>>>(){});
+        for (Map<String, Object> rpcTx : rpcTxs) {
+          MoneroTx tx = new MoneroTx();
+          tx.setHash((String) rpcTx.get("id"));
+          if (rpcTx.get("blob_size") != null) tx.setSize(((BigInteger) rpcTx.get("blob_size")).longValue());
+          if (rpcTx.get("weight") != null) tx.setWeight(((BigInteger) rpcTx.get("weight")).longValue());
+          if (rpcTx.get("fee") != null) tx.setFee((BigInteger) rpcTx.get("fee"));
+          tx.setInTxPool(true);
+          for (MoneroDaemonRpc daemon : daemons) {
+            synchronized(daemon.getListeners()) {
+              announceTxPoolTx(daemon, tx);
+            }
+          }
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,72 @@
+package monero.daemon.model;
+
+import monero.common.MoneroRetryPolicy;
+
+/**
+ * Configuration to stream blocks from a Monero daemon.
+ */
+public class MoneroBlockStreamConfig {
+
+  private Long maxChunkSize;      // maximum size of blocks fetched in one request in bytes
+  private Integer numChunksAhead; // number of chunks to fetch ahead of consumption
+  private MoneroRetryPolicy retryPolicy;
+
+  public MoneroBlockStreamConfig() {
+    // default constructor
+  }
+
+  public MoneroBlockStreamConfig(MoneroBlockStreamConfig config) {
+    maxChunkSize = config.getMaxChunkSize();
+    numChunksAhead = config.getNumChunksAhead();
+    retryPolicy = config.getRetryPolicy();
+  }
+
+  public MoneroBlockStreamConfig copy() {
+    return new MoneroBlockStreamConfig(this);
+  }
+
+  public Long getMaxChunkSize() {
+    return maxChunkSize;
+  }
+
+  /**
+   * Set the maximum size of blocks to fetch in one request.
+   *
+   * @param maxChunkSize is the maximum size of blocks to fetch in one request in bytes (default 3,000,000)
+   * @return this config for chaining
+   */
+  public MoneroBlockStreamConfig setMaxChunkSize(Long maxChunkSize) {
+    this.maxChunkSize = maxChunkSize;
+    return this;
+  }
+
+  public Integer getNumChunksAhead() {
+    return numChunksAhead;
+  }
+
+  /**
+   * Set the number of chunks to fetch ahead of consumption, which bounds the blocks held in memory.
+   *
+   * @param numChunksAhead is the number of chunks to fetch ahead of consumption (default 2)
+   * @return this config for chaining
+   */
+  public MoneroBlockStreamConfig setNumChunksAhead(Integer numChunksAhead) {
+    this.numChunksAhead = numChunksAhead;
+    return this;
+  }
+
+  public MoneroRetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Set the policy to retry fetching a chunk from the next unconsumed height after a failure.
+   *
+   * @param retryPolicy is the policy to retry failed chunks, or null to end the stream with the error (default)
+   * @return this config for chaining
+   */
+  public MoneroBlockStreamConfig setRetryPolicy(MoneroRetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+    return this;
+  }
+}
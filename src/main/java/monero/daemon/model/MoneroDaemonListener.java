@@ -16,6 +16,15 @@ public class MoneroDaemonListener {
     lastHeader = header;
   }
   
+  /**
+   * Called when a transaction is added to the tx pool.<br><br>
+   * 
+   * Only notified if the daemon's connection has a ZMQ publish uri.
+   * 
+   * @param tx is the transaction added to the tx pool with its hash, size, weight, and fee
+   */
+  public void onTxPoolTx(MoneroTx tx) { }
+  
   /**
    * Get the last notified block header.
    * 
@@ -19,6 +19,7 @@ public class MoneroOutput {
   private Long index;
   private List<Long> ringOutputIndices;
   private String stealthPublicKey;
+  private String viewTag;
   
   public MoneroOutput() {
     // nothing to build
@@ -30,6 +31,7 @@ public class MoneroOutput {
     this.index = output.index;
     if (output.ringOutputIndices != null) this.ringOutputIndices = new ArrayList<Long>(output.ringOutputIndices);
     this.stealthPublicKey = output.stealthPublicKey;
+    this.viewTag = output.viewTag;
   }
   
   public MoneroOutput copy() {
@@ -91,6 +93,20 @@ public class MoneroOutput {
     return this;
   }
   
+  /**
+   * Get the output's view tag, which lets a wallet skip most outputs not sent to it.
+   * 
+   * @return the view tag as a hex byte, or null if unknown or the output is untagged
+   */
+  public String getViewTag() {
+    return viewTag;
+  }
+  
+  public MoneroOutput setViewTag(String viewTag) {
+    this.viewTag = viewTag;
+    return this;
+  }
+  
   @Override
   public String toString() {
     return toString(0);
@@ -124,6 +140,7 @@ public class MoneroOutput {
     sb.append(GenUtils.kvLine("Index", getIndex(), indent));
     sb.append(GenUtils.kvLine("Ring output indices", getRingOutputIndices(), indent));
     sb.append(GenUtils.kvLine("Stealth public key", getStealthPublicKey(), indent));
+    sb.append(GenUtils.kvLine("View tag", getViewTag(), indent));
     String str = sb.toString();
     return str.isEmpty() ? str : str.substring(0, str.length() - 1);  // strip newline
   }
@@ -137,6 +154,7 @@ public class MoneroOutput {
     result = prime * result + ((keyImage == null) ? 0 : keyImage.hashCode());
     result = prime * result + ((ringOutputIndices == null) ? 0 : ringOutputIndices.hashCode());
     result = prime * result + ((stealthPublicKey == null) ? 0 : stealthPublicKey.hashCode());
+    result = prime * result + ((viewTag == null) ? 0 : viewTag.hashCode());
     return result;
   }
 
@@ -161,6 +179,9 @@ public class MoneroOutput {
     if (stealthPublicKey == null) {
       if (other.stealthPublicKey != null) return false;
     } else if (!stealthPublicKey.equals(other.stealthPublicKey)) return false;
+    if (viewTag == null) {
+      if (other.viewTag != null) return false;
+    } else if (!viewTag.equals(other.viewTag)) return false;
     return true;
   }
 }
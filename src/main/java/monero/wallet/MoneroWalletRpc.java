@@ -22,6 +22,8 @@
 
 package monero.wallet;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import common.utils.GenUtils;
 import common.utils.JsonUtils;
 import java.io.BufferedReader;
@@ -2067,30 +2069,22 @@ public class MoneroWalletRpc extends MoneroWalletDefault {
     Map<Long, MoneroBlock> blockMap = new HashMap<Long, MoneroBlock>();
     
     // build txs using `get_transfers`
-    Map<String, Object> resp = rpc.sendJsonRequest("get_transfers", params);
-    Map<String, Object> result = (Map<String, Object>) resp.get("result");
-    for (String key : result.keySet()) {
-      for (Map<String, Object> rpcTx :((List<Map<String, Object>>) result.get(key))) {
-        MoneroTxWallet tx = convertRpcTxWithTransfer(rpcTx, null, null, null);
-        if (tx.isConfirmed()) GenUtils.assertTrue(tx.getBlock().getTxs().contains(tx));
-//        if (tx.getId().equals("38436c710dfbebfb24a14cddfd430d422e7282bbe94da5e080643a1bd2880b44")) {
-//          System.out.println(rpcTx);
-//          System.out.println(tx.getOutgoingAmount().compareTo(BigInteger.valueOf(0)) == 0);
-//        }
-        
-        // replace transfer amount with destination sum
-        // TODO monero-wallet-rpc: confirmed tx from/to same account has amount 0 but cached transfers
-        if (tx.getOutgoingTransfer() != null && Boolean.TRUE.equals(tx.isRelayed()) && !Boolean.TRUE.equals(tx.isFailed()) &&
-            tx.getOutgoingTransfer().getDestinations() != null && tx.getOutgoingAmount().compareTo(BigInteger.valueOf(0)) == 0) {
-          MoneroOutgoingTransfer outgoingTransfer = tx.getOutgoingTransfer();
-          BigInteger transferTotal = BigInteger.valueOf(0);
-          for (MoneroDestination destination : outgoingTransfer.getDestinations()) transferTotal = transferTotal.add(destination.getAmount());
-          tx.getOutgoingTransfer().setAmount(transferTotal);
-        }
-        
-        // merge tx
-        mergeTx(tx, txMap, blockMap);
+    List<MoneroTxWallet> rpcTxs = rpc.sendJsonRequest("get_transfers", params, null, MoneroWalletRpc::readRpcTxsWithTransfer);
+    for (MoneroTxWallet tx : rpcTxs) {
+      if (tx.isConfirmed()) GenUtils.assertTrue(tx.getBlock().getTxs().contains(tx));
+      
+      // replace transfer amount with destination sum
+      // TODO monero-wallet-rpc: confirmed tx from/to same account has amount 0 but cached transfers
+      if (tx.getOutgoingTransfer() != null && Boolean.TRUE.equals(tx.isRelayed()) && !Boolean.TRUE.equals(tx.isFailed()) &&
+          tx.getOutgoingTransfer().getDestinations() != null && tx.getOutgoingAmount().compareTo(BigInteger.valueOf(0)) == 0) {
+        MoneroOutgoingTransfer outgoingTransfer = tx.getOutgoingTransfer();
+        BigInteger transferTotal = BigInteger.valueOf(0);
+        for (MoneroDestination destination : outgoingTransfer.getDestinations()) transferTotal = transferTotal.add(destination.getAmount());
+        tx.getOutgoingTransfer().setAmount(transferTotal);
       }
+      
+      // merge tx
+      mergeTx(tx, txMap, blockMap);
     }
     
     // sort txs by block height
@@ -3045,6 +3039,15 @@ public class MoneroWalletRpc extends MoneroWalletDefault {
       else LOGGER.warning("ignoring unexpected transaction field with transfer: " + key + ": " + val);
     }
     
+    // link block and tx and initialize final fields
+    initTxWithTransfer(tx, header, transfer, isOutgoing);
+    
+    // return initialized transaction
+    return tx;
+  }
+  
+  private static void initTxWithTransfer(MoneroTxWallet tx, MoneroBlockHeader header, MoneroTransfer transfer, boolean isOutgoing) {
+    
     // link block and tx
     if (header != null) tx.setBlock(new MoneroBlock(header).setTxs(tx));
     
@@ -3064,8 +3067,134 @@ public class MoneroWalletRpc extends MoneroWalletDefault {
         tx.setIncomingTransfers(new ArrayList<MoneroIncomingTransfer>(Arrays.asList((MoneroIncomingTransfer) transfer)));
       }
     }
+  }
+  
+  /**
+   * Reads the result of get_transfers from a streaming parser without building intermediate maps.
+   * 
+   * The result groups txs by type ("in", "out", "pending", "failed", "pool"), each an array of txs.
+   */
+  private static List<MoneroTxWallet> readRpcTxsWithTransfer(JsonParser parser) throws IOException {
+    List<MoneroTxWallet> txs = new ArrayList<MoneroTxWallet>();
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        parser.skipChildren();
+        continue;
+      }
+      while (parser.nextToken() != JsonToken.END_ARRAY) txs.add(readRpcTxWithTransfer(parser));
+    }
+    return txs;
+  }
+  
+  /**
+   * Reads a tx with transfer from a streaming parser positioned at the tx's START_OBJECT.
+   * 
+   * Mirrors convertRpcTxWithTransfer() for the fields returned by get_transfers. Fields which depend on
+   * the tx type are held until the object is read since "type" is not guaranteed to precede them.
+   */
+  private static MoneroTxWallet readRpcTxWithTransfer(JsonParser parser) throws IOException {
+    MoneroTxWallet tx = new MoneroTxWallet();
+    String type = null;
+    Long height = null;
+    Long timestamp = null;
+    Long numSuggestedConfirmations = null;
+    BigInteger amount = null;
+    String address = null;
+    List<Integer> majorIndices = null;
+    List<Integer> minorIndices = null;
+    List<MoneroDestination> destinations = null;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("txid") || key.equals("tx_hash")) tx.setHash(parser.getText());
+      else if (key.equals("type")) type = parser.getText();
+      else if (key.equals("fee")) tx.setFee(parser.getBigIntegerValue());
+      else if (key.equals("note")) { String note = parser.getText(); if (!"".equals(note)) tx.setNote(note); }
+      else if (key.equals("unlock_time")) tx.setUnlockTime(parser.getBigIntegerValue());
+      else if (key.equals("locked")) tx.setIsLocked(parser.getBooleanValue());
+      else if (key.equals("double_spend_seen")) tx.setIsDoubleSpendSeen(parser.getBooleanValue());
+      else if (key.equals("block_height") || key.equals("height")) height = parser.getLongValue();
+      else if (key.equals("timestamp")) timestamp = parser.getLongValue();
+      else if (key.equals("confirmations")) tx.setNumConfirmations(parser.getLongValue());
+      else if (key.equals("suggested_confirmations_threshold")) numSuggestedConfirmations = parser.getLongValue();
+      else if (key.equals("amount")) amount = parser.getBigIntegerValue();
+      else if (key.equals("amounts")) parser.skipChildren();  // ignoring, amounts sum to amount
+      else if (key.equals("address")) address = parser.getText();
+      else if (key.equals("payment_id")) {
+        String paymentId = parser.getText();
+        if (!"".equals(paymentId) && !MoneroTxWallet.DEFAULT_PAYMENT_ID.equals(paymentId)) tx.setPaymentId(paymentId);  // default is undefined
+      }
+      else if (key.equals("subaddr_index")) parser.skipChildren(); // handled by subaddr_indices
+      else if (key.equals("subaddr_indices")) {
+        majorIndices = new ArrayList<Integer>();
+        minorIndices = new ArrayList<Integer>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String indexKey = parser.getCurrentName();
+            parser.nextToken();
+            if (indexKey.equals("major")) majorIndices.add(parser.getIntValue());
+            else if (indexKey.equals("minor")) minorIndices.add(parser.getIntValue());
+            else parser.skipChildren();
+          }
+        }
+      }
+      else if (key.equals("destinations") || key.equals("recipients")) {
+        destinations = new ArrayList<MoneroDestination>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          MoneroDestination destination = new MoneroDestination();
+          destinations.add(destination);
+          while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String destinationKey = parser.getCurrentName();
+            parser.nextToken();
+            if (destinationKey.equals("address")) destination.setAddress(parser.getText());
+            else if (destinationKey.equals("amount")) destination.setAmount(parser.getBigIntegerValue());
+            else throw new MoneroError("Unrecognized transaction destination field: " + destinationKey);
+          }
+        }
+      }
+      else {
+        LOGGER.warning("ignoring unexpected transaction field with transfer: " + key + ": " + parser.getText());
+        parser.skipChildren();
+      }
+    }
     
-    // return initialized transaction
+    // initialize tx state from rpc type
+    GenUtils.assertNotNull("Must indicate tx type", type);
+    boolean isOutgoing = decodeRpcType(type, tx);
+    
+    // initialize block header
+    MoneroBlockHeader header = null;
+    if (tx.isConfirmed() && (height != null || timestamp != null)) {
+      header = new MoneroBlockHeader();
+      if (height != null) header.setHeight(height);
+      if (timestamp != null) header.setTimestamp(timestamp); // timestamp of unconfirmed tx is current request time
+    }
+    
+    // initialize transfer
+    MoneroTransfer transfer = null;
+    if (numSuggestedConfirmations != null || amount != null || majorIndices != null || destinations != null || (address != null && !isOutgoing)) {
+      transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
+      if (amount != null) transfer.setAmount(amount);
+      if (!isOutgoing) {
+        if (numSuggestedConfirmations != null) ((MoneroIncomingTransfer) transfer).setNumSuggestedConfirmations(numSuggestedConfirmations);
+        if (address != null) ((MoneroIncomingTransfer) transfer).setAddress(address);
+      }
+      if (majorIndices != null) {
+        transfer.setAccountIndex(majorIndices.get(0));
+        if (isOutgoing) ((MoneroOutgoingTransfer) transfer).setSubaddressIndices(minorIndices);
+        else {
+          GenUtils.assertEquals(1, minorIndices.size());
+          ((MoneroIncomingTransfer) transfer).setSubaddressIndex(minorIndices.get(0));
+        }
+      }
+      if (destinations != null) {
+        GenUtils.assertTrue(isOutgoing);
+        ((MoneroOutgoingTransfer) transfer).setDestinations(destinations);
+      }
+    }
+    
+    // link block and tx and initialize final fields
+    initTxWithTransfer(tx, header, transfer, isOutgoing);
     return tx;
   }
   
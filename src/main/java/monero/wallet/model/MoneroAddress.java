@@ -0,0 +1,76 @@
+package monero.wallet.model;
+
+import monero.daemon.model.MoneroNetworkType;
+
+/**
+ * Monero address model with the network, type, public keys and payment id it encodes.<br><br>
+ *
+ * Addresses are immutable so decoded addresses can be shared. Use MoneroUtils.decodeAddressKeys()
+ * and MoneroUtils.encodeAddress() to convert between addresses and their parts.
+ */
+public class MoneroAddress {
+
+  private final String address;
+  private final MoneroNetworkType networkType;
+  private final MoneroAddressType addressType;
+  private final String publicSpendKey;
+  private final String publicViewKey;
+  private final String paymentId;
+
+  public MoneroAddress(String address, MoneroNetworkType networkType, MoneroAddressType addressType, String publicSpendKey, String publicViewKey, String paymentId) {
+    this.address = address;
+    this.networkType = networkType;
+    this.addressType = addressType;
+    this.publicSpendKey = publicSpendKey;
+    this.publicViewKey = publicViewKey;
+    this.paymentId = paymentId;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public MoneroNetworkType getNetworkType() {
+    return networkType;
+  }
+
+  public MoneroAddressType getAddressType() {
+    return addressType;
+  }
+
+  public String getPublicSpendKey() {
+    return publicSpendKey;
+  }
+
+  public String getPublicViewKey() {
+    return publicViewKey;
+  }
+
+  /**
+   * Get the payment id of an integrated address.
+   *
+   * @return the payment id as 16 hex characters, or null if not an integrated address
+   */
+  public String getPaymentId() {
+    return paymentId;
+  }
+
+  public String toString() {
+    return address;
+  }
+
+  @Override
+  public int hashCode() {
+    return address == null ? 0 : address.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (obj == null) return false;
+    if (getClass() != obj.getClass()) return false;
+    MoneroAddress other = (MoneroAddress) obj;
+    if (address == null) return other.address == null;
+    return address.equals(other.address); // address encodes all other fields
+  }
+}
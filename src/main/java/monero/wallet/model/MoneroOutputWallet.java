@@ -206,4 +206,10 @@ public class MoneroOutputWallet extends MoneroOutput {
     super.setStealthPublicKey(stealthPublicKey);
     return this;
   }
+  
+  @Override
+  public MoneroOutputWallet setViewTag(String viewTag) {
+    super.setViewTag(viewTag);
+    return this;
+  }
 }
@@ -12,6 +12,8 @@ import org.junit.runner.RunWith;
   TestSampleCode.class,
   TestSerialization.class,
   TestMoneroUtils.class,
+  TestMoneroRpcConnection.class,
+  TestTaskLooper.class,
   TestMoneroDaemonRpc.class,
   TestMoneroWalletFull.class,
   TestMoneroWalletRpc.class,
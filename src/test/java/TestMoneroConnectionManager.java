@@ -2,19 +2,40 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import common.utils.GenUtils;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import monero.common.MoneroConnectionProbe;
+import monero.common.MoneroConnectionScore;
+import monero.common.MoneroError;
+import monero.common.MoneroRetryPolicy;
 import monero.common.MoneroRpcConnection;
+import monero.common.MoneroRpcError;
+import monero.common.MoneroConnectionManager.LoadBalanceType;
 import monero.common.MoneroConnectionManager.PollType;
 import monero.common.MoneroConnectionManager;
 import monero.common.MoneroConnectionManagerListener;
 import monero.wallet.MoneroWalletRpc;
 import org.junit.jupiter.api.Test;
+import utils.TestRpcServer;
 import utils.TestUtils;
 
 /**
@@ -266,11 +287,573 @@ public class TestMoneroConnectionManager {
     }
   }
   
+  // Can switch to a connection once it is consistently faster by the switch threshold
+  @Test
+  public void testSwitchConnectionByScore() {
+    AtomicLong delayMs1 = new AtomicLong(100);
+    AtomicLong delayMs2 = new AtomicLong(0);
+    try (TestRpcServer server1 = startServer(delayMs1, null); TestRpcServer server2 = startServer(delayMs2, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager();
+      ConnectionChangeCollector listener = new ConnectionChangeCollector();
+      connectionManager.addListener(listener);
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri());
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri());
+      connectionManager.addConnection(connection2);
+      connectionManager.setConnection(connection1);
+      connectionManager.setAutoSwitch(true);
+      try {
+        
+        // check current connection
+        connectionManager.checkConnection();
+        assertTrue(connectionManager.getConnection() == connection1);
+        assertEquals(1, listener.scoreUpdates.size());
+        
+        // faster connection is not switched to below the minimum number of samples
+        connectionManager.checkConnections();
+        connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection1);
+        assertEquals(3, listener.scoreUpdates.size());
+        
+        // listener is notified of scores of all connections
+        List<MoneroConnectionScore> scores = listener.scoreUpdates.get(listener.scoreUpdates.size() - 1);
+        assertEquals(2, scores.size());
+        MoneroConnectionScore score1 = getScore(scores, connection1);
+        MoneroConnectionScore score2 = getScore(scores, connection2);
+        assertEquals(3, score1.getNumSamples());
+        assertEquals(2, score2.getNumSamples());
+        assertEquals(1, score2.getSuccessRatio(), 0);
+        assertTrue(score2.getScore() < score1.getScore());
+        assertTrue(score1.getLatencyMs() >= 100);
+        
+        // switches once the faster connection has enough samples
+        connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection2);
+        assertTrue(listener.changedConnections.get(listener.changedConnections.size() - 1) == connection2);
+        assertEquals(4, listener.scoreUpdates.size());
+        assertEquals(3, getScore(connectionManager.getConnectionScores(), connection2).getNumSamples());
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can keep the current connection if another is faster within the switch threshold
+  @Test
+  public void testNoSwitchWithinThreshold() {
+    AtomicLong delayMs1 = new AtomicLong(100);
+    AtomicLong delayMs2 = new AtomicLong(90);
+    try (TestRpcServer server1 = startServer(delayMs1, null); TestRpcServer server2 = startServer(delayMs2, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager();
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri());
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri());
+      connection1.checkConnection(connectionManager.getTimeout()); // warm up outside of scores
+      connection2.checkConnection(connectionManager.getTimeout());
+      connectionManager.addConnection(connection2);
+      connectionManager.setConnection(connection1);
+      connectionManager.setAutoSwitch(true);
+      connectionManager.setSwitchThreshold(0.5);
+      try {
+        
+        // current connection is kept while the other is less than 50% faster
+        connectionManager.checkConnection();
+        for (int i = 0; i < 5; i++) connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection1);
+        
+        // switches once the other is consistently faster
+        delayMs2.set(0);
+        for (int i = 0; i < 10 && connectionManager.getConnection() == connection1; i++) connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection2);
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can score failed checks by the success ratio
+  @Test
+  public void testScoreFailures() {
+    AtomicLong delayMs = new AtomicLong(0);
+    try (TestRpcServer server = startServer(delayMs, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager();
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri());
+      connectionManager.setConnection(connection);
+      try {
+        connectionManager.checkConnection();
+        MoneroConnectionScore score = getScore(connectionManager.getConnectionScores(), connection);
+        assertEquals(1, score.getSuccessRatio(), 0);
+        server.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(500); });
+        connectionManager.checkConnection();
+        MoneroConnectionScore failedScore = getScore(connectionManager.getConnectionScores(), connection);
+        assertEquals(2, failedScore.getNumSamples());
+        assertTrue(failedScore.getSuccessRatio() < 1);
+        assertTrue(failedScore.getScore() > score.getScore());
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can open the circuit breaker after consecutive failures and fail over while open
+  @Test
+  public void testCircuitBreaker() throws InterruptedException {
+    AtomicLong delayMs = new AtomicLong(0);
+    try (TestRpcServer server1 = startServer(delayMs, null); TestRpcServer server2 = startServer(delayMs, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setCircuitBreaker(2, 500);
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri()).setPriority(1);
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri()).setPriority(2);
+      connectionManager.addConnection(connection2);
+      connectionManager.setConnection(connection1);
+      try {
+        connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection1);
+        
+        // breaker opens after consecutive failures to reach the connection
+        server1.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(500); });
+        server1.resetCounts();
+        for (int i = 0; i < 2; i++) {
+          assertFalse(connectionManager.isCircuitOpen(connection1));
+          try {
+            connectionManager.sendJsonRequest("get_info", null);
+            fail("Should have failed");
+          } catch (MoneroError e) {
+            assertEquals(500, (int) e.getCode());
+          }
+        }
+        assertTrue(connectionManager.isCircuitOpen(connection1));
+        assertEquals(2, server1.getNumRequests());
+        
+        // requests fail over to the next connection in priority while open
+        server2.resetCounts();
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(2, server1.getNumRequests());
+        assertEquals(2, server2.getNumRequests());
+        assertTrue(connectionManager.getConnection() == connection1);
+        
+        // failed trial request after the open duration re-opens the breaker
+        Thread.sleep(600);
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroError e) {
+          assertEquals(500, (int) e.getCode());
+        }
+        assertEquals(3, server1.getNumRequests());
+        assertTrue(connectionManager.isCircuitOpen(connection1));
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(3, server2.getNumRequests());
+        
+        // successful trial request closes the breaker
+        server1.setJsonRpcHandler(getHandler(delayMs, null));
+        Thread.sleep(600);
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(4, server1.getNumRequests());
+        assertFalse(connectionManager.isCircuitOpen(connection1));
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(5, server1.getNumRequests());
+        assertEquals(3, server2.getNumRequests());
+        
+        // request fails if every breaker is open
+        server1.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(500); });
+        server2.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(500); });
+        for (int i = 0; i < 4; i++) {
+          try { connectionManager.sendJsonRequest("get_info", null); }
+          catch (MoneroError e) { }
+        }
+        assertTrue(connectionManager.isCircuitOpen(connection1));
+        assertTrue(connectionManager.isCircuitOpen(connection2));
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroError e) {
+          assertTrue(e.getMessage().contains("Circuit breaker is open"));
+        }
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can retry idempotent requests which fail to reach the connection
+  @Test
+  public void testRetryPolicy() {
+    AtomicLong delayMs = new AtomicLong(0);
+    AtomicInteger numFailures = new AtomicInteger();
+    try (TestRpcServer server = startServer(delayMs, null)) {
+      TestRpcServer.JsonRpcHandler handler = getHandler(delayMs, null);
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setRetryPolicy(new MoneroRetryPolicy(2, 10, 20, 2)).setCircuitBreaker(10, 60000);
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri());
+      connectionManager.setConnection(connection);
+      try {
+        
+        // idempotent request is retried until it succeeds
+        server.setHandler(failFirst(numFailures, 2, new TestRpcServer.HttpStatus(500), handler));
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(3, server.getNumRequests());
+        
+        // idempotent request fails after the maximum retries
+        server.resetCounts();
+        server.setHandler(failFirst(numFailures, 3, new TestRpcServer.HttpStatus(500), handler));
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroError e) {
+          assertEquals(500, (int) e.getCode());
+        }
+        assertEquals(3, server.getNumRequests());
+        
+        // request which is not idempotent is not retried
+        server.resetCounts();
+        server.setHandler(failFirst(numFailures, 1, new TestRpcServer.HttpStatus(500), handler));
+        try {
+          connectionManager.sendJsonRequest("relay_tx", null);
+          fail("Should have failed");
+        } catch (MoneroError e) {
+          assertEquals(500, (int) e.getCode());
+        }
+        assertEquals(1, server.getNumRequests());
+        
+        // closed connection is retried
+        server.resetCounts();
+        server.setHandler(failFirst(numFailures, 1, new TestRpcServer.Disconnect(), handler));
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(2, server.getNumRequests());
+        
+        // errors below do not reach the threshold, which would open the breaker if counted
+        connectionManager.setCircuitBreaker(3, 60000);
+        
+        // error response from the RPC API is not retried
+        server.resetCounts();
+        server.setJsonRpcHandler((method, params) -> TestRpcServer.jsonRpcError(-1, "Test error"));
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroRpcError e) {
+          assertEquals(-1, (int) e.getCode());
+        }
+        assertEquals(1, server.getNumRequests());
+        
+        // malformed response is not retried
+        server.resetCounts();
+        server.setHandler((path, body) -> "{\"result\": {".getBytes(StandardCharsets.UTF_8));
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroError e) { }
+        assertEquals(1, server.getNumRequests());
+        
+        // http client error is not retried
+        server.resetCounts();
+        server.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(404); });
+        try {
+          connectionManager.sendJsonRequest("get_info", null);
+          fail("Should have failed");
+        } catch (MoneroError e) {
+          assertEquals(404, (int) e.getCode());
+        }
+        assertEquals(1, server.getNumRequests());
+        
+        // only failures to reach the connection count toward the circuit breaker
+        assertFalse(connectionManager.isCircuitOpen(connection));
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can load balance requests round robin among healthy connections
+  @Test
+  public void testLoadBalanceRoundRobin() {
+    AtomicLong delayMs = new AtomicLong(0);
+    AtomicLong height = new AtomicLong(100);
+    AtomicLong staleHeight = new AtomicLong(100);
+    try (TestRpcServer server1 = startServer(delayMs, height); TestRpcServer server2 = startServer(delayMs, height); TestRpcServer server3 = startServer(delayMs, staleHeight)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setLoadBalanceType(LoadBalanceType.ROUND_ROBIN).setCircuitBreaker(1, 60000);
+      List<MoneroRpcConnection> connections = new ArrayList<MoneroRpcConnection>();
+      for (TestRpcServer server : new TestRpcServer[] { server1, server2, server3 }) {
+        MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri()).setProbe(MoneroConnectionProbe.GET_INFO);
+        connections.add(connection);
+        connectionManager.addConnection(connection);
+      }
+      try {
+        connectionManager.checkConnections();
+        connectionManager.setConnection(connections.get(0));
+        
+        // requests are spread evenly
+        resetCounts(server1, server2, server3);
+        for (int i = 0; i < 9; i++) connectionManager.sendJsonRequest("get_info", null);
+        assertEquals(3, server1.getNumRequests());
+        assertEquals(3, server2.getNumRequests());
+        assertEquals(3, server3.getNumRequests());
+        
+        // requests which are not idempotent are sent to the current connection
+        resetCounts(server1, server2, server3);
+        for (int i = 0; i < 3; i++) connectionManager.sendJsonRequest("get_version", null);
+        assertEquals(3, server1.getNumRequests());
+        
+        // stale connection is skipped
+        staleHeight.set(90);
+        connectionManager.checkConnections();
+        assertTrue(connectionManager.isStale(connections.get(2)));
+        resetCounts(server1, server2, server3);
+        for (int i = 0; i < 6; i++) connectionManager.sendJsonRequest("get_info", null);
+        assertEquals(3, server1.getNumRequests());
+        assertEquals(3, server2.getNumRequests());
+        assertEquals(0, server3.getNumRequests());
+        
+        // connection with open circuit breaker is skipped
+        server2.setHandler((path, body) -> { throw new TestRpcServer.HttpStatus(500); });
+        for (int i = 0; i < 2; i++) {
+          try { connectionManager.sendJsonRequest("get_info", null); }
+          catch (MoneroError e) { }
+        }
+        assertTrue(connectionManager.isCircuitOpen(connections.get(1)));
+        resetCounts(server1, server2, server3);
+        for (int i = 0; i < 4; i++) connectionManager.sendJsonRequest("get_info", null);
+        assertEquals(4, server1.getNumRequests());
+        assertEquals(0, server2.getNumRequests());
+        assertEquals(0, server3.getNumRequests());
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can load balance requests to the connection with the fewest requests in flight
+  @Test
+  public void testLoadBalanceLeastInFlight() throws Exception {
+    CountDownLatch responseLatch = new CountDownLatch(1);
+    TestRpcServer.JsonRpcHandler handler = (method, params) -> {
+      responseLatch.await(30, TimeUnit.SECONDS);
+      return new HashMap<String, Object>();
+    };
+    AtomicLong delayMs = new AtomicLong(0);
+    try (TestRpcServer server1 = startServer(delayMs, null); TestRpcServer server2 = startServer(delayMs, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setLoadBalanceType(LoadBalanceType.LEAST_IN_FLIGHT);
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri()).setIsConcurrent(true);
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri()).setIsConcurrent(true);
+      connectionManager.addConnection(connection2);
+      connectionManager.setConnection(connection1);
+      ExecutorService pool = Executors.newCachedThreadPool();
+      try {
+        connectionManager.checkConnections();
+        server1.setJsonRpcHandler(handler);
+        server2.setJsonRpcHandler(handler);
+        resetCounts(server1, server2);
+        
+        // send requests one at a time which block on the servers
+        List<Future<Map<String, Object>>> futures = new ArrayList<Future<Map<String, Object>>>();
+        for (int i = 0; i < 6; i++) {
+          futures.add(pool.submit(() -> connectionManager.sendJsonRequest("get_info", null)));
+          waitForRequests(i + 1, server1, server2);
+          
+          // requests in flight are balanced
+          assertTrue(Math.abs(server1.getNumRequests() - server2.getNumRequests()) <= 1);
+        }
+        assertEquals(3, server1.getNumRequests());
+        assertEquals(3, server2.getNumRequests());
+        responseLatch.countDown();
+        for (Future<Map<String, Object>> future : futures) future.get(30, TimeUnit.SECONDS);
+      } finally {
+        responseLatch.countDown();
+        pool.shutdownNow();
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can load balance requests to the connection with the lower latency by the power of two choices
+  @Test
+  public void testLoadBalanceEwma() {
+    AtomicLong delayMs1 = new AtomicLong(0);
+    AtomicLong delayMs2 = new AtomicLong(50);
+    try (TestRpcServer server1 = startServer(delayMs1, null); TestRpcServer server2 = startServer(delayMs2, null)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setLoadBalanceType(LoadBalanceType.EWMA);
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri());
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri());
+      connectionManager.addConnection(connection2);
+      connectionManager.setConnection(connection1);
+      try {
+        connectionManager.checkConnections();
+        resetCounts(server1, server2);
+        for (int i = 0; i < 40; i++) connectionManager.sendJsonRequest("get_info", null);
+        assertEquals(40, server1.getNumRequests() + server2.getNumRequests());
+        assertTrue("Slow connection received " + server2.getNumRequests() + " requests", server2.getNumRequests() <= 3);
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can hedge slow requests to the best scored fresh connection
+  @Test
+  public void testHedgeRequests() {
+    AtomicLong delayMs1 = new AtomicLong(0);
+    AtomicLong delayMs2 = new AtomicLong(30);
+    AtomicLong delayMs3 = new AtomicLong(0);
+    AtomicLong height = new AtomicLong(100);
+    AtomicLong height3 = new AtomicLong(100);
+    try (TestRpcServer server1 = startServer(delayMs1, height); TestRpcServer server2 = startServer(delayMs2, height); TestRpcServer server3 = startServer(delayMs3, height3)) {
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager().setHedgeRequests(true);
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri()).setPriority(1).setProbe(MoneroConnectionProbe.GET_INFO);
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri()).setPriority(2).setProbe(MoneroConnectionProbe.GET_INFO);
+      MoneroRpcConnection connection3 = new MoneroRpcConnection(server3.getUri()).setPriority(3).setProbe(MoneroConnectionProbe.GET_INFO);
+      for (MoneroRpcConnection connection : new MoneroRpcConnection[] { connection1, connection2, connection3 }) connection.checkConnection(connectionManager.getTimeout()); // warm up outside of scores
+      connectionManager.addConnection(connection2);
+      connectionManager.addConnection(connection3);
+      connectionManager.setConnection(connection1);
+      try {
+        for (int i = 0; i < 3; i++) connectionManager.checkConnections();
+        assertTrue(connectionManager.getConnection() == connection1);
+        
+        // record latencies of the current connection to derive the hedge delay
+        for (int i = 0; i < 10; i++) connectionManager.sendJsonRequest("get_info", null);
+        
+        // slow request is hedged to the best scored connection
+        delayMs1.set(500);
+        resetCounts(server1, server2, server3);
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(1, server1.getNumRequests());
+        assertEquals(0, server2.getNumRequests());
+        assertEquals(1, server3.getNumRequests());
+        
+        // stale connection is not hedged to
+        delayMs1.set(0);
+        for (int i = 0; i < 20; i++) connectionManager.sendJsonRequest("get_info", null); // slow latency falls out of the hedge percentile
+        height3.set(90);
+        connectionManager.checkConnections();
+        delayMs1.set(500);
+        assertTrue(connectionManager.isStale(connection3));
+        resetCounts(server1, server2, server3);
+        assertNotNull(connectionManager.sendJsonRequest("get_info", null).get("result"));
+        assertEquals(1, server1.getNumRequests());
+        assertEquals(1, server2.getNumRequests());
+        assertEquals(0, server3.getNumRequests());
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  // Can demote stale connections checked with the default probe
+  @Test
+  public void testStaleConnectionsWithDefaultProbe() {
+    AtomicLong delayMs = new AtomicLong(0);
+    AtomicLong height = new AtomicLong(100);
+    AtomicLong staleHeight = new AtomicLong(90);
+    List<String> walletMethods = Collections.synchronizedList(new ArrayList<String>());
+    try (TestRpcServer server1 = startServer(delayMs, height); TestRpcServer server2 = startServer(delayMs, staleHeight); TestRpcServer walletServer = startServer(delayMs, null)) {
+      TestRpcServer.JsonRpcHandler walletHandler = getHandler(delayMs, null);
+      walletServer.setJsonRpcHandler((method, params) -> {
+        walletMethods.add(method);
+        return "get_info".equals(method) ? TestRpcServer.jsonRpcError(-32601, "Method not found") : walletHandler.handle(method, params);
+      });
+      MoneroConnectionManager connectionManager = new MoneroConnectionManager();
+      MoneroRpcConnection connection1 = new MoneroRpcConnection(server1.getUri());
+      MoneroRpcConnection connection2 = new MoneroRpcConnection(server2.getUri());
+      MoneroRpcConnection walletConnection = new MoneroRpcConnection(walletServer.getUri());
+      connectionManager.addConnection(connection1);
+      connectionManager.addConnection(walletConnection);
+      connectionManager.setConnection(connection2);
+      try {
+        
+        // heights are reported with the default probe
+        assertTrue(connectionManager.getMaxHeightLag() != null);
+        assertTrue(connection2.getProbe() == MoneroConnectionProbe.GET_VERSION);
+        connectionManager.checkConnections();
+        assertEquals(100, (long) connection1.getHeight());
+        assertEquals(90, (long) connection2.getHeight());
+        assertEquals(100, (long) connectionManager.getMaxHeight());
+        assertTrue(connectionManager.isStale(connection2));
+        assertFalse(connectionManager.isStale(connection1));
+        
+        // stale connection is switched from
+        assertTrue(connectionManager.getConnection() != connection2);
+        
+        // connection without get_info falls back to get_version and is considered fresh
+        assertTrue(walletConnection.isConnected());
+        assertEquals(Arrays.asList("get_info", "get_version"), walletMethods);
+        assertNull(walletConnection.getHeight());
+        assertFalse(connectionManager.isStale(walletConnection));
+        
+        // connections are checked with get_version when heights are ignored
+        connectionManager.setMaxHeightLag(null);
+        walletMethods.clear();
+        connectionManager.checkConnections();
+        assertEquals(Arrays.asList("get_version"), walletMethods);
+        assertNull(connection1.getHeight());
+        assertFalse(connectionManager.isStale(connection2));
+      } finally {
+        connectionManager.reset();
+      }
+    }
+  }
+  
+  /**
+   * Start a stub server which responds to json-rpc requests after a delay with the
+   * fields of get_version and get_info.
+   */
+  private static TestRpcServer startServer(AtomicLong delayMs, AtomicLong height) {
+    return TestRpcServer.forJsonRpc(getHandler(delayMs, height));
+  }
+  
+  private static TestRpcServer.JsonRpcHandler getHandler(AtomicLong delayMs, AtomicLong height) {
+    return (method, params) -> {
+      Thread.sleep(delayMs.get());
+      Map<String, Object> result = new HashMap<String, Object>();
+      result.put("version", 1);
+      if (height != null) {
+        result.put("height", height.get());
+        result.put("synchronized", true);
+      }
+      result.put("status", "OK");
+      return result;
+    };
+  }
+  
+  /**
+   * Get a handler which throws the given exception for the given number of requests, then
+   * responds with the given json-rpc handler.
+   */
+  private static TestRpcServer.Handler failFirst(AtomicInteger numFailures, int numToFail, RuntimeException failure, TestRpcServer.JsonRpcHandler handler) {
+    numFailures.set(0);
+    TestRpcServer.Handler successHandler = TestRpcServer.forJsonRpcHandler(handler);
+    return (path, body) -> {
+      if (numFailures.incrementAndGet() <= numToFail) throw failure;
+      return successHandler.handle(path, body);
+    };
+  }
+  
+  private static void resetCounts(TestRpcServer... servers) {
+    for (TestRpcServer server : servers) server.resetCounts();
+  }
+  
+  private static void waitForRequests(int numRequests, TestRpcServer... servers) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (true) {
+      int numReceived = 0;
+      for (TestRpcServer server : servers) numReceived += server.getNumRequests();
+      if (numReceived >= numRequests) return;
+      if (System.currentTimeMillis() - startTime > 30000) throw new RuntimeException("Timeout waiting for " + numRequests + " requests");
+      Thread.sleep(10);
+    }
+  }
+  
+  private static MoneroConnectionScore getScore(List<MoneroConnectionScore> scores, MoneroRpcConnection connection) {
+    for (MoneroConnectionScore score : scores) if (score.getConnection() == connection) return score;
+    throw new RuntimeException("No score for connection: " + connection);
+  }
+  
   private class ConnectionChangeCollector implements MoneroConnectionManagerListener {
     List<MoneroRpcConnection> changedConnections = new ArrayList<MoneroRpcConnection>();
+    List<List<MoneroConnectionScore>> scoreUpdates = new ArrayList<List<MoneroConnectionScore>>();
     @Override
     public void onConnectionChanged(MoneroRpcConnection connection) {
       changedConnections.add(connection);
     }
+    @Override
+    public void onConnectionScoresUpdated(List<MoneroConnectionScore> scores) {
+      scoreUpdates.add(scores);
+    }
   }
 }
@@ -5,22 +5,44 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import common.utils.GenUtils;
 import common.utils.JsonUtils;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import monero.common.MoneroBlobParser;
 import monero.common.MoneroError;
+import monero.common.MoneroRetryPolicy;
 import monero.common.MoneroRpcConnection;
 import monero.common.MoneroRpcError;
 import monero.daemon.MoneroDaemon;
@@ -29,6 +51,7 @@ import monero.daemon.model.MoneroAltChain;
 import monero.daemon.model.MoneroBan;
 import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroBlockHeader;
+import monero.daemon.model.MoneroBlockStreamConfig;
 import monero.daemon.model.MoneroBlockTemplate;
 import monero.daemon.model.MoneroConnectionSpan;
 import monero.daemon.model.MoneroDaemonInfo;
@@ -57,6 +80,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import utils.TestRpcServer;
 import utils.TestUtils;
 
 /**
@@ -260,6 +284,174 @@ public class TestMoneroDaemonRpc {
     }
   }
   
+  // Can serve block headers below the reorg depth from the header cache
+  @Test
+  public void testHeaderCache() {
+    assumeTrue(TEST_NON_RELAYS);
+    MoneroDaemonRpc cachingDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+    MoneroDaemonRpc uncachedDaemon = new MoneroDaemonRpc(daemon.getRpcConnection()).setHeaderCacheSize(0);
+    long height = daemon.getHeight();
+    assumeTrue(height > 300);
+    
+    // fetch headers to cache
+    long startHeight = height - 300;
+    long endHeight = height - 201;
+    cachingDaemon.getBlockHeadersByRange(startHeight, endHeight);
+    long numHits = cachingDaemon.getNumHeaderCacheHits();
+    
+    // cached headers equal uncached headers
+    for (long i = startHeight; i <= endHeight; i += 33) {
+      MoneroBlockHeader header = cachingDaemon.getBlockHeaderByHeight(i);
+      testBlockHeader(header, true);
+      assertEquals(uncachedDaemon.getBlockHeaderByHeight(i), header);
+      assertEquals(uncachedDaemon.getBlockHash(i), cachingDaemon.getBlockHash(i));
+    }
+    assertEquals(numHits + 8, cachingDaemon.getNumHeaderCacheHits());
+    assertEquals(0, uncachedDaemon.getNumHeaderCacheHits());
+  }
+  
+  // Can count header cache hits and misses, serving headers only below the reorg depth without listening
+  @Test
+  public void testHeaderCacheHits() {
+    assumeTrue(TEST_NON_RELAYS);
+    StubChain chain = new StubChain(1000);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc(chain.getHandler())) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri());
+      
+      // fetch headers to cache
+      assertEquals(201, stubDaemon.getBlockHeadersByRange(800l, 1000l).size());
+      assertEquals(0, stubDaemon.getNumHeaderCacheHits());
+      assertEquals(1, stubDaemon.getNumHeaderCacheMisses());
+      
+      // repeated lookups below the reorg depth are cache hits
+      int numRequests = chain.getNumRequests();
+      for (int i = 0; i < 3; i++) {
+        MoneroBlockHeader header = stubDaemon.getBlockHeaderByHeight(850);
+        assertEquals(chain.getHash(850), header.getHash());
+        assertEquals(150, (long) header.getDepth());
+      }
+      assertEquals(chain.getHash(851), stubDaemon.getBlockHash(851));
+      assertEquals(3, stubDaemon.getBlockHeadersByRange(860l, 862l).size());
+      assertEquals(numRequests, chain.getNumRequests());
+      assertEquals(5, stubDaemon.getNumHeaderCacheHits());
+      assertEquals(1, stubDaemon.getNumHeaderCacheMisses());
+      
+      // headers within the reorg depth are fetched
+      for (int i = 0; i < 2; i++) assertEquals(chain.getHash(950), stubDaemon.getBlockHeaderByHeight(950).getHash());
+      assertEquals(2, chain.getNumRequests("get_block_header_by_height"));
+      assertEquals(5, stubDaemon.getNumHeaderCacheHits());
+      assertEquals(3, stubDaemon.getNumHeaderCacheMisses());
+      
+      // depths of cached headers follow the top of the chain after the poll period
+      chain.addBlock();
+      stubDaemon.setPollPeriodInMs(1);
+      GenUtils.waitFor(10);
+      assertEquals(151, (long) stubDaemon.getBlockHeaderByHeight(850).getDepth());
+      assertTrue(chain.getNumRequests("get_block_count") > 0);
+      
+      // no headers are cached when the cache is disabled
+      try {
+        stubDaemon.setHeaderCacheSize(-1);
+        fail("Should have failed");
+      } catch (MoneroError e) {
+        assertEquals("Header cache size must be >= 0", e.getMessage());
+      }
+      stubDaemon.setHeaderCacheSize(0);
+      stubDaemon.getBlockHeaderByHeight(850);
+      stubDaemon.getBlockHeaderByHeight(850);
+      assertEquals(4, chain.getNumRequests("get_block_header_by_height"));
+    }
+  }
+  
+  // Can evict the least recently used headers from the header cache
+  @Test
+  public void testHeaderCacheEviction() {
+    assumeTrue(TEST_NON_RELAYS);
+    StubChain chain = new StubChain(1000);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc(chain.getHandler())) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri());
+      stubDaemon.getBlockHeadersByRange(0l, 99l);
+      
+      // shrinking the cache keeps the most recently used headers
+      stubDaemon.setHeaderCacheSize(10);
+      assertEquals(10, stubDaemon.getHeaderCacheSize());
+      assertNotNull(stubDaemon.getBlockHeadersByRange(90l, 99l));
+      assertEquals(1, chain.getNumRequests());
+      
+      // caching a header evicts the least recently used header
+      stubDaemon.getBlockHeaderByHeight(91); // 90 is now least recently used
+      stubDaemon.getBlockHeaderByHeight(0);
+      assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+      stubDaemon.getBlockHeaderByHeight(91);
+      stubDaemon.getBlockHeaderByHeight(0);
+      stubDaemon.getBlockHeaderByHeight(92);
+      assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+      stubDaemon.getBlockHeaderByHeight(90); // evicts 93
+      assertEquals(2, chain.getNumRequests("get_block_header_by_height"));
+      stubDaemon.getBlockHeaderByHeight(93);
+      assertEquals(3, chain.getNumRequests("get_block_header_by_height"));
+      
+      // clearing the cache removes all headers
+      stubDaemon.clearHeaderCache();
+      stubDaemon.getBlockHeaderByHeight(91);
+      assertEquals(4, chain.getNumRequests("get_block_header_by_height"));
+    }
+  }
+  
+  // Can invalidate cached headers near a reorg
+  @Test
+  public void testHeaderCacheReorg() {
+    assumeTrue(TEST_NON_RELAYS);
+    StubChain chain = new StubChain(1000);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc(chain.getHandler())) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri());
+      stubDaemon.getBlockHeadersByRange(700l, 1000l);
+      
+      // fetching a header which differs from the cached header invalidates headers from 100 blocks below it
+      chain.reorg(990);
+      assertEquals(chain.getHash(995), stubDaemon.getBlockHeaderByHeight(995).getHash());
+      assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+      assertEquals(chain.getHash(894), stubDaemon.getBlockHeaderByHeight(894).getHash());
+      assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+      assertEquals(chain.getHash(895), stubDaemon.getBlockHeaderByHeight(895).getHash());
+      assertEquals(2, chain.getNumRequests("get_block_header_by_height"));
+    }
+    
+    // headers within the reorg depth are served while listening, which invalidates them on reorg
+    chain = new StubChain(1000);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc(chain.getHandler())) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri()).setPollPeriodInMs(50);
+      MoneroDaemonListener listener = new MoneroDaemonListener();
+      stubDaemon.addListener(listener);
+      try {
+        stubDaemon.getBlockHeadersByRange(700l, 1000l);
+        int numRequests = chain.getNumRequests("get_block_headers_range");
+        assertEquals(chain.getHash(995), stubDaemon.getBlockHeaderByHeight(995).getHash());
+        assertEquals(0, chain.getNumRequests("get_block_header_by_height"));
+        
+        // reorg is seen by polling the last block header
+        String prevHash = chain.getHash(995);
+        chain.reorg(990);
+        long startTime = System.currentTimeMillis();
+        while (listener.getLastBlockHeader() == null || listener.getLastBlockHeader().getHeight() != 1001) {
+          if (System.currentTimeMillis() - startTime > 30000) fail("Timeout waiting for reorg");
+          GenUtils.waitFor(10);
+        }
+        MoneroBlockHeader header = stubDaemon.getBlockHeaderByHeight(995);
+        assertNotEquals(prevHash, header.getHash());
+        assertEquals(chain.getHash(995), header.getHash());
+        assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+        assertEquals(chain.getHash(899), stubDaemon.getBlockHeaderByHeight(899).getHash());
+        assertEquals(1, chain.getNumRequests("get_block_header_by_height"));
+        assertEquals(numRequests, chain.getNumRequests("get_block_headers_range"));
+        assertEquals(chain.getHash(900), stubDaemon.getBlockHeaderByHeight(900).getHash());
+        assertEquals(2, chain.getNumRequests("get_block_header_by_height"));
+      } finally {
+        stubDaemon.removeListener(listener);
+      }
+    }
+  }
+  
   // Can get a block by hash
   @Test
   public void testGetBlockByHash() {
@@ -396,6 +588,194 @@ public class TestMoneroDaemonRpc {
     testGetBlocksRange(endHeight - numBlocks - 1, null, height, true);
   };
   
+  // Can get blocks by range using parallel chunked requests
+  @Test
+  public void testGetBlocksByRangeParallel() {
+    assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    
+    // get height range and a chunk size which splits it into several chunks
+    long height = daemon.getHeight();
+    long numBlocks = Math.min(height - 2, 200);
+    long startHeight = height - numBlocks;
+    long endHeight = height - 1;
+    long chunkSize = 0;
+    for (MoneroBlockHeader header : daemon.getBlockHeadersByRange(startHeight, endHeight)) chunkSize = Math.max(chunkSize, 2 * header.getSize());
+    
+    // parallel chunks are reassembled in height order
+    List<MoneroBlock> expectedBlocks = daemon.getBlocksByRangeChunked(startHeight, endHeight, chunkSize);
+    MoneroDaemonRpc parallelDaemon = new MoneroDaemonRpc(new MoneroRpcConnection(daemon.getRpcConnection()).setIsConcurrent(true)).setMaxParallelChunks(4).setMaxChunkBytesInFlight(2 * chunkSize);
+    List<MoneroBlock> blocks = parallelDaemon.getBlocksByRangeChunked(startHeight, endHeight, chunkSize);
+    assertEquals(numBlocks, blocks.size());
+    for (int i = 0; i < blocks.size(); i++) {
+      assertEquals(startHeight + i, (long) blocks.get(i).getHeight());
+      assertEquals(expectedBlocks.get(i).getHash(), blocks.get(i).getHash());
+    }
+  }
+  
+  // Can bound parallel chunks by bytes in flight and stop on the first failure
+  @Test
+  public void testGetBlocksByRangeParallelLimits() throws Exception {
+    assumeTrue(TEST_NON_RELAYS);
+    StubChain chain = new StubChain(1000);
+    AtomicInteger numBinRequests = new AtomicInteger();
+    CountDownLatch binResponseLatch = new CountDownLatch(1);
+    TestRpcServer.Handler jsonHandler = TestRpcServer.forJsonRpcHandler(chain.getHandler());
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      if (!"get_blocks_by_height.bin".equals(path)) return jsonHandler.handle(path, body);
+      numBinRequests.incrementAndGet();
+      binResponseLatch.await(30, TimeUnit.SECONDS);
+      throw new TestRpcServer.HttpStatus(500);
+    })) {
+      
+      // chunks are fetched one at a time over a connection which is not concurrent
+      binResponseLatch.countDown();
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri()).setMaxParallelChunks(4);
+      try {
+        stubDaemon.getBlocksByRangeChunked(0l, 9l, 100l);
+        fail("Should have failed");
+      } catch (MoneroError e) {
+        assertEquals(500, (int) e.getCode());
+      }
+      assertEquals(1, numBinRequests.get());
+    }
+    
+    // chunks in flight are bounded by bytes with a concurrent connection
+    numBinRequests.set(0);
+    CountDownLatch binResponseLatch2 = new CountDownLatch(1);
+    TestRpcServer.Handler jsonHandler2 = TestRpcServer.forJsonRpcHandler(chain.getHandler());
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      if (!"get_blocks_by_height.bin".equals(path)) return jsonHandler2.handle(path, body);
+      numBinRequests.incrementAndGet();
+      binResponseLatch2.await(30, TimeUnit.SECONDS);
+      throw new TestRpcServer.HttpStatus(500);
+    })) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(new MoneroRpcConnection(server.getUri()).setIsConcurrent(true)).setMaxParallelChunks(4).setMaxChunkBytesInFlight(2 * StubChain.BLOCK_SIZE);
+      ExecutorService pool = Executors.newSingleThreadExecutor();
+      try {
+        Future<List<MoneroBlock>> future = pool.submit(() -> stubDaemon.getBlocksByRangeChunked(0l, 9l, StubChain.BLOCK_SIZE));
+        long startTime = System.currentTimeMillis();
+        while (numBinRequests.get() < 2 && System.currentTimeMillis() - startTime < 30000) Thread.sleep(10);
+        Thread.sleep(200);
+        assertEquals(2, numBinRequests.get()); // 2 chunks of 1 block fit the budget
+        
+        // no chunks are requested after the first failure
+        binResponseLatch2.countDown();
+        try {
+          future.get(30, TimeUnit.SECONDS);
+          fail("Should have failed");
+        } catch (ExecutionException e) {
+          assertTrue(e.getCause() instanceof MoneroError);
+          assertEquals(500, (int) ((MoneroError) e.getCause()).getCode());
+        }
+        assertEquals(2, numBinRequests.get());
+      } finally {
+        binResponseLatch2.countDown();
+        pool.shutdownNow();
+      }
+    }
+  }
+  
+  // Can stream blocks, retrying a failed chunk from its start height
+  @Test
+  public void testStreamBlocksRetry() throws Exception {
+    assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    long endHeight = daemon.getHeight() - 1;
+    long startHeight = endHeight - 19;
+    long chunkSize = getMaxBlockSize(startHeight, endHeight);
+    List<MoneroBlock> expectedBlocks = daemon.getBlocksByRange(startHeight, endHeight);
+    
+    // forward requests to the daemon, failing the second chunk's first request
+    AtomicInteger numBinRequests = new AtomicInteger();
+    String daemonUri = daemon.getRpcConnection().getUri();
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      if ("get_blocks_by_height.bin".equals(path) && numBinRequests.incrementAndGet() == 2) throw new TestRpcServer.HttpStatus(500);
+      return forwardRequest(daemonUri, path, body);
+    })) {
+      MoneroDaemonRpc proxiedDaemon = new MoneroDaemonRpc(server.getUri());
+      
+      // retried chunk continues from its start height
+      MoneroBlockStreamConfig config = new MoneroBlockStreamConfig().setMaxChunkSize(chunkSize).setNumChunksAhead(2).setRetryPolicy(new MoneroRetryPolicy(2, 10, 10, 1));
+      try (Stream<MoneroBlock> stream = proxiedDaemon.streamBlocks(startHeight, endHeight, config)) {
+        List<MoneroBlock> blocks = stream.collect(Collectors.toList());
+        assertEquals(expectedBlocks.size(), blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+          assertEquals(startHeight + i, (long) blocks.get(i).getHeight());
+          assertEquals(expectedBlocks.get(i).getHash(), blocks.get(i).getHash());
+        }
+      }
+      assertTrue(numBinRequests.get() > 2);
+      
+      // failed chunk ends the stream without a retry policy
+      numBinRequests.set(0);
+      config.setRetryPolicy(null);
+      Iterator<MoneroBlock> iter = proxiedDaemon.streamBlocks(startHeight, endHeight, config).iterator();
+      long height = startHeight;
+      try {
+        while (iter.hasNext()) assertEquals(height++, (long) iter.next().getHeight());
+        fail("Should have failed");
+      } catch (MoneroError e) {
+        assertEquals(500, (int) e.getCode());
+      }
+      assertTrue(height > startHeight && height < endHeight);
+      assertEquals(2, numBinRequests.get());
+    }
+  }
+  
+  // Can stop fetching blocks when a block stream is closed or abandoned
+  @Test
+  public void testStreamBlocksClose() throws Exception {
+    assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    long endHeight = daemon.getHeight() - 1;
+    long startHeight = endHeight - 19;
+    MoneroBlockStreamConfig config = new MoneroBlockStreamConfig().setMaxChunkSize(getMaxBlockSize(startHeight, endHeight)).setNumChunksAhead(1);
+    int numStreamThreads = getNumStreamThreads();
+    
+    // closed stream stops fetching and cannot be iterated
+    Stream<MoneroBlock> stream = daemon.streamBlocks(startHeight, endHeight, config);
+    Iterator<MoneroBlock> iter = stream.iterator();
+    assertEquals(startHeight, (long) iter.next().getHeight());
+    assertEquals(numStreamThreads + 1, getNumStreamThreads());
+    stream.close();
+    waitForStreamThreads(numStreamThreads);
+    try {
+      while (iter.hasNext()) iter.next();
+      fail("Should have failed");
+    } catch (MoneroError e) {
+      assertEquals("Block stream is closed", e.getMessage());
+    }
+    
+    // abandoned stream stops fetching
+    iter = daemon.streamBlocks(startHeight, endHeight, config).iterator();
+    assertEquals(startHeight, (long) iter.next().getHeight());
+    assertEquals(numStreamThreads + 1, getNumStreamThreads());
+    iter = null;
+    long startTime = System.currentTimeMillis();
+    while (getNumStreamThreads() > numStreamThreads) {
+      if (System.currentTimeMillis() - startTime > 30000) fail("Abandoned block stream is still fetching");
+      System.gc();
+      Thread.sleep(100);
+    }
+  }
+  
+  // Can fail a block stream instead of blocking if fetching a chunk throws an error
+  @Test
+  public void testStreamBlocksError() throws Exception {
+    assumeTrue(TEST_NON_RELAYS);
+    StubChain chain = new StubChain(1000);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc(chain.getHandler())) {
+      MoneroDaemonRpc stubDaemon = new MoneroDaemonRpc(server.getUri());
+      
+      // chunk size smaller than a block fails an assertion while fetching
+      MoneroBlockStreamConfig config = new MoneroBlockStreamConfig().setMaxChunkSize(StubChain.BLOCK_SIZE - 1);
+      try (Stream<MoneroBlock> stream = stubDaemon.streamBlocks(0l, 9l, config)) {
+        Iterator<MoneroBlock> iter = stream.iterator();
+        MoneroError error = assertThrows(MoneroError.class, () -> assertTimeoutPreemptively(Duration.ofSeconds(30), () -> iter.hasNext()));
+        assertTrue(error.getCause() instanceof AssertionError);
+        assertFalse(iter.hasNext());
+      }
+    }
+  }
+  
   // Can get block hashes (binary)
   @Test
   public void testGetBlockIdsBinary() {
@@ -593,6 +973,39 @@ public class TestMoneroDaemonRpc {
     }
   }
   
+  // Can parse transaction and block blobs as decoded by the daemon
+  @Test
+  public void testParseBlobs() {
+    assumeTrue(TEST_NON_RELAYS);
+    
+    // parse full and pruned tx hexes
+    List<String> txHashes = getConfirmedTxHashes(daemon);
+    List<MoneroTx> prunedTxs = daemon.getTxs(txHashes, true);
+    for (MoneroTx tx : daemon.getTxs(txHashes)) { // decoded as json
+      testParsedTx(tx, MoneroBlobParser.parseTx(tx.getFullHex()));
+      MoneroTx prunedTx = prunedTxs.get(txHashes.indexOf(tx.getHash()));
+      MoneroTx parsedPrunedTx = MoneroBlobParser.parseTx(prunedTx.getPrunedHex(), new MoneroTx().setPrunableHash(prunedTx.getPrunableHash()));
+      testParsedTx(tx, parsedPrunedTx);
+    }
+    
+    // parse block hexes with miner txs
+    long height = daemon.getHeight();
+    for (long i = Math.max(0, height - 5); i < height; i++) {
+      MoneroBlock block = daemon.getBlockByHeight(i);
+      MoneroBlock parsed = MoneroBlobParser.parseBlock(block.getHex());
+      assertEquals(block.getHeight(), parsed.getHeight());
+      assertEquals(block.getMajorVersion(), parsed.getMajorVersion());
+      assertEquals(block.getMinorVersion(), parsed.getMinorVersion());
+      assertEquals(block.getTimestamp(), parsed.getTimestamp());
+      assertEquals(block.getPrevHash(), parsed.getPrevHash());
+      assertEquals(block.getNonce(), parsed.getNonce());
+      assertEquals(block.getMinerTxHash(), parsed.getMinerTxHash());
+      assertEquals(block.getTxHashes(), parsed.getTxHashes());
+      block.getMinerTx().setHash(block.getMinerTxHash());
+      testParsedTx(block.getMinerTx(), parsed.getMinerTx());
+    }
+  }
+  
   // Can get the miner transaction sum
   @Test
   public void testGetMinerTxSum() {
@@ -1743,6 +2156,27 @@ public class TestMoneroDaemonRpc {
     }
   }
   
+  private static void testParsedTx(MoneroTx tx, MoneroTx parsed) {
+    assertEquals(tx.getHash(), parsed.getHash());
+    assertEquals(tx.getVersion(), parsed.getVersion());
+    assertEquals(tx.getUnlockTime(), parsed.getUnlockTime());
+    assertEquals(tx.getFee(), parsed.getFee());
+    assertTrue(Arrays.equals(tx.getExtra(), parsed.getExtra()));
+    assertEquals(tx.getRctSignatures(), parsed.getRctSignatures()); // type, fee, ecdh info and output commitments
+    assertEquals(tx.getInputs() == null ? 0 : tx.getInputs().size(), parsed.getInputs() == null ? 0 : parsed.getInputs().size());
+    for (int i = 0; tx.getInputs() != null && i < tx.getInputs().size(); i++) {
+      assertEquals(tx.getInputs().get(i).getAmount(), parsed.getInputs().get(i).getAmount());
+      assertEquals(tx.getInputs().get(i).getKeyImage().getHex(), parsed.getInputs().get(i).getKeyImage().getHex());
+      assertEquals(tx.getInputs().get(i).getRingOutputIndices(), parsed.getInputs().get(i).getRingOutputIndices());
+    }
+    assertEquals(tx.getOutputs().size(), parsed.getOutputs().size());
+    for (int i = 0; i < tx.getOutputs().size(); i++) {
+      assertEquals(tx.getOutputs().get(i).getAmount(), parsed.getOutputs().get(i).getAmount());
+      assertEquals(tx.getOutputs().get(i).getStealthPublicKey(), parsed.getOutputs().get(i).getStealthPublicKey());
+      assertEquals(tx.getOutputs().get(i).getViewTag(), parsed.getOutputs().get(i).getViewTag());
+    }
+  }
+  
   private static List<String> getConfirmedTxHashes(MoneroDaemon daemon) {
     int numTxs = 5;
     List<String> txHashes = new ArrayList<String>();
@@ -2051,6 +2485,132 @@ public class TestMoneroDaemonRpc {
     assertTrue(result.getReason() == null || !result.getReason().isEmpty());
   }
   
+  private static long getMaxBlockSize(long startHeight, long endHeight) {
+    long maxSize = 0;
+    for (MoneroBlockHeader header : daemon.getBlockHeadersByRange(startHeight, endHeight)) maxSize = Math.max(maxSize, header.getSize());
+    return maxSize;
+  }
+  
+  private static int getNumStreamThreads() {
+    int numThreads = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) if ("MoneroDaemonRpc-stream".equals(thread.getName()) && thread.isAlive()) numThreads++;
+    return numThreads;
+  }
+  
+  private static void waitForStreamThreads(int numThreads) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (getNumStreamThreads() > numThreads) {
+      if (System.currentTimeMillis() - startTime > 30000) fail("Timeout waiting for block streams to stop");
+      Thread.sleep(10);
+    }
+  }
+  
+  private static byte[] forwardRequest(String uri, String path, byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(uri + "/" + path).openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write(body);
+    }
+    if (connection.getResponseCode() != 200) throw new TestRpcServer.HttpStatus(connection.getResponseCode());
+    try (InputStream in = connection.getInputStream()) {
+      ByteArrayOutputStream resp = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int numBytes;
+      while ((numBytes = in.read(buf)) != -1) resp.write(buf, 0, numBytes);
+      return resp.toByteArray();
+    }
+  }
+  
+  /**
+   * Chain of block headers served by a stub daemon, whose blocks above a fork height are
+   * replaced when the chain reorganizes.
+   */
+  private static class StubChain {
+    
+    static final long BLOCK_SIZE = 100;
+    
+    private volatile long topHeight;
+    private volatile long forkHeight = Long.MAX_VALUE;
+    private volatile String fork = "a";
+    private final Map<String, AtomicInteger> numRequests = new ConcurrentHashMap<String, AtomicInteger>();
+    
+    StubChain(long topHeight) {
+      this.topHeight = topHeight;
+    }
+    
+    void addBlock() {
+      topHeight++;
+    }
+    
+    /**
+     * Replace the blocks above the given height, which extends the chain by one block.
+     */
+    void reorg(long forkHeight) {
+      this.forkHeight = forkHeight;
+      fork = fork + "b";
+      topHeight++;
+    }
+    
+    int getNumRequests(String method) {
+      AtomicInteger num = numRequests.get(method);
+      return num == null ? 0 : num.get();
+    }
+    
+    int getNumRequests() {
+      int num = 0;
+      for (AtomicInteger methodNum : numRequests.values()) num += methodNum.get();
+      return num;
+    }
+    
+    String getHash(long height) {
+      return (height > forkHeight ? fork : "a") + height;
+    }
+    
+    TestRpcServer.JsonRpcHandler getHandler() {
+      return (method, params) -> {
+        numRequests.computeIfAbsent(method, key -> new AtomicInteger()).incrementAndGet();
+        Map<String, Object> result = new HashMap<String, Object>();
+        switch (method) {
+          case "get_block_headers_range":
+            List<Map<String, Object>> headers = new ArrayList<Map<String, Object>>();
+            for (long height = getLong(params, "start_height"); height <= getLong(params, "end_height"); height++) headers.add(getHeader(height));
+            result.put("headers", headers);
+            break;
+          case "get_block_header_by_height":
+            result.put("block_header", getHeader(getLong(params, "height")));
+            break;
+          case "get_last_block_header":
+            result.put("block_header", getHeader(topHeight));
+            break;
+          case "get_block_count":
+            result.put("count", topHeight + 1);
+            break;
+          default:
+            throw new TestRpcServer.HttpStatus(404);
+        }
+        result.put("status", "OK");
+        return result;
+      };
+    }
+    
+    private Map<String, Object> getHeader(long height) {
+      if (height > topHeight) throw new TestRpcServer.HttpStatus(500);
+      Map<String, Object> header = new HashMap<String, Object>();
+      header.put("hash", getHash(height));
+      if (height > 0) header.put("prev_hash", getHash(height - 1));
+      header.put("height", height);
+      header.put("depth", topHeight - height);
+      header.put("block_size", BLOCK_SIZE);
+      header.put("timestamp", 1);
+      return header;
+    }
+    
+    private static long getLong(Map<String, Object> params, String key) {
+      return ((Number) params.get(key)).longValue();
+    }
+  }
+  
   private static void testOutputHistogramEntry(MoneroOutputHistogramEntry entry) {
     TestUtils.testUnsignedBigInteger(entry.getAmount());
     assertTrue(entry.getNumInstances() >= 0);
@@ -0,0 +1,227 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import common.utils.JsonUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import monero.common.MoneroRpcConnection;
+import monero.common.MoneroRpcMetrics;
+import monero.common.MoneroRpcRequest;
+import monero.common.MoneroRpcResponse;
+import monero.common.MoneroRpcStats;
+import org.junit.jupiter.api.Test;
+import utils.TestRpcServer;
+
+/**
+ * Test the Monero RPC connection against a local stub server.
+ */
+public class TestMoneroRpcConnection {
+
+  // Can refresh the client while concurrent requests are in flight
+  @Test
+  public void testRefreshClientWithRequestsInFlight() throws Exception {
+    int numRequests = 8;
+    CountDownLatch requestsReceived = new CountDownLatch(numRequests);
+    CountDownLatch clientRefreshed = new CountDownLatch(1);
+    try (TestRpcServer server = TestRpcServer.forJsonRpc((method, params) -> {
+      requestsReceived.countDown();
+      clientRefreshed.await(30, TimeUnit.SECONDS); // respond after the client is refreshed
+      Map<String, Object> result = new HashMap<String, Object>();
+      result.put("version", 1);
+      return result;
+    })) {
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri()).setIsConcurrent(true).setMaxConnectionsPerRoute(numRequests);
+      ExecutorService pool = Executors.newFixedThreadPool(numRequests);
+      try {
+
+        // send concurrent requests which block on the server
+        List<Future<Map<String, Object>>> futures = new ArrayList<Future<Map<String, Object>>>();
+        for (int i = 0; i < numRequests; i++) futures.add(pool.submit(() -> connection.sendJsonRequest("get_version")));
+        assertTrue(requestsReceived.await(30, TimeUnit.SECONDS));
+
+        // refresh the client twice while the requests are in flight
+        connection.setCredentials("user", "pass");
+        connection.setMaxConnectionsPerRoute(numRequests + 1);
+        clientRefreshed.countDown();
+
+        // requests in flight complete on the previous clients
+        for (Future<Map<String, Object>> future : futures) {
+          @SuppressWarnings("unchecked")
+          Map<String, Object> result = (Map<String, Object>) future.get(30, TimeUnit.SECONDS).get("result");
+          assertEquals(1, ((Number) result.get("version")).intValue());
+        }
+
+        // new requests use the refreshed client
+        assertTrue(connection.sendJsonRequest("get_version").containsKey("result"));
+        assertEquals(numRequests + 1, server.getNumRequests());
+      } finally {
+        pool.shutdownNow();
+        connection.close();
+      }
+    }
+  }
+
+  // Can match batched responses to requests by id with an error per request
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSendJsonRequestBatch() throws Exception {
+    TestRpcServer.Handler jsonHandler = TestRpcServer.forJsonRpcHandler(TestMoneroRpcConnection::handleBatchedRequest);
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      
+      // respond in reverse order without the responses to dropped requests
+      List<Map<String, Object>> resps = new ArrayList<Map<String, Object>>();
+      for (Object resp : JsonUtils.deserialize(new String(jsonHandler.handle(path, body), StandardCharsets.UTF_8), Object[].class)) resps.add(0, (Map<String, Object>) resp);
+      resps.removeIf(resp -> "dropped".equals(resp.get("result")));
+      return JsonUtils.serialize(resps).getBytes(StandardCharsets.UTF_8);
+    })) {
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri());
+      try {
+        List<MoneroRpcResponse> responses = connection.sendJsonRequestBatch(getBatchedRequests());
+        assertEquals(1, server.getNumRequests());
+        testBatchedResponses(responses, true);
+        assertTrue(connection.sendJsonRequestBatch(new ArrayList<MoneroRpcRequest>()).isEmpty());
+        assertEquals(1, server.getNumRequests());
+      } finally {
+        connection.close();
+      }
+    }
+  }
+  
+  // Can send batched requests one after another if the server does not support batches
+  @Test
+  public void testSendJsonRequestBatchFallback() throws Exception {
+    TestRpcServer.Handler jsonHandler = TestRpcServer.forJsonRpcHandler(TestMoneroRpcConnection::handleBatchedRequest);
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      if (new String(body, StandardCharsets.UTF_8).trim().startsWith("[")) throw new TestRpcServer.HttpStatus(400);
+      return jsonHandler.handle(path, body);
+    })) {
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri());
+      try {
+        
+        // rejected batch is sent one request at a time
+        testBatchedResponses(connection.sendJsonRequestBatch(getBatchedRequests()), false);
+        assertEquals(1 + getBatchedRequests().size(), server.getNumRequests());
+        
+        // batches are not sent again
+        server.resetCounts();
+        testBatchedResponses(connection.sendJsonRequestBatch(getBatchedRequests()), false);
+        assertEquals(getBatchedRequests().size(), server.getNumRequests());
+      } finally {
+        connection.close();
+      }
+    }
+  }
+
+  // Can record latency percentiles and the bytes of responses with or without a content length
+  @Test
+  public void testMetrics() throws Exception {
+    AtomicLong delayMs = new AtomicLong();
+    AtomicLong numResponseBytes = new AtomicLong();
+    TestRpcServer.Handler jsonHandler = TestRpcServer.forJsonRpcHandler((method, params) -> {
+      Thread.sleep(delayMs.get());
+      Map<String, Object> result = new HashMap<String, Object>();
+      result.put("version", 1);
+      return result;
+    });
+    try (TestRpcServer server = new TestRpcServer((path, body) -> {
+      byte[] resp = jsonHandler.handle(path, body);
+      numResponseBytes.addAndGet(resp.length);
+      return resp;
+    })) {
+      MoneroRpcMetrics metrics = new MoneroRpcMetrics();
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri());
+      try {
+        connection.sendJsonRequest("get_version"); // warm up the connection
+        numResponseBytes.set(0);
+        connection.setMetrics(metrics);
+
+        // send fast requests, slower requests above the 50th percentile and a slowest request above the 99th
+        for (int i = 0; i < 89; i++) connection.sendJsonRequest("get_version");
+        delayMs.set(40);
+        for (int i = 0; i < 10; i++) connection.sendJsonRequest("get_version");
+        delayMs.set(150);
+        connection.sendJsonRequest("get_version");
+
+        // percentiles are within 25% above the latencies of their requests
+        MoneroRpcStats stats = metrics.getStats("get_version");
+        assertEquals(100, stats.getNumRequests());
+        assertEquals(0, stats.getNumErrors());
+        assertEquals(0, stats.getNumInFlight());
+        assertTrue(stats.getP50Ms() < 20, "p50: " + stats.getP50Ms());
+        assertTrue(stats.getP99Ms() >= 40 && stats.getP99Ms() < 40 * 1.25 + 20, "p99: " + stats.getP99Ms());
+        assertTrue(stats.getMaxMs() >= 150 && stats.getMaxMs() < 250, "max: " + stats.getMaxMs());
+        assertTrue(stats.getP99Ms() <= stats.getMaxMs());
+        assertTrue(stats.getMeanMs() > stats.getP50Ms() && stats.getMeanMs() < stats.getP99Ms(), "mean: " + stats.getMeanMs());
+        assertEquals(numResponseBytes.get(), stats.getResponseBytes());
+        assertTrue(stats.getRequestBytes() > 0);
+
+        // bytes are counted as read when responses have no content length
+        metrics.reset();
+        numResponseBytes.set(0);
+        delayMs.set(0);
+        server.setIsChunked(true);
+        for (int i = 0; i < 3; i++) connection.sendJsonRequest("get_version");
+        stats = metrics.getStats("get_version");
+        assertEquals(3, stats.getNumRequests());
+        assertTrue(numResponseBytes.get() > 0);
+        assertEquals(numResponseBytes.get(), stats.getResponseBytes());
+      } finally {
+        connection.close();
+      }
+    }
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private static Object handleBatchedRequest(String method, Map<String, Object> params) {
+    switch (method) {
+      case "echo":
+        return params;
+      case "fail":
+        return TestRpcServer.jsonRpcError(-32601, "Method not found");
+      case "drop":
+        return "dropped";
+      default:
+        throw new TestRpcServer.HttpStatus(404);
+    }
+  }
+
+  private static List<MoneroRpcRequest> getBatchedRequests() {
+    List<MoneroRpcRequest> requests = new ArrayList<MoneroRpcRequest>();
+    for (int i = 0; i < 3; i++) requests.add(new MoneroRpcRequest("echo", Collections.singletonMap("index", i)));
+    requests.add(1, new MoneroRpcRequest("fail"));
+    requests.add(new MoneroRpcRequest("drop"));
+    return requests;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void testBatchedResponses(List<MoneroRpcResponse> responses, boolean isBatch) {
+    assertEquals(5, responses.size());
+    for (int i : new int[] { 0, 2, 3 }) {
+      assertFalse(responses.get(i).isError());
+      Map<String, Object> result = (Map<String, Object>) responses.get(i).getResponse().get("result");
+      assertEquals(i == 0 ? 0 : i - 1, ((Number) result.get("index")).intValue());
+    }
+    
+    // failed request has its own error
+    assertTrue(responses.get(1).isError());
+    assertEquals(-32601, (int) responses.get(1).getError().getCode());
+    assertEquals("fail", responses.get(1).getError().getRpcMethod());
+    
+    // request without a response fails if batched
+    assertEquals(isBatch, responses.get(4).isError());
+    if (isBatch) assertEquals("drop", responses.get(4).getError().getRpcMethod());
+    else assertEquals("dropped", responses.get(4).getResponse().get("result"));
+  }
+}
@@ -9,17 +9,28 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import monero.common.MoneroBase58;
+import monero.common.MoneroBlobParser;
 import monero.common.MoneroError;
 import monero.common.MoneroUtils;
+import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroNetworkType;
+import monero.daemon.model.MoneroTx;
 import monero.wallet.MoneroWallet;
 import monero.wallet.MoneroWalletFull;
+import monero.wallet.model.MoneroAddress;
+import monero.wallet.model.MoneroAddressType;
+import monero.wallet.model.MoneroDecodedAddress;
 import monero.wallet.model.MoneroIntegratedAddress;
 import monero.wallet.model.MoneroTxConfig;
 import monero.wallet.model.MoneroWalletConfig;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
 import org.junit.jupiter.api.Test;
 import utils.TestUtils;
 
@@ -63,6 +74,87 @@ public class TestMoneroUtils {
     }
   }
   
+  // Can encode addresses byte for byte as monero-cpp
+  @Test
+  public void testEncodeAddresses() {
+    
+    // integrated addresses created by monero-cpp with their standard addresses and payment ids
+    String[][] integratedAddresses = new String[][] {
+      { "MAINNET", "42U9v3qs5CjZEePHBZHwuSckQXebuZu299NSmVEmQ41YJZQhKcPyujyMSzpDH4VMMVSBo3U3b54JaNvQLwAjqDhKS3rvM3L", "ca0a09a9a017aa7e", "4CApvrfMgUFZEePHBZHwuSckQXebuZu299NSmVEmQ41YJZQhKcPyujyMSzpDH4VMMVSBo3U3b54JaNvQLwAjqDhKeGLQ9vfRBRKFKnBtVH" },
+      { "MAINNET", "48ZxX3Y2y5s4nJ8fdz2w65TrTEp9PRsv5J8iHSShkHQcE2V31FhnWptioNst1K9oeDY4KpWZ7v8V2BZNVa4Wdky89iqmPz2", "3ac5fc529957a74d", "4JGdXrMXaMP4nJ8fdz2w65TrTEp9PRsv5J8iHSShkHQcE2V31FhnWptioNst1K9oeDY4KpWZ7v8V2BZNVa4Wdky8DvDyXvDZXvE9jTQwom" },
+      { "MAINNET", "48W972Fx1SQMCHVKENnPpM7tRcL5oWMgpMCqQDbhH8UrjDFg2H9i5AQWXuU1qacJgUUCVLTsgDmZKXGz1vPLXY8QB5ypYqG", "849852a5524b843f", "4JCp7q5SchvMCHVKENnPpM7tRcL5oWMgpMCqQDbhH8UrjDFg2H9i5AQWXuU1qacJgUUCVLTsgDmZKXGz1vPLXY8QFySJXARQWju8AuRN2z" },
+      { "TESTNET", "9tUBnNCkC3UKGygHCwYvAB1FscpjUuq5e9MYJd2rXuiiTjjfVeSVjnbSG5VTnJgBgy9Y7GTLfxpZNMUwNZjGfdFr1z79eV1", "6797c51c69f2c278", "A4AroB2EoJzKGygHCwYvAB1FscpjUuq5e9MYJd2rXuiiTjjfVeSVjnbSG5VTnJgBgy9Y7GTLfxpZNMUwNZjGfdFr2QY5Ba2aHhTEdQa2ra" },
+      { "STAGENET", "5B8s3obCY2ETeQB3GNAGPK2zRGen5UeW1WzegSizVsmf6z5NvM2GLoN6zzk1vHyzGAAfA8pGhuYAeCFZjHAp59jRVQkunGS", "a6d93294abeb2842", "5LqY4cQh9HkTeQB3GNAGPK2zRGen5UeW1WzegSizVsmf6z5NvM2GLoN6zzk1vHyzGAAfA8pGhuYAeCFZjHAp59jRj6LZRFrjuGK8Whthg2" },
+      { "STAGENET", "57VfotUbSZLG82UkKhWXDjS5ZEK9ZCDcmjdk4gpVq2fbKdEgwRCFrGTLZ2MMdSHphRWJDWVBi5qS8T7dz13JTCWtC228zyn", "0b7f858a48df4afb", "5HCLphJ63prG82UkKhWXDjS5ZEK9ZCDcmjdk4gpVq2fbKdEgwRCFrGTLZ2MMdSHphRWJDWVBi5qS8T7dz13JTCWtHETX8zcUhDjVKcynf6" }
+    };
+    for (String[] expected : integratedAddresses) {
+      MoneroNetworkType networkType = MoneroNetworkType.valueOf(expected[0]);
+      MoneroIntegratedAddress integratedAddress = MoneroUtils.getIntegratedAddress(networkType, expected[1], expected[2]);
+      assertEquals(expected[1], integratedAddress.getStandardAddress());
+      assertEquals(expected[2], integratedAddress.getPaymentId());
+      assertEquals(expected[3], integratedAddress.getIntegratedAddress());
+      
+      // encode from keys
+      MoneroAddress standardAddress = MoneroUtils.decodeAddressKeys(expected[1]);
+      assertEquals(expected[1], MoneroUtils.encodeAddress(networkType, MoneroAddressType.PRIMARY_ADDRESS, standardAddress.getPublicSpendKey(), standardAddress.getPublicViewKey(), null).getAddress());
+      MoneroAddress encodedAddress = MoneroUtils.encodeAddress(networkType, MoneroAddressType.INTEGRATED_ADDRESS, standardAddress.getPublicSpendKey(), standardAddress.getPublicViewKey(), expected[2]);
+      assertEquals(expected[3], encodedAddress.getAddress());
+      assertEquals(MoneroUtils.decodeAddressKeys(expected[3]), encodedAddress);
+    }
+    
+    // encode and decode subaddresses and random payment ids
+    String[][] subaddresses = new String[][] {
+      { "MAINNET", "891TQPrWshJVpnBR4ZMhHiHpLx1PUnMqa3ccV5TJFBbqcJa3DWhjBh2QByCv3Su7WDPTGMHmCKkiVFN2fyGJKwbM1t6G7Ea" },
+      { "TESTNET", "BgnKzHPJQDcg7xiP7bMN9MfPv9Z8ciT71iEMYnCdgBRBFETWgu9nKTr8fnzyGfU9h9gyNA8SFzYYzHfTS9KhqytSU943Nu1" },
+      { "STAGENET", "7B9w2xieXjhDumgPX39h1CAYELpsZ7Pe8Wqtr3pVL9jJ5gGDqgxjWt55gTYUCAuhahhM85ajEp6VbQfLDPETt4oT2ZRXa6n" }
+    };
+    for (String[] expected : subaddresses) {
+      MoneroNetworkType networkType = MoneroNetworkType.valueOf(expected[0]);
+      MoneroAddress subaddress = MoneroUtils.decodeAddressKeys(expected[1]);
+      assertEquals(expected[1], MoneroUtils.encodeAddress(networkType, MoneroAddressType.SUBADDRESS, subaddress.getPublicSpendKey(), subaddress.getPublicViewKey(), null).getAddress());
+      MoneroIntegratedAddress integratedAddress = MoneroUtils.getIntegratedAddress(networkType, expected[1], null);
+      MoneroAddress decodedAddress = MoneroUtils.decodeAddressKeys(integratedAddress.getIntegratedAddress());
+      assertEquals(networkType, decodedAddress.getNetworkType());
+      assertEquals(MoneroAddressType.INTEGRATED_ADDRESS, decodedAddress.getAddressType());
+      assertEquals(subaddress.getPublicSpendKey(), decodedAddress.getPublicSpendKey());
+      assertEquals(subaddress.getPublicViewKey(), decodedAddress.getPublicViewKey());
+      assertEquals(integratedAddress.getPaymentId(), decodedAddress.getPaymentId());
+    }
+    
+    // network type mismatch
+    try {
+      MoneroUtils.getIntegratedAddress(MoneroNetworkType.STAGENET, integratedAddresses[0][1], null);
+      fail("Should have failed on network type mismatch");
+    } catch (MoneroError e) {
+      assertEquals("Address network type mismatch: STAGENET vs MAINNET", e.getMessage());
+    }
+    
+    // integrated address given
+    try {
+      MoneroUtils.getIntegratedAddress(MoneroNetworkType.MAINNET, integratedAddresses[0][3], null);
+      fail("Should have failed on integrated address");
+    } catch (MoneroError e) {
+      assertEquals("The given address already has a payment id", e.getMessage());
+    }
+    
+    // payment id without integrated address type
+    MoneroAddress address = MoneroUtils.decodeAddressKeys(integratedAddresses[0][1]);
+    try {
+      MoneroUtils.encodeAddress(MoneroNetworkType.MAINNET, MoneroAddressType.PRIMARY_ADDRESS, address.getPublicSpendKey(), address.getPublicViewKey(), "ca0a09a9a017aa7e");
+      fail("Should have failed on payment id without integrated address type");
+    } catch (MoneroError e) {
+      assertEquals("Payment id requires integrated address type", e.getMessage());
+    }
+    
+    // invalid key
+    try {
+      MoneroUtils.encodeAddress(MoneroNetworkType.MAINNET, MoneroAddressType.PRIMARY_ADDRESS, address.getPublicSpendKey().substring(2), address.getPublicViewKey(), null);
+      fail("Should have failed on invalid public spend key");
+    } catch (MoneroError e) {
+      assertEquals("public spend key expected to be 64 hex characters", e.getMessage());
+    }
+  }
+  
   // Can serialize heights with small numbers
   @Test
   public void testSerializeHeightsSmall() {
@@ -121,6 +213,443 @@ public class TestMoneroUtils {
     assertEquals(map, map2);
   }
   
+  // Can serialize portable storage matching epee's encoding
+  @Test
+  public void testPortableStorageKnownBlob() {
+    
+    // request heights
+    Map<String, Object> map = new LinkedHashMap<String, Object>();
+    map.put("heights", Arrays.asList(111, 222, 333));
+    String hex = "011101010101020101" + "04" + "07" + "68656967687473" + "85" + "0c" + "6f00000000000000" + "de00000000000000" + "4d01000000000000";
+    assertEquals(hex, Hex.encodeHexString(MoneroUtils.mapToBinary(map)));
+    assertEquals(map, MoneroUtils.binaryToMap(hexToBytes(hex)));
+    
+    // daemon response with string, boolean, nested section, and object array
+    hex = "011101010101020101" + "10" +
+        "06" + "737461747573" + "0a" + "08" + "4f4b" +
+        "09" + "756e74727573746564" + "0b" + "00" +
+        "06" + "686561646572" + "0c" + "04" + "06" + "686569676874" + "05" + "e803000000000000" +
+        "04" + "74786573" + "8c" + "08" + "00" + "04" + "04" + "73697a65" + "05" + "0100000000000000";
+    Map<String, Object> header = new LinkedHashMap<String, Object>();
+    header.put("height", 1000);
+    Map<String, Object> tx = new LinkedHashMap<String, Object>();
+    tx.put("size", 1);
+    map = new LinkedHashMap<String, Object>();
+    map.put("status", "OK");
+    map.put("untrusted", false);
+    map.put("header", header);
+    map.put("txes", Arrays.asList(new HashMap<String, Object>(), tx));
+    assertEquals(hex, Hex.encodeHexString(MoneroUtils.mapToBinary(map)));
+    assertEquals(map, MoneroUtils.binaryToMap(hexToBytes(hex)));
+  }
+  
+  // Can serialize portable storage varints at their size boundaries
+  @Test
+  public void testPortableStorageVarintBoundaries() {
+    int[][] boundaries = new int[][] { { 63, 1 }, { 64, 2 }, { 16383, 2 }, { 16384, 4 } }; // string length and its varint size
+    for (int[] boundary : boundaries) {
+      Map<String, Object> map = new HashMap<String, Object>();
+      map.put("s", repeat('a', boundary[0]));
+      byte[] binary = MoneroUtils.mapToBinary(map);
+      assertEquals(9 + 1 + 2 + 1 + boundary[1] + boundary[0], binary.length); // signature, count, name, type, length, string
+      assertEquals(map, MoneroUtils.binaryToMap(binary));
+    }
+    
+    // array sizes use the same varints
+    for (int size : new int[] { 63, 64, 16383, 16384 }) {
+      List<Object> list = new ArrayList<Object>();
+      for (int i = 0; i < size; i++) list.add(i % 2 == 0);
+      Map<String, Object> map = new HashMap<String, Object>();
+      map.put("a", list);
+      assertEquals(map, MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(map)));
+    }
+    
+    // 4 byte varints hold up to 2^30 - 1 and 8 byte varints above, decoded from a string length marker of each size
+    assertEquals("OK", MoneroUtils.binaryToMap(hexToBytes("011101010101020101" + "04" + "01" + "73" + "0a" + "0a000000" + "4f4b")).get("s"));
+    assertEquals("OK", MoneroUtils.binaryToMap(hexToBytes("011101010101020101" + "04" + "01" + "73" + "0a" + "0b00000000000000" + "4f4b")).get("s"));
+    try {
+      MoneroUtils.binaryToMap(hexToBytes("011101010101020101" + "04" + "01" + "61" + "8b" + "0300000100000000")); // array of 2^30 booleans
+      fail("Should have failed on array size exceeding input");
+    } catch (MoneroError e) {
+      assertEquals("Portable storage array size exceeds remaining bytes", e.getMessage());
+    }
+  }
+  
+  // Can serialize portable storage typed and nested arrays
+  @Test
+  public void testPortableStorageArrays() {
+    Map<String, Object> nested = new HashMap<String, Object>();
+    nested.put("strings", Arrays.asList("a", "bc", ""));
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("ints", Arrays.asList(1, 2, 3));
+    map.put("signed", Arrays.asList(1, -2, 3));
+    map.put("doubles", Arrays.asList(0.5, -1.25));
+    map.put("bools", Arrays.asList(true, false));
+    map.put("strings", Arrays.asList("x", "yz"));
+    map.put("objects", Arrays.asList(nested, new HashMap<String, Object>()));
+    map.put("arrays", Arrays.asList(Arrays.asList(1, 2), Arrays.asList("a"), Arrays.asList(Arrays.asList(true))));
+    assertEquals(map, MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(map)));
+    
+    // null values and empty lists are omitted
+    Map<String, Object> omitted = new HashMap<String, Object>(map);
+    omitted.put("null", null);
+    omitted.put("empty", new ArrayList<Object>());
+    assertEquals(map, MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(omitted)));
+    
+    // lists of mixed types are not supported
+    try {
+      Map<String, Object> mixed = new HashMap<String, Object>();
+      mixed.put("mixed", Arrays.asList(1, "a"));
+      MoneroUtils.mapToBinary(mixed);
+      fail("Should have failed on mixed list");
+    } catch (MoneroError e) {
+      assertEquals("Cannot serialize list of mixed types to portable storage", e.getMessage());
+    }
+  }
+  
+  // Can serialize portable storage integers to their limits
+  @Test
+  public void testPortableStorageIntegers() {
+    BigInteger uint64Max = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("int", Integer.MAX_VALUE);
+    map.put("long", Long.MAX_VALUE);
+    map.put("min", Long.MIN_VALUE);
+    map.put("above_long", BigInteger.ONE.shiftLeft(63));
+    map.put("uint64_max", uint64Max);
+    map.put("amounts", Arrays.asList(BigInteger.ZERO, uint64Max));
+    Map<String, Object> map2 = MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(map));
+    assertEquals(Integer.MAX_VALUE, map2.get("int"));
+    assertEquals(Long.MAX_VALUE, map2.get("long"));
+    assertEquals(Long.MIN_VALUE, map2.get("min"));
+    assertEquals(BigInteger.ONE.shiftLeft(63), map2.get("above_long"));
+    assertEquals(uint64Max, map2.get("uint64_max"));
+    assertEquals(Arrays.asList(0, uint64Max), map2.get("amounts"));
+    
+    // integers beyond uint64 are not supported
+    for (BigInteger invalid : new BigInteger[] { uint64Max.add(BigInteger.ONE), BigInteger.ONE.shiftLeft(63).negate().subtract(BigInteger.ONE) }) {
+      try {
+        Map<String, Object> invalidMap = new HashMap<String, Object>();
+        invalidMap.put("invalid", invalid);
+        MoneroUtils.mapToBinary(invalidMap);
+        fail("Should have failed on integer beyond 64 bits: " + invalid);
+      } catch (MoneroError e) {
+        assertTrue(e.getMessage().startsWith("Integer exceeds portable storage"));
+      }
+    }
+  }
+  
+  // Can reject truncated and oversized portable storage
+  @Test
+  public void testPortableStorageInvalidInput() {
+    Map<String, Object> nested = new HashMap<String, Object>();
+    nested.put("height", 1000);
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("status", "OK");
+    map.put("heights", Arrays.asList(1, 2, 3));
+    map.put("nested", nested);
+    byte[] binary = MoneroUtils.mapToBinary(map);
+    
+    // every truncation fails
+    for (int length = 0; length < binary.length; length++) {
+      try {
+        MoneroUtils.binaryToMap(Arrays.copyOf(binary, length));
+        fail("Should have failed on binary truncated to " + length + " bytes");
+      } catch (MoneroError e) {
+        // expected
+      }
+    }
+    
+    // invalid signature
+    byte[] invalidSignature = binary.clone();
+    invalidSignature[0] = 0x02;
+    try {
+      MoneroUtils.binaryToMap(invalidSignature);
+      fail("Should have failed on invalid signature");
+    } catch (MoneroError e) {
+      assertEquals("Invalid portable storage signature", e.getMessage());
+    }
+    
+    // string length exceeding input
+    try {
+      MoneroUtils.binaryToMap(hexToBytes("011101010101020101" + "04" + "01" + "73" + "0a" + "0b00000000000040" + "4f4b")); // length 2^60
+      fail("Should have failed on string length exceeding input");
+    } catch (MoneroError e) {
+      assertEquals("Portable storage string length exceeds remaining bytes", e.getMessage());
+    }
+    
+    // unknown type
+    try {
+      MoneroUtils.binaryToMap(hexToBytes("011101010101020101" + "04" + "01" + "73" + "0e"));
+      fail("Should have failed on unknown type");
+    } catch (MoneroError e) {
+      assertEquals("Unknown portable storage type: 14", e.getMessage());
+    }
+    
+    // nesting beyond maximum depth
+    StringBuilder deep = new StringBuilder("011101010101020101");
+    for (int i = 0; i < 200; i++) deep.append("04" + "01" + "73" + "0c");
+    deep.append("00");
+    try {
+      MoneroUtils.binaryToMap(hexToBytes(deep.toString()));
+      fail("Should have failed on nesting beyond maximum depth");
+    } catch (MoneroError e) {
+      assertTrue(e.getMessage().startsWith("Portable storage exceeds maximum depth"));
+    }
+  }
+  
+  // Can parse the genesis block and its miner transaction
+  @Test
+  public void testParseGenesisBlock() {
+    String minerTxHex = "013c01ff0001ffffffffffff03029b2e4c0281c0b02e7c53291a94d1d0cbff8883f8024f5142ee494ffbbd08807121017767aafcde9be00dcfd098715ebcf7f410daebc582fda69d24a28e9d0bc890d1";
+    MoneroBlock block = MoneroBlobParser.parseBlock("010000" + repeat('0', 64) + "10270000" + minerTxHex + "00");
+    assertEquals(1, (int) block.getMajorVersion());
+    assertEquals(0, (int) block.getMinorVersion());
+    assertEquals(0, (long) block.getTimestamp());
+    assertEquals(repeat('0', 64), block.getPrevHash());
+    assertEquals(10000, (long) block.getNonce());
+    assertEquals(0, (long) block.getHeight());
+    assertEquals(0, block.getTxHashes().size());
+    
+    // test miner tx
+    MoneroTx minerTx = block.getMinerTx();
+    assertEquals("c88ce9783b4f11190d7b9c17a69c1c52200f9faaee8e98dd07e6811175177139", minerTx.getHash());
+    assertEquals(minerTx.getHash(), block.getMinerTxHash());
+    assertEquals(minerTx.getHash(), MoneroBlobParser.parseTx(minerTxHex).getHash());
+    assertTrue(minerTx.isMinerTx());
+    assertEquals(1, (int) minerTx.getVersion());
+    assertEquals(BigInteger.valueOf(60), minerTx.getUnlockTime());
+    assertEquals(null, minerTx.getInputs());
+    assertEquals(1, minerTx.getOutputs().size());
+    assertEquals(new BigInteger("17592186044415"), minerTx.getOutputs().get(0).getAmount());
+    assertEquals("9b2e4c0281c0b02e7c53291a94d1d0cbff8883f8024f5142ee494ffbbd088071", minerTx.getOutputs().get(0).getStealthPublicKey());
+    assertEquals("017767aafcde9be00dcfd098715ebcf7f410daebc582fda69d24a28e9d0bc890d1", Hex.encodeHexString(minerTx.getExtra()));
+    assertEquals(null, minerTx.getRctSignatures());
+  }
+  
+  // Can parse version 1 transactions with and without signatures
+  @Test
+  public void testParseTxV1() {
+    String prefix = "01" + "00" + // version, unlock time
+        "01" + "02" + "64" + "02" + "8001" + "05" + repeat('1', 64) + // input with amount 100, ring offsets 128 and 5, and key image
+        "01" + "32" + "02" + repeat('2', 64) + // output with amount 50
+        "03" + "020100"; // extra
+    String signatures = repeat('4', 2 * 2 * 64); // signature per ring member
+    MoneroTx tx = MoneroBlobParser.parseTx(prefix + signatures);
+    assertEquals(keccak(prefix + signatures), tx.getHash());
+    assertEquals(1, (int) tx.getVersion());
+    assertEquals(BigInteger.ZERO, tx.getUnlockTime());
+    assertEquals(1, tx.getInputs().size());
+    assertEquals(BigInteger.valueOf(100), tx.getInputs().get(0).getAmount());
+    assertEquals(Arrays.asList(128l, 5l), tx.getInputs().get(0).getRingOutputIndices());
+    assertEquals(repeat('1', 64), tx.getInputs().get(0).getKeyImage().getHex());
+    assertEquals(1, tx.getOutputs().size());
+    assertEquals(BigInteger.valueOf(50), tx.getOutputs().get(0).getAmount());
+    assertEquals(repeat('2', 64), tx.getOutputs().get(0).getStealthPublicKey());
+    assertEquals(null, tx.getOutputs().get(0).getViewTag());
+    assertEquals("020100", Hex.encodeHexString(tx.getExtra()));
+    assertEquals(null, tx.getRctSignatures());
+    
+    // pruned blob has no signatures to hash
+    MoneroTx pruned = MoneroBlobParser.parseTx(prefix);
+    assertEquals(null, pruned.getHash());
+    assertEquals(tx.getInputs().get(0).getKeyImage().getHex(), pruned.getInputs().get(0).getKeyImage().getHex());
+    assertEquals(tx.getInputs().get(0).getRingOutputIndices(), pruned.getInputs().get(0).getRingOutputIndices());
+  }
+  
+  // Can parse ringct transactions with and without prunable data
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testParseTxRct() {
+    
+    // clsag tx
+    String prefix = "02" + "00" + // version, unlock time
+        "01" + "02" + "00" + "03" + "e807" + "01" + "02" + repeat('5', 64) + // input with ring offsets 1000, 1, 2 and key image
+        "02" + "00" + "02" + repeat('6', 64) + "00" + "02" + repeat('7', 64) + // outputs
+        "0a" + "02080102030405060708"; // extra with payment id
+    String base = "05" + "8080d30e" + // type clsag, fee 30720000
+        repeat('8', 16) + repeat('9', 16) + // ecdh info
+        repeat('a', 64) + repeat('b', 64); // output commitments
+    String prunable = repeat('c', 200);
+    MoneroTx tx = MoneroBlobParser.parseTx(prefix + base + prunable);
+    assertEquals(keccak(keccak(prefix) + keccak(base) + keccak(prunable)), tx.getHash());
+    assertEquals(2, (int) tx.getVersion());
+    assertEquals(BigInteger.valueOf(30720000), tx.getFee());
+    assertEquals(Arrays.asList(1000l, 1l, 2l), tx.getInputs().get(0).getRingOutputIndices());
+    assertEquals(repeat('5', 64), tx.getInputs().get(0).getKeyImage().getHex());
+    assertEquals(2, tx.getOutputs().size());
+    assertEquals(BigInteger.ZERO, tx.getOutputs().get(1).getAmount());
+    assertEquals(repeat('7', 64), tx.getOutputs().get(1).getStealthPublicKey());
+    Map<String, Object> rctSignatures = (Map<String, Object>) tx.getRctSignatures();
+    assertEquals(BigInteger.valueOf(5), rctSignatures.get("type"));
+    assertEquals(BigInteger.valueOf(30720000), rctSignatures.get("txnFee"));
+    List<Map<String, String>> ecdhInfo = (List<Map<String, String>>) rctSignatures.get("ecdhInfo");
+    assertEquals(repeat('8', 16), ecdhInfo.get(0).get("amount"));
+    assertEquals(repeat('9', 16), ecdhInfo.get(1).get("amount"));
+    assertFalse(ecdhInfo.get(0).containsKey("mask"));
+    assertEquals(Arrays.asList(repeat('a', 64), repeat('b', 64)), rctSignatures.get("outPk"));
+    
+    // pruned clsag tx is hashed with its prunable hash
+    assertEquals(null, MoneroBlobParser.parseTx(prefix + base).getHash());
+    assertEquals(tx.getHash(), MoneroBlobParser.parseTx(prefix + base, new MoneroTx().setPrunableHash(keccak(prunable))).getHash());
+    
+    // bulletproof plus tx with view tags
+    prefix = "02" + "00" +
+        "01" + "02" + "00" + "01" + "05" + repeat('5', 64) +
+        "01" + "00" + "03" + repeat('6', 64) + "ab" + // output with view tag
+        "00";
+    base = "06" + "64" + repeat('8', 16) + repeat('a', 64);
+    tx = MoneroBlobParser.parseTx(prefix + base + prunable);
+    assertEquals(keccak(keccak(prefix) + keccak(base) + keccak(prunable)), tx.getHash());
+    assertEquals(BigInteger.valueOf(100), tx.getFee());
+    assertEquals(repeat('6', 64), tx.getOutputs().get(0).getStealthPublicKey());
+    assertEquals("ab", tx.getOutputs().get(0).getViewTag());
+    assertEquals(BigInteger.valueOf(6), ((Map<String, Object>) tx.getRctSignatures()).get("type"));
+    
+    // miner tx with ringct type null is not pruned
+    String minerTxHex = "02" + "3c" + "01" + "ff" + "c08db701" + "01" + "80e0a596bb11" + "03" + repeat('6', 64) + "ab" + "00" + "00";
+    tx = MoneroBlobParser.parseTx(minerTxHex);
+    assertEquals(keccak(keccak(minerTxHex.substring(0, minerTxHex.length() - 2)) + keccak("00") + repeat('0', 64)), tx.getHash());
+    assertEquals(new BigInteger("600000000000"), tx.getOutputs().get(0).getAmount());
+    assertEquals(null, tx.getInputs());
+    assertEquals(null, tx.getFee());
+    assertEquals(3000000l, (long) MoneroBlobParser.parseBlock("1010" + "00" + repeat('0', 64) + "00000000" + minerTxHex + "00").getHeight());
+    
+    // unknown ringct type
+    try {
+      MoneroBlobParser.parseTx(prefix + "07" + "64");
+      fail("Should have failed on unknown ringct type");
+    } catch (MoneroError e) {
+      assertEquals("Unsupported ringct type: 7", e.getMessage());
+    }
+    
+    // truncated blob
+    try {
+      MoneroBlobParser.parseTx(prefix + base.substring(0, base.length() - 2));
+      fail("Should have failed on truncated blob");
+    } catch (MoneroError e) {
+      // expected
+    }
+  }
+  
+  // Can encode and decode Base58
+  @Test
+  public void testBase58() {
+    
+    // test vectors from monero's base58 unit tests
+    String[][] vectors = new String[][] {
+      { "", "" }, { "00", "11" }, { "39", "1z" }, { "ff", "5Q" }, { "0000", "111" }, { "0039", "11z" }, { "0100", "15R" }, { "ffff", "LUv" },
+      { "000000", "11111" }, { "000039", "1111z" }, { "010000", "11LUw" }, { "ffffff", "2UzHL" }, { "00000039", "11111z" }, { "ffffffff", "7YXq9G" },
+      { "0000000039", "111111z" }, { "ffffffffff", "VtB5VXc" }, { "000000000039", "11111111z" }, { "ffffffffffff", "3CUsUpv9t" },
+      { "00000000000039", "111111111z" }, { "ffffffffffffff", "Ahg1opVcGW" }, { "0000000000000039", "1111111111z" }, { "ffffffffffffffff", "jpXCZedGfVQ" },
+      { "0000000000000000", "11111111111" }, { "0000000000000001", "11111111112" }, { "0000000000000008", "11111111119" }, { "0000000000000009", "1111111111A" },
+      { "000000000000003a", "11111111121" }, { "00ffffffffffffff", "1Ahg1opVcGW" }, { "06156013762879f7", "22222222222" }, { "05e022ba374b2a00", "1z111111111" },
+      { "ffffffffffffffff00", "jpXCZedGfVQ11" }, { "ffffffffffffffffffffffffffffffff", "jpXCZedGfVQjpXCZedGfVQ" }
+    };
+    for (String[] vector : vectors) {
+      byte[] data = hexToBytes(vector[0]);
+      assertEquals(vector[1], MoneroBase58.encode(data));
+      assertEquals(vector[0], Hex.encodeHexString(MoneroBase58.decode(vector[1])));
+      assertEquals(data.length, MoneroBase58.getDecodedLength(vector[1].length()));
+      assertEquals(vector[1].length(), MoneroBase58.getEncodedLength(data.length));
+    }
+    
+    // decode into offset of buffer
+    byte[] buf = new byte[10];
+    assertEquals(8, MoneroBase58.decode("jpXCZedGfVQ", buf, 2));
+    assertEquals("0000ffffffffffffffff", Hex.encodeHexString(buf));
+    assertEquals(-1, MoneroBase58.decode("jpXCZedGfVQ", buf, 3)); // does not fit
+    
+    // blocks which overflow their size
+    for (String overflow : new String[] { "5R", "zz", "LUw", "2UzHM", "7YXq9H", "VtB5VXd", "3CUsUpv9u", "Ahg1opVcGX", "jpXCZedGfVR", "zzzzzzzzzzz", "11111111111jpXCZedGfVR" }) {
+      assertEquals(-1, MoneroBase58.decode(overflow, new byte[16], 0), "Should have failed on overflow: " + overflow);
+      try {
+        MoneroBase58.decode(overflow);
+        fail("Should have failed on overflow: " + overflow);
+      } catch (MoneroError e) {
+        assertEquals("Invalid Base58: " + overflow, e.getMessage());
+      }
+    }
+    
+    // invalid characters
+    for (String invalid : new String[] { "01111111111", "O1111111111", "I1111111111", "l1111111111", "1111111111+", "11111111111\u00e9z" }) {
+      assertFalse(MoneroBase58.isBase58(invalid));
+      assertEquals(-1, MoneroBase58.decode(invalid, new byte[16], 0), "Should have failed on invalid character: " + invalid);
+    }
+    assertTrue(MoneroBase58.isBase58("123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz"));
+    assertFalse(MoneroBase58.isBase58(null));
+    
+    // invalid lengths, which are 1, 4, or 8 mod 11
+    for (int length : new int[] { 1, 4, 8, 12, 15, 19, 96 }) {
+      assertEquals(-1, MoneroBase58.getDecodedLength(length));
+      try {
+        MoneroBase58.decode(repeat('1', length));
+        fail("Should have failed on invalid length: " + length);
+      } catch (MoneroError e) {
+        assertEquals("Invalid Base58 length: " + length, e.getMessage());
+      }
+    }
+  }
+  
+  // Can decode addresses of every network and type
+  @Test
+  public void testDecodeAddresses() {
+    String[][] addresses = new String[][] {
+      { "42U9v3qs5CjZEePHBZHwuSckQXebuZu299NSmVEmQ41YJZQhKcPyujyMSzpDH4VMMVSBo3U3b54JaNvQLwAjqDhKS3rvM3L", "MAINNET", "PRIMARY_ADDRESS" },
+      { "4CApvrfMgUFZEePHBZHwuSckQXebuZu299NSmVEmQ41YJZQhKcPyujyMSzpDH4VMMVSBo3U3b54JaNvQLwAjqDhKeGLQ9vfRBRKFKnBtVH", "MAINNET", "INTEGRATED_ADDRESS" },
+      { "891TQPrWshJVpnBR4ZMhHiHpLx1PUnMqa3ccV5TJFBbqcJa3DWhjBh2QByCv3Su7WDPTGMHmCKkiVFN2fyGJKwbM1t6G7Ea", "MAINNET", "SUBADDRESS" },
+      { "9tUBnNCkC3UKGygHCwYvAB1FscpjUuq5e9MYJd2rXuiiTjjfVeSVjnbSG5VTnJgBgy9Y7GTLfxpZNMUwNZjGfdFr1z79eV1", "TESTNET", "PRIMARY_ADDRESS" },
+      { "A4AroB2EoJzKGygHCwYvAB1FscpjUuq5e9MYJd2rXuiiTjjfVeSVjnbSG5VTnJgBgy9Y7GTLfxpZNMUwNZjGfdFr2QY5Ba2aHhTEdQa2ra", "TESTNET", "INTEGRATED_ADDRESS" },
+      { "BgnKzHPJQDcg7xiP7bMN9MfPv9Z8ciT71iEMYnCdgBRBFETWgu9nKTr8fnzyGfU9h9gyNA8SFzYYzHfTS9KhqytSU943Nu1", "TESTNET", "SUBADDRESS" },
+      { "5B8s3obCY2ETeQB3GNAGPK2zRGen5UeW1WzegSizVsmf6z5NvM2GLoN6zzk1vHyzGAAfA8pGhuYAeCFZjHAp59jRVQkunGS", "STAGENET", "PRIMARY_ADDRESS" },
+      { "5LqY4cQh9HkTeQB3GNAGPK2zRGen5UeW1WzegSizVsmf6z5NvM2GLoN6zzk1vHyzGAAfA8pGhuYAeCFZjHAp59jRj6LZRFrjuGK8Whthg2", "STAGENET", "INTEGRATED_ADDRESS" },
+      { "7B9w2xieXjhDumgPX39h1CAYELpsZ7Pe8Wqtr3pVL9jJ5gGDqgxjWt55gTYUCAuhahhM85ajEp6VbQfLDPETt4oT2ZRXa6n", "STAGENET", "SUBADDRESS" }
+    };
+    for (String[] expected : addresses) {
+      MoneroAddress address = MoneroUtils.decodeAddressKeys(expected[0]);
+      assertEquals(expected[0], address.getAddress());
+      assertEquals(MoneroNetworkType.valueOf(expected[1]), address.getNetworkType());
+      assertEquals(MoneroAddressType.valueOf(expected[2]), address.getAddressType());
+      assertEquals(address.getAddressType() == MoneroAddressType.INTEGRATED_ADDRESS, address.getPaymentId() != null);
+      MoneroDecodedAddress decodedAddress = MoneroUtils.decodeAddress(expected[0]);
+      assertEquals(address.getNetworkType(), decodedAddress.getNetworkType());
+      assertEquals(address.getAddressType(), decodedAddress.getAddressType());
+      assertEquals(expected[0], MoneroBase58.encode(MoneroBase58.decode(expected[0])));
+      
+      // integrated and standard addresses of a primary address share its keys
+      if (address.getAddressType() == MoneroAddressType.INTEGRATED_ADDRESS) {
+        MoneroAddress primaryAddress = MoneroUtils.decodeAddressKeys(addresses[Arrays.asList(addresses).indexOf(expected) - 1][0]);
+        assertEquals(primaryAddress.getPublicSpendKey(), address.getPublicSpendKey());
+        assertEquals(primaryAddress.getPublicViewKey(), address.getPublicViewKey());
+      }
+    }
+    
+    // wrong checksum
+    String address = addresses[0][0];
+    String invalidAddress = address.substring(0, 20) + (address.charAt(20) == '2' ? '3' : '2') + address.substring(21);
+    try {
+      MoneroUtils.decodeAddressKeys(invalidAddress);
+      fail("Should have failed on wrong checksum");
+    } catch (MoneroError e) {
+      assertEquals("Address has invalid hash", e.getMessage());
+    }
+    assertFalse(MoneroUtils.isValidAddress(invalidAddress, MoneroNetworkType.MAINNET));
+    
+    // invalid characters and lengths
+    try {
+      MoneroUtils.decodeAddressKeys(address.substring(0, 94) + "0");
+      fail("Should have failed on invalid character");
+    } catch (MoneroError e) {
+      assertEquals("Address has invalid Base58 encoding", e.getMessage());
+    }
+    try {
+      MoneroUtils.decodeAddressKeys(address.substring(0, 94));
+      fail("Should have failed on invalid length");
+    } catch (MoneroError e) {
+      assertEquals("Address has invalid length: 94", e.getMessage());
+    }
+  }
+  
   // Can validate addresses
   @Test
   public void testAddressValidation() {
@@ -301,6 +830,25 @@ public class TestMoneroUtils {
     printAddressValidationTestCode();
   }
   
+  private static byte[] hexToBytes(String hex) {
+    try {
+      return Hex.decodeHex(hex);
+    } catch (DecoderException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private static String keccak(String hex) {
+    Keccak.Digest256 digest = new Keccak.Digest256();
+    return Hex.encodeHexString(digest.digest(hexToBytes(hex)));
+  }
+  
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+  
   /**
    * Prints code to test address validation.
    */
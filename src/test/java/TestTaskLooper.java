@@ -0,0 +1,183 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import monero.common.TaskLooper;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the task looper.
+ */
+public class TestTaskLooper {
+
+  // Can stop and restart the loop
+  @Test
+  public void testStopAndRestart() throws InterruptedException {
+    AtomicInteger numRuns = new AtomicInteger();
+    TaskLooper looper = new TaskLooper(() -> numRuns.incrementAndGet());
+    try {
+      assertFalse(looper.isStarted());
+      looper.start(20);
+      assertTrue(looper.isStarted());
+      waitForRuns(numRuns, 3);
+
+      // no runs after stopping
+      looper.stop();
+      assertFalse(looper.isStarted());
+      Thread.sleep(50); // run in progress completes
+      int numRunsStopped = numRuns.get();
+      Thread.sleep(200);
+      assertEquals(numRunsStopped, numRuns.get());
+
+      // runs resume after restarting
+      looper.start(20);
+      waitForRuns(numRuns, numRunsStopped + 3);
+
+      // restarting a started loop does not start another loop
+      looper.start(20);
+      looper.stop();
+      Thread.sleep(50);
+      numRunsStopped = numRuns.get();
+      Thread.sleep(200);
+      assertEquals(numRunsStopped, numRuns.get());
+    } finally {
+      looper.stop();
+    }
+  }
+
+  // Can target a fixed period (fixed rate) or a fixed delay between runs
+  @Test
+  public void testFixedRateAndFixedDelay() throws InterruptedException {
+    long periodMs = 100;
+    long runTimeMs = 60;
+
+    // fixed delay waits the period after each run ends
+    List<Long> startTimes = Collections.synchronizedList(new ArrayList<Long>());
+    TaskLooper looper = new TaskLooper(() -> runTask(startTimes, runTimeMs));
+    try {
+      looper.start(periodMs, false);
+      waitForRuns(startTimes, 5);
+    } finally {
+      looper.stop();
+    }
+    double fixedDelayMs = getAverageInterval(startTimes);
+    assertTrue(fixedDelayMs >= periodMs + runTimeMs - 5, "Fixed delay interval: " + fixedDelayMs);
+
+    // fixed rate accounts for the run time
+    startTimes.clear();
+    looper = new TaskLooper(() -> runTask(startTimes, runTimeMs));
+    try {
+      looper.start(periodMs, true);
+      waitForRuns(startTimes, 5);
+    } finally {
+      looper.stop();
+    }
+    double fixedRateMs = getAverageInterval(startTimes);
+    assertTrue(fixedRateMs >= periodMs - 5 && fixedRateMs < periodMs + runTimeMs / 2, "Fixed rate interval: " + fixedRateMs);
+  }
+
+  // Can add a random delay to each period
+  @Test
+  public void testJitter() throws InterruptedException {
+    long periodMs = 20;
+    long jitterMs = 100;
+    List<Long> startTimes = Collections.synchronizedList(new ArrayList<Long>());
+    TaskLooper looper = new TaskLooper(() -> startTimes.add(System.currentTimeMillis())).setJitterInMs(jitterMs);
+    assertEquals(jitterMs, looper.getJitterInMs());
+    try {
+      looper.start(periodMs);
+      waitForRuns(startTimes, 12);
+    } finally {
+      looper.stop();
+    }
+    long minIntervalMs = Long.MAX_VALUE;
+    long maxIntervalMs = 0;
+    synchronized (startTimes) {
+      for (int i = 1; i < startTimes.size(); i++) {
+        long intervalMs = startTimes.get(i) - startTimes.get(i - 1);
+        minIntervalMs = Math.min(minIntervalMs, intervalMs);
+        maxIntervalMs = Math.max(maxIntervalMs, intervalMs);
+      }
+    }
+    assertTrue(minIntervalMs >= periodMs - 1, "Min interval: " + minIntervalMs);
+    assertTrue(maxIntervalMs - minIntervalMs >= 10, "Intervals are not spread: " + minIntervalMs + " - " + maxIntervalMs);
+  }
+
+  // Can run without overlap when a run exceeds the period
+  @Test
+  public void testNoOverlap() throws InterruptedException {
+    AtomicInteger numRunning = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Long> startTimes = Collections.synchronizedList(new ArrayList<Long>());
+    ExecutorService executor = Executors.newCachedThreadPool();
+    TaskLooper looper = new TaskLooper(() -> {
+      maxRunning.accumulateAndGet(numRunning.incrementAndGet(), Math::max);
+      runTask(startTimes, 50);
+      numRunning.decrementAndGet();
+    }).setExecutor(executor);
+    try {
+      looper.start(5, true);
+      waitForRuns(startTimes, 5);
+    } finally {
+      looper.stop();
+      executor.shutdown();
+    }
+    assertEquals(1, maxRunning.get());
+  }
+
+  // Can continue the loop after the task throws
+  @Test
+  public void testContinueAfterFailure() throws InterruptedException {
+    AtomicInteger numRuns = new AtomicInteger();
+    TaskLooper looper = new TaskLooper(() -> {
+      if (numRuns.incrementAndGet() % 2 == 0) throw new RuntimeException("Test exception");
+      throw new AssertionError("Test error");
+    }).setExecutor(Runnable::run); // error propagates to the scheduler
+    try {
+      looper.start(10);
+      waitForRuns(numRuns, 5);
+      assertTrue(looper.isStarted());
+    } finally {
+      looper.stop();
+    }
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  private static void runTask(List<Long> startTimes, long runTimeMs) {
+    startTimes.add(System.currentTimeMillis());
+    try {
+      Thread.sleep(runTimeMs);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static double getAverageInterval(List<Long> startTimes) {
+    synchronized (startTimes) {
+      return (startTimes.get(startTimes.size() - 1) - startTimes.get(0)) / (double) (startTimes.size() - 1);
+    }
+  }
+
+  private static void waitForRuns(List<Long> startTimes, int numRuns) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (startTimes.size() < numRuns) {
+      if (System.currentTimeMillis() - startTime > 30000) throw new RuntimeException("Timeout waiting for " + numRuns + " runs");
+      Thread.sleep(5);
+    }
+  }
+
+  private static void waitForRuns(AtomicInteger numRuns, int expectedRuns) throws InterruptedException {
+    long startTime = System.currentTimeMillis();
+    while (numRuns.get() < expectedRuns) {
+      if (System.currentTimeMillis() - startTime > 30000) throw new RuntimeException("Timeout waiting for " + expectedRuns + " runs");
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+import common.utils.JsonUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import monero.common.MoneroError;
+
+/**
+ * Local HTTP server which answers RPC requests with canned responses to test RPC clients offline.
+ */
+public class TestRpcServer implements AutoCloseable {
+
+  /**
+   * Produces the response body for a request.
+   */
+  public interface Handler {
+
+    /**
+     * Handle a request.
+     *
+     * @param path is the request path without the leading slash (e.g. json_rpc)
+     * @param body is the request body
+     * @return the response body
+     * @throws Exception to respond with status 500, or with the status of an HttpStatus exception
+     */
+    public byte[] handle(String path, byte[] body) throws Exception;
+  }
+
+  /**
+   * Produces the result of a JSON-RPC request.
+   */
+  public interface JsonRpcHandler {
+
+    /**
+     * Handle a JSON-RPC request.
+     *
+     * @param method is the requested method
+     * @param params are the request params
+     * @return the result of the request, serialized to JSON
+     * @throws Exception to respond with status 500, or with the status of an HttpStatus exception
+     */
+    public Object handle(String method, Map<String, Object> params) throws Exception;
+  }
+
+  /**
+   * Thrown by handlers to respond with an HTTP status code.
+   */
+  @SuppressWarnings("serial")
+  public static class HttpStatus extends RuntimeException {
+
+    private final int code;
+
+    public HttpStatus(int code) {
+      super("HTTP " + code);
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+  }
+
+  static {
+    System.setProperty("sun.net.httpserver.nodelay", "true"); // respond without delayed acks skewing latencies
+  }
+
+  /**
+   * Thrown by handlers to close the connection without a response.
+   */
+  @SuppressWarnings("serial")
+  public static class Disconnect extends RuntimeException {}
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final AtomicInteger numRequests = new AtomicInteger();
+  private final AtomicInteger numActiveRequests = new AtomicInteger();
+  private final AtomicInteger maxActiveRequests = new AtomicInteger();
+  private volatile Handler handler;
+  private volatile boolean isChunked;
+
+  public TestRpcServer(Handler handler) {
+    this.handler = handler;
+    try {
+      server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    } catch (IOException e) {
+      throw new MoneroError(e);
+    }
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", exchange -> {
+      int numActive = numActiveRequests.incrementAndGet();
+      maxActiveRequests.accumulateAndGet(numActive, Math::max);
+      numRequests.incrementAndGet();
+      try {
+        byte[] resp;
+        int code = 200;
+        try {
+          resp = this.handler.handle(exchange.getRequestURI().getPath().substring(1), readAll(exchange.getRequestBody()));
+        } catch (HttpStatus e) {
+          code = e.getCode();
+          resp = new byte[0];
+        } catch (Disconnect e) {
+          return;
+        } catch (Exception e) {
+          code = 500;
+          resp = new byte[0];
+        }
+        exchange.sendResponseHeaders(code, resp.length == 0 ? -1 : isChunked ? 0 : resp.length);
+        if (resp.length > 0) {
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(resp);
+          }
+        }
+      } finally {
+        exchange.close();
+        numActiveRequests.decrementAndGet();
+      }
+    });
+    server.start();
+  }
+
+  /**
+   * Create a server which answers JSON-RPC requests at json_rpc.
+   *
+   * @param handler produces the result of each request
+   * @return the started server
+   */
+  public static TestRpcServer forJsonRpc(JsonRpcHandler handler) {
+    return new TestRpcServer(forJsonRpcHandler(handler));
+  }
+
+  public String getUri() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public TestRpcServer setHandler(Handler handler) {
+    this.handler = handler;
+    return this;
+  }
+
+  public TestRpcServer setJsonRpcHandler(JsonRpcHandler handler) {
+    return setHandler(forJsonRpcHandler(handler));
+  }
+
+  /**
+   * Set if responses are sent with chunked transfer encoding instead of a content length.
+   *
+   * @param isChunked specifies if responses are chunked
+   * @return this server
+   */
+  public TestRpcServer setIsChunked(boolean isChunked) {
+    this.isChunked = isChunked;
+    return this;
+  }
+
+  public int getNumRequests() {
+    return numRequests.get();
+  }
+
+  public int getMaxActiveRequests() {
+    return maxActiveRequests.get();
+  }
+
+  public TestRpcServer resetCounts() {
+    numRequests.set(0);
+    maxActiveRequests.set(0);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Build a JSON-RPC error which a JsonRpcHandler returns as its result.
+   *
+   * @param code is the error code
+   * @param message is the error message
+   * @return the error
+   */
+  public static Map<String, Object> jsonRpcError(int code, String message) {
+    Map<String, Object> error = new HashMap<String, Object>();
+    error.put("code", code);
+    error.put("message", message);
+    Map<String, Object> resp = new HashMap<String, Object>();
+    resp.put("error", error);
+    return resp;
+  }
+
+  /**
+   * Get a handler which answers JSON-RPC requests at json_rpc.
+   *
+   * @param handler produces the result of each request
+   * @return the handler
+   */
+  @SuppressWarnings("unchecked")
+  public static Handler forJsonRpcHandler(JsonRpcHandler handler) {
+    return (path, body) -> {
+      if (!"json_rpc".equals(path)) throw new HttpStatus(404);
+      String json = new String(body, StandardCharsets.UTF_8).trim();
+      if (json.startsWith("[")) {
+        Object[] requests = JsonUtils.deserialize(json, Object[].class);
+        Object[] resps = new Object[requests.length];
+        for (int i = 0; i < requests.length; i++) resps[i] = toJsonRpcResponse(handler, (Map<String, Object>) requests[i]);
+        return JsonUtils.serialize(resps).getBytes(StandardCharsets.UTF_8);
+      }
+      return JsonUtils.serialize(toJsonRpcResponse(handler, JsonUtils.toMap(json))).getBytes(StandardCharsets.UTF_8);
+    };
+  }
+
+  // ------------------------------ PRIVATE HELPERS ---------------------------
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> toJsonRpcResponse(JsonRpcHandler handler, Map<String, Object> request) throws Exception {
+    Object result = handler.handle((String) request.get("method"), (Map<String, Object>) request.get("params"));
+    Map<String, Object> resp = new HashMap<String, Object>();
+    resp.put("jsonrpc", "2.0");
+    resp.put("id", request.get("id"));
+    if (result instanceof Map && ((Map<String, Object>) result).containsKey("error") && ((Map<String, Object>) result).size() == 1) resp.put("error", ((Map<String, Object>) result).get("error"));
+    else resp.put("result", result);
+    return resp;
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    int n;
+    while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+    return out.toByteArray();
+  }
+}